@@ -0,0 +1,35 @@
+package com.citi.volume.benchmark;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs all benchmarks reporting throughput, latency percentiles and allocation rate.
+ * Must be run from project directory so that 9988_HK.csv is found,
+ * optional argument is regular expression of benchmarks to run.
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : BenchmarkRunner.class.getPackageName() + ".*Benchmark")
+                .mode(Mode.Throughput)
+                .mode(Mode.SampleTime) // sample time reports p50, p90, p99 and higher percentiles
+                .timeUnit(TimeUnit.MICROSECONDS)
+                .addProfiler(GCProfiler.class) // allocation rate and bytes per operation
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1))
+                .forks(1)
+                .jvmArgsAppend("-Duser.timezone=Asia/Hong_Kong")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,80 @@
+package com.citi.volume.benchmark;
+
+import com.citi.volume.MappedVolumeProfileCSVFileLoader;
+import com.citi.volume.VolumeProfileCSVFileLoader;
+import com.citi.volume.data.VolumeProfile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Measures loading of volume profile files, 9988_HK.csv with 1 minute buckets
+ * and a synthetic full day profile with 1 second buckets
+ */
+@State(Scope.Benchmark)
+public class LoaderBenchmark {
+    private static final int SECONDS_PER_DAY_SESSION = 7 * 60 * 60;
+
+    @Param({"9988_HK.csv", "synthetic-1s"})
+    public String file;
+
+    @Param({"reader", "mapped"})
+    public String loaderType;
+
+    private VolumeProfileCSVFileLoader loader;
+    private Path syntheticFile;
+    private String filename;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        loader = "mapped".equals(loaderType) ? new MappedVolumeProfileCSVFileLoader() : new VolumeProfileCSVFileLoader();
+        if ("synthetic-1s".equals(file)) {
+            syntheticFile = Files.createTempFile("synthetic_1s", ".csv");
+            Files.writeString(syntheticFile, syntheticProfile(SECONDS_PER_DAY_SESSION));
+            filename = syntheticFile.toString();
+        } else {
+            filename = file;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (syntheticFile != null)
+            Files.deleteIfExists(syntheticFile);
+    }
+
+    @Benchmark
+    public VolumeProfile loadVolumeProfile() {
+        return loader.loadVolumeProfile("BENCH", filename);
+    }
+
+    /**
+     * builds csv with one opening auction bucket followed by equal 1 second continuous buckets, adding up to 100%
+     */
+    static String syntheticProfile(int continuousBuckets) {
+        StringBuilder sb = new StringBuilder("#StartTime,EndTime,PercentOfDayVolume,BucketType\n");
+        double auctionPercent = 10.0;
+        sb.append("08:30:00,09:00:00,").append(auctionPercent).append(",Auction\n");
+        double remaining = 100.0 - auctionPercent;
+        int start = 9 * 60 * 60;
+        for (int i = 0; i < continuousBuckets; i++) {
+            double percent = i == continuousBuckets - 1 ? remaining : (100.0 - auctionPercent) / continuousBuckets;
+            remaining -= percent;
+            appendTime(sb, start + i).append(',');
+            appendTime(sb, start + i + 1).append(',').append(percent).append(",Continuous\n");
+        }
+        return sb.toString();
+    }
+
+    private static StringBuilder appendTime(StringBuilder sb, int secondOfDay) {
+        return sb.append(String.format("%02d:%02d:%02d", secondOfDay / 3600, secondOfDay / 60 % 60, secondOfDay % 60));
+    }
+}
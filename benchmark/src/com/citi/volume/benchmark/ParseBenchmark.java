@@ -0,0 +1,41 @@
+package com.citi.volume.benchmark;
+
+import com.citi.volume.data.Bucket;
+import com.citi.volume.data.BucketType;
+import com.citi.volume.util.ConstantUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Date;
+
+/**
+ * Measures csv value conversion and bucket validation
+ */
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+    public String time = "10:15:30";
+    public String percentOfDayVolume = "0.49560281387";
+    public long startTime = ConstantUtils.extractTimeMillis("10:15:00");
+    public long endTime = ConstantUtils.extractTimeMillis("10:16:00");
+
+    @Benchmark
+    public Date extractTime() {
+        return ConstantUtils.extractTime(time);
+    }
+
+    @Benchmark
+    public long extractTimeMillis() {
+        return ConstantUtils.extractTimeMillis(time);
+    }
+
+    @Benchmark
+    public double extractDouble() {
+        return ConstantUtils.extractDouble(percentOfDayVolume);
+    }
+
+    @Benchmark
+    public Bucket bucketValidation() {
+        return new Bucket(startTime, endTime, 0.5, BucketType.Continuous);
+    }
+}
@@ -0,0 +1,78 @@
+package com.citi.volume.benchmark;
+
+import com.citi.volume.VolumeProfileCSVFileLoader;
+import com.citi.volume.data.BucketType;
+import com.citi.volume.data.BucketVisitor;
+import com.citi.volume.data.VolumeProfile;
+import com.citi.volume.util.ConstantUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures time window queries on 9988_HK.csv for windows within one bucket, across many buckets
+ * and starting or ending inside an auction bucket
+ */
+@State(Scope.Benchmark)
+public class QueryBenchmark {
+
+    @Param({"singleBucket", "multiBucket", "auctionEdge", "fullDay"})
+    public String window;
+
+    private VolumeProfile volumeProfile;
+    private long startTime;
+    private long endTime;
+    private BlackholeVisitor visitor;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        visitor = new BlackholeVisitor(blackhole);
+        volumeProfile = new VolumeProfileCSVFileLoader().loadVolumeProfile("9988_HK", "9988_HK.csv");
+        switch (window) {
+            case "singleBucket" -> {
+                startTime = ConstantUtils.extractTimeMillis("10:15:10");
+                endTime = ConstantUtils.extractTimeMillis("10:15:40");
+            }
+            case "multiBucket" -> {
+                startTime = ConstantUtils.extractTimeMillis("10:15:30");
+                endTime = ConstantUtils.extractTimeMillis("11:45:30");
+            }
+            case "auctionEdge" -> {
+                startTime = ConstantUtils.extractTimeMillis("09:15:00");
+                endTime = ConstantUtils.extractTimeMillis("09:35:30");
+            }
+            default -> {
+                startTime = volumeProfile.getStartTime(0);
+                endTime = volumeProfile.getEndTime(volumeProfile.size() - 1);
+            }
+        }
+    }
+
+    @Benchmark
+    public double getTargetPercentForTimePeriod() {
+        return volumeProfile.getTargetPercentForTimePeriod(startTime, endTime);
+    }
+
+    @Benchmark
+    public VolumeProfile getCumulativeVolumeProfile() {
+        return volumeProfile.getCumulativeVolumeProfile(startTime, endTime);
+    }
+
+    @Benchmark
+    public int forEachBucket() {
+        return volumeProfile.forEachBucket(startTime, endTime, visitor);
+    }
+
+    private record BlackholeVisitor(Blackhole blackhole) implements BucketVisitor {
+        @Override
+        public void visit(long startTime, long endTime, double percentOfDayVolume, BucketType bucketType) {
+            blackhole.consume(startTime);
+            blackhole.consume(endTime);
+            blackhole.consume(percentOfDayVolume);
+            blackhole.consume(bucketType);
+        }
+    }
+}
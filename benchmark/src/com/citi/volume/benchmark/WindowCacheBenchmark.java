@@ -0,0 +1,77 @@
+package com.citi.volume.benchmark;
+
+import com.citi.volume.VolumeProfileCSVFileLoader;
+import com.citi.volume.VolumeProfileRegistry;
+import com.citi.volume.VolumeProfileWindowCache;
+import com.citi.volume.data.VolumeProfile;
+import com.citi.volume.util.ConstantUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Compares VolumeProfileWindowCache against calling registry volume profile directly on 9988_HK.csv,
+ * for a short window and full day, with one thread and with four threads sharing the cache
+ */
+@State(Scope.Benchmark)
+public class WindowCacheBenchmark {
+    private static final String SYMBOL = "9988_HK";
+
+    @Param({"multiBucket", "fullDay"})
+    public String window;
+
+    private VolumeProfileRegistry registry;
+    private VolumeProfileWindowCache cache;
+    private long startTime;
+    private long endTime;
+
+    @Setup
+    public void setUp() {
+        VolumeProfile volumeProfile = new VolumeProfileCSVFileLoader().loadVolumeProfile(SYMBOL, "9988_HK.csv");
+        registry = new VolumeProfileRegistry();
+        registry.put(volumeProfile);
+        cache = new VolumeProfileWindowCache(registry, 1024, Long.MAX_VALUE);
+        if ("multiBucket".equals(window)) {
+            startTime = ConstantUtils.extractTimeMillis("10:15:30");
+            endTime = ConstantUtils.extractTimeMillis("11:45:30");
+        } else {
+            startTime = volumeProfile.getStartTime(0);
+            endTime = volumeProfile.getEndTime(volumeProfile.size() - 1);
+        }
+    }
+
+    @Benchmark
+    public double uncachedTargetPercent() {
+        return registry.get(SYMBOL).getTargetPercentForTimePeriod(startTime, endTime);
+    }
+
+    @Benchmark
+    public double cachedTargetPercent() {
+        return cache.getTargetPercentForTimePeriod(SYMBOL, startTime, endTime);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public double cachedTargetPercentFourThreads() {
+        return cache.getTargetPercentForTimePeriod(SYMBOL, startTime, endTime);
+    }
+
+    @Benchmark
+    public VolumeProfile uncachedCumulativeVolumeProfile() {
+        return registry.get(SYMBOL).getCumulativeVolumeProfile(startTime, endTime);
+    }
+
+    @Benchmark
+    public VolumeProfile cachedCumulativeVolumeProfile() {
+        return cache.getCumulativeVolumeProfile(SYMBOL, startTime, endTime);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public VolumeProfile cachedCumulativeVolumeProfileFourThreads() {
+        return cache.getCumulativeVolumeProfile(SYMBOL, startTime, endTime);
+    }
+}
@@ -0,0 +1,86 @@
+package com.citi.volume;
+
+import com.citi.volume.data.VolumeProfile;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of loading many volume profile files, holds profiles loaded successfully and errors for files which failed
+ */
+public class BulkLoadResult {
+    private final Map<String, VolumeProfile> volumeProfiles;
+    private final List<LoadError> errors;
+
+    public BulkLoadResult(Map<String, VolumeProfile> volumeProfiles, List<LoadError> errors) {
+        this.volumeProfiles = Collections.unmodifiableMap(volumeProfiles);
+        this.errors = Collections.unmodifiableList(errors);
+    }
+
+    /**
+     * @return symbol to volume profile for all files loaded successfully
+     */
+    public Map<String, VolumeProfile> getVolumeProfiles() {
+        return volumeProfiles;
+    }
+
+    /**
+     * @return errors for files which could not be loaded
+     */
+    public List<LoadError> getErrors() {
+        return errors;
+    }
+
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "BulkLoadResult{" +
+                "loaded=" + volumeProfiles.size() +
+                ", errors=" + errors +
+                '}';
+    }
+
+    /**
+     * Failure to load volume profile of one symbol
+     */
+    public static class LoadError {
+        private final String symbol;
+        private final String filename;
+        private final RuntimeException exception;
+
+        public LoadError(String symbol, String filename, RuntimeException exception) {
+            this.symbol = symbol;
+            this.filename = filename;
+            this.exception = exception;
+        }
+
+        public String getSymbol() {
+            return symbol;
+        }
+
+        public String getFilename() {
+            return filename;
+        }
+
+        public RuntimeException getException() {
+            return exception;
+        }
+
+        public String getMessage() {
+            return exception.getMessage();
+        }
+
+        @Override
+        public String toString() {
+            return "LoadError{" +
+                    "symbol='" + symbol + '\'' +
+                    ", filename='" + filename + '\'' +
+                    ", message='" + getMessage() + '\'' +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.citi.volume;
+
+import com.citi.volume.data.BucketType;
+import com.citi.volume.data.HistoricalVolumes;
+import com.citi.volume.data.VolumeProfile;
+import com.citi.volume.data.exception.VolumeProfileValidationException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Builds volume profiles from many days of traded volume per bucket.
+ * Each day is first converted to percent of that day's volume so busy days do not dominate the shape,
+ * then percentages of each bucket are combined across days and the result is scaled back to 100%.
+ * Days marked excluded, days without volume and days whose volume is far from the median day are left out.
+ */
+public class HistoricalVolumeProfileAggregator {
+    public enum Method {
+        /**
+         * simple average of all days
+         */
+        AVERAGE,
+        /**
+         * median of all days for each bucket
+         */
+        MEDIAN,
+        /**
+         * exponentially weighted average, most recent day has highest weight
+         */
+        EWMA
+    }
+
+    private final Method method;
+    private final double ewmaAlpha;
+    private final double minDayVolumeRatio;
+    private final double maxDayVolumeRatio;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param method            how days are combined
+     * @param ewmaAlpha         weight of most recent day for EWMA, between 0 and 1, ignored by other methods
+     * @param minDayVolumeRatio days with less volume than this ratio of median day volume are excluded, 0 to disable
+     * @param maxDayVolumeRatio days with more volume than this ratio of median day volume are excluded, infinity to disable
+     * @param pool              on which symbols are aggregated in parallel
+     */
+    public HistoricalVolumeProfileAggregator(Method method, double ewmaAlpha, double minDayVolumeRatio, double maxDayVolumeRatio, ForkJoinPool pool) {
+        if (method == Method.EWMA && (ewmaAlpha <= 0 || ewmaAlpha > 1))
+            throw new IllegalArgumentException("EWMA alpha must be more than 0 and at most 1, " + ewmaAlpha);
+        this.method = method;
+        this.ewmaAlpha = ewmaAlpha;
+        this.minDayVolumeRatio = minDayVolumeRatio;
+        this.maxDayVolumeRatio = maxDayVolumeRatio;
+        this.pool = pool;
+    }
+
+    /**
+     * Aggregates with default outlier bounds, days below half or above three times the median day volume are excluded
+     *
+     * @param method how days are combined
+     */
+    public HistoricalVolumeProfileAggregator(Method method) {
+        this(method, 0.1, 0.5, 3.0, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Aggregates volume profiles of many symbols in parallel, symbol which cannot be aggregated does not stop the others
+     *
+     * @param historicalVolumes volumes of each symbol
+     * @return aggregated volume profiles and errors sorted by symbol for symbols which failed, errors have no filename
+     */
+    public BulkLoadResult aggregateAll(Collection<HistoricalVolumes> historicalVolumes) {
+        try {
+            return pool.submit(() -> {
+                Map<String, VolumeProfile> volumeProfiles = new ConcurrentHashMap<>(historicalVolumes.size() * 2);
+                Queue<BulkLoadResult.LoadError> errors = new ConcurrentLinkedQueue<>();
+                historicalVolumes.parallelStream().forEach(volumes -> {
+                    try {
+                        volumeProfiles.put(volumes.getSymbol(), aggregate(volumes));
+                    } catch (RuntimeException e) {
+                        errors.add(new BulkLoadResult.LoadError(volumes.getSymbol(), null, e));
+                    }
+                });
+                List<BulkLoadResult.LoadError> sortedErrors = new ArrayList<>(errors);
+                sortedErrors.sort(Comparator.comparing(BulkLoadResult.LoadError::getSymbol));
+                return new BulkLoadResult(volumeProfiles, sortedErrors);
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while aggregating volume profiles", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException)
+                throw runtimeException;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Aggregates volume profile of one symbol
+     *
+     * @param historicalVolumes volumes of symbol
+     * @return aggregated volume profile adding up to 100%
+     * @throws VolumeProfileValidationException when symbol has no valid day
+     */
+    public VolumeProfile aggregate(HistoricalVolumes historicalVolumes) throws VolumeProfileValidationException {
+        int days = historicalVolumes.getDays();
+        int buckets = historicalVolumes.getBuckets();
+        double[] dayVolumes = new double[days];
+        for (int day = 0; day < days; day++) {
+            dayVolumes[day] = historicalVolumes.getDayVolume(day);
+        }
+        int[] includedDays = includedDays(historicalVolumes, dayVolumes);
+        if (includedDays.length == 0)
+            throw new VolumeProfileValidationException("No valid days to aggregate Volume Profile for " + historicalVolumes.getSymbol());
+
+        double[] weights = weights(includedDays);
+        double[] percents = new double[buckets];
+        double[] scratch = new double[includedDays.length];
+        double total = 0;
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            double value = 0;
+            if (method == Method.MEDIAN) {
+                for (int i = 0; i < includedDays.length; i++) {
+                    int day = includedDays[i];
+                    scratch[i] = historicalVolumes.getVolume(day, bucket) / dayVolumes[day];
+                }
+                value = median(scratch);
+            } else {
+                for (int i = 0; i < includedDays.length; i++) {
+                    int day = includedDays[i];
+                    value += weights[i] * historicalVolumes.getVolume(day, bucket) / dayVolumes[day];
+                }
+            }
+            percents[bucket] = value;
+            total += value;
+        }
+
+        VolumeProfile grid = historicalVolumes.getGrid();
+        long[] startTimes = new long[buckets];
+        long[] endTimes = new long[buckets];
+        BucketType[] bucketTypes = new BucketType[buckets];
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            percents[bucket] = percents[bucket] / total * 100.0; // median of buckets does not add up to 100% on its own
+            startTimes[bucket] = grid.getStartTime(bucket);
+            endTimes[bucket] = grid.getEndTime(bucket);
+            bucketTypes[bucket] = grid.getBucketType(bucket);
+        }
+        VolumeProfile volumeProfile = new VolumeProfile(historicalVolumes.getSymbol(), startTimes, endTimes, percents, bucketTypes, buckets);
+        volumeProfile.validate(true);
+        return volumeProfile;
+    }
+
+    /**
+     * Finds days which are not excluded, have volume and are within ratio bounds of median day volume
+     */
+    private int[] includedDays(HistoricalVolumes historicalVolumes, double[] dayVolumes) {
+        int days = dayVolumes.length;
+        double[] candidates = new double[days];
+        int count = 0;
+        for (int day = 0; day < days; day++) {
+            if (!historicalVolumes.isExcluded(day) && dayVolumes[day] > 0)
+                candidates[count++] = dayVolumes[day];
+        }
+        if (count == 0)
+            return new int[0];
+        double medianDayVolume = median(Arrays.copyOf(candidates, count));
+
+        int[] included = new int[count];
+        int size = 0;
+        for (int day = 0; day < days; day++) {
+            if (!historicalVolumes.isExcluded(day) && dayVolumes[day] > 0
+                    && dayVolumes[day] >= minDayVolumeRatio * medianDayVolume
+                    && dayVolumes[day] <= maxDayVolumeRatio * medianDayVolume)
+                included[size++] = day;
+        }
+        return Arrays.copyOf(included, size);
+    }
+
+    /**
+     * Weight of each included day, weights add up to 1
+     */
+    private double[] weights(int[] includedDays) {
+        double[] weights = new double[includedDays.length];
+        double total = 0;
+        for (int i = 0; i < includedDays.length; i++) {
+            // most recent day has weight alpha, each older day (1 - alpha) times the next one
+            weights[i] = method == Method.EWMA ? Math.pow(1 - ewmaAlpha, includedDays.length - 1 - i) : 1.0;
+            total += weights[i];
+        }
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] /= total;
+        }
+        return weights;
+    }
+
+    /**
+     * median of values, values are reordered
+     */
+    private static double median(double[] values) {
+        Arrays.sort(values);
+        int middle = values.length / 2;
+        return values.length % 2 == 1 ? values[middle] : (values[middle - 1] + values[middle]) / 2;
+    }
+}
@@ -0,0 +1,161 @@
+package com.citi.volume;
+
+import com.citi.volume.data.VolumeProfile;
+import com.citi.volume.data.exception.VolumeProfileLoadingException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Loads volume profile of a symbol on first lookup instead of loading whole universe at start.
+ * Files are found through VolumeProfileIndex, concurrent first lookups of a symbol share one load.
+ * Loaded profiles are kept, and also installed in registry when one is given.
+ * A failed load is not kept, next lookup tries again.
+ * File which changed size or modified time since index was built is not loaded, index must be built again.
+ */
+public class LazyVolumeProfileLoader {
+    private final VolumeProfileIndex index;
+    private final VolumeProfileCSVFileLoader loader;
+    private final VolumeProfileRegistry registry;
+    private final Map<String, CompletableFuture<VolumeProfile>> loads = new ConcurrentHashMap<>();
+
+    /**
+     * @param index    files of all symbols
+     * @param loader   used to load each file, it must be safe to call from multiple threads
+     * @param registry registry in which loaded profiles are installed, null to only keep them in lazy loader
+     */
+    public LazyVolumeProfileLoader(VolumeProfileIndex index, VolumeProfileCSVFileLoader loader, VolumeProfileRegistry registry) {
+        this.index = index;
+        this.loader = loader;
+        this.registry = registry;
+    }
+
+    /**
+     * Returns volume profile of symbol, loading it on calling thread if it has not been loaded yet.
+     * If another thread is already loading the symbol, waits for that load.
+     *
+     * @param symbol symbol to look up
+     * @return volume profile or null if symbol is not in index
+     * @throws VolumeProfileLoadingException when file of symbol cannot be loaded or changed since index was built
+     */
+    public VolumeProfile get(String symbol) throws VolumeProfileLoadingException {
+        CompletableFuture<VolumeProfile> load = load(symbol);
+        if (load == null)
+            return null;
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            if (e.getCause() instanceof Error error)
+                throw error;
+            throw e;
+        }
+    }
+
+    /**
+     * @param symbol symbol to look up
+     * @return true if volume profile of symbol has been loaded
+     */
+    public boolean isLoaded(String symbol) {
+        CompletableFuture<VolumeProfile> load = loads.get(symbol);
+        return load != null && load.isDone() && !load.isCompletedExceptionally();
+    }
+
+    /**
+     * @return number of symbols loaded or being loaded
+     */
+    public int loadedCount() {
+        return loads.size();
+    }
+
+    /**
+     * Forgets loaded volume profile so next lookup loads file again, registry is not changed
+     *
+     * @param symbol symbol to forget
+     */
+    public void evict(String symbol) {
+        loads.remove(symbol);
+    }
+
+    public VolumeProfileIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Loads volume profiles of watchlist in background, symbols already loaded are not loaded again
+     *
+     * @param watchlist symbols expected to be looked up
+     * @param executor  on which files are loaded
+     * @return completes when all symbols are loaded, with profiles loaded and errors for symbols which failed,
+     * symbols not in index are reported as errors
+     */
+    public CompletableFuture<BulkLoadResult> prefetch(Collection<String> watchlist, Executor executor) {
+        List<String> symbols = new ArrayList<>(watchlist);
+        List<CompletableFuture<VolumeProfile>> prefetches = new ArrayList<>(symbols.size());
+        for (String symbol : symbols) {
+            prefetches.add(CompletableFuture.supplyAsync(() -> get(symbol), executor));
+        }
+        return CompletableFuture.allOf(prefetches.toArray(new CompletableFuture<?>[0])).handle((ignored, failure) -> {
+            Map<String, VolumeProfile> volumeProfiles = new HashMap<>(symbols.size() * 2);
+            List<BulkLoadResult.LoadError> errors = new ArrayList<>();
+            for (int i = 0; i < symbols.size(); i++) {
+                String symbol = symbols.get(i);
+                VolumeProfileIndex.Entry entry = index.get(symbol);
+                String filename = entry == null ? null : entry.getFilename();
+                try {
+                    VolumeProfile volumeProfile = prefetches.get(i).join();
+                    if (volumeProfile != null)
+                        volumeProfiles.put(symbol, volumeProfile);
+                    else
+                        errors.add(new BulkLoadResult.LoadError(symbol, null,
+                                new VolumeProfileLoadingException("Symbol not found in index, " + symbol)));
+                } catch (CompletionException e) {
+                    RuntimeException cause = e.getCause() instanceof RuntimeException runtimeException ? runtimeException
+                            : new VolumeProfileLoadingException("Problem while reading, " + filename, e.getCause());
+                    errors.add(new BulkLoadResult.LoadError(symbol, filename, cause));
+                }
+            }
+            return new BulkLoadResult(volumeProfiles, errors);
+        });
+    }
+
+    /**
+     * Finds load of symbol or starts it on calling thread, only one thread starts the load
+     */
+    private CompletableFuture<VolumeProfile> load(String symbol) {
+        CompletableFuture<VolumeProfile> load = loads.get(symbol);
+        if (load != null)
+            return load;
+        VolumeProfileIndex.Entry entry = index.get(symbol);
+        if (entry == null)
+            return null;
+
+        CompletableFuture<VolumeProfile> newLoad = new CompletableFuture<>();
+        load = loads.putIfAbsent(symbol, newLoad);
+        if (load != null)
+            return load;
+        try {
+            if (entry.isStale())
+                throw new VolumeProfileLoadingException("File changed since index was built, " + entry.getFilename());
+            VolumeProfile volumeProfile = loader.loadVolumeProfile(symbol, entry.getFilename());
+            if (registry != null)
+                registry.put(volumeProfile);
+            newLoad.complete(volumeProfile);
+        } catch (Throwable e) {
+            // completed even for errors, otherwise threads waiting for this load would wait forever
+            loads.remove(symbol, newLoad);
+            newLoad.completeExceptionally(e);
+            if (e instanceof Error error)
+                throw error;
+        }
+        return newLoad;
+    }
+}
@@ -0,0 +1,168 @@
+package com.citi.volume;
+
+import com.citi.volume.data.BucketType;
+import com.citi.volume.data.VolumeProfile;
+import com.citi.volume.data.exception.VolumeProfileLoadingException;
+import com.citi.volume.util.ConstantUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Loads volume profile from CSV file by parsing fields directly from bytes.
+ * Files of MAP_THRESHOLD bytes or more are memory mapped, smaller files such as a single day profile
+ * are read into a heap buffer because mapping them costs more than reading them.
+ * No String is created per line or per field, Strings are only created to report errors.
+ * Comment handling and error messages are same as VolumeProfileCSVFileLoader.
+ */
+public class MappedVolumeProfileCSVFileLoader extends VolumeProfileCSVFileLoader {
+    private static final int INITIAL_CAPACITY = 512;
+    private static final int FIELD_COUNT = 4;
+
+    /**
+     * Files smaller than this are read into heap buffer, mapping and unmapping costs more than reading small files
+     */
+    public static final int MAP_THRESHOLD = 256 * 1024;
+
+    public MappedVolumeProfileCSVFileLoader() {
+    }
+
+    /**
+     * @param compact whether runs of zero volume buckets are merged after loading, query results are not changed
+     */
+    public MappedVolumeProfileCSVFileLoader(boolean compact) {
+        super(compact);
+    }
+
+    /**
+     * reads and validates volume profile from file, called by loadVolumeProfile which records metrics
+     *
+     * @param symbol   for which volume profile is being loaded
+     * @param filename name of file which contains volume profile
+     * @return Loaded VolumeProfile object
+     * @throws VolumeProfileLoadingException when errors occurs during file load
+     */
+    @Override
+    protected VolumeProfile readVolumeProfile(String symbol, String filename) throws VolumeProfileLoadingException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(Path.of(filename), StandardOpenOption.READ)) {
+            buffer = readFile(channel);
+        } catch (NoSuchFileException | AccessDeniedException fileNotfound) {
+            throw new VolumeProfileLoadingException("Cannot read, " + filename, fileNotfound);
+        } catch (IOException e) {
+            throw new VolumeProfileLoadingException("Problem while reading, " + filename, e);
+        }
+
+        Columns columns = new Columns();
+        int[] fieldEnds = new int[FIELD_COUNT];
+        int limit = buffer.limit();
+        int lineStart = 0;
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n' && buffer.get(lineEnd) != '\r')
+                lineEnd++;
+            if (lineEnd == lineStart || buffer.get(lineStart) != '#') // line starting with # will be considered as comment
+                extractBucketFromCSVBytes(buffer, lineStart, lineEnd, fieldEnds, columns);
+
+            // same line terminators as BufferedReader.readLine, \n, \r or \r\n
+            if (lineEnd < limit && buffer.get(lineEnd) == '\r' && lineEnd + 1 < limit && buffer.get(lineEnd + 1) == '\n')
+                lineEnd++;
+            lineStart = lineEnd + 1;
+        }
+
+        VolumeProfile volumeProfile = new VolumeProfile(symbol, columns.startTimes, columns.endTimes,
+                columns.percentOfDayVolumes, columns.bucketTypes, columns.size);
+        volumeProfile.validate(true);
+        return volumeProfile;
+    }
+
+    /**
+     * Maps large files, reads small files into heap buffer
+     */
+    private static ByteBuffer readFile(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size >= MAP_THRESHOLD)
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+            // keep reading until file is fully read
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * extracts bucket data from comma separated bytes of one line and appends it to columns
+     *
+     * @param buffer    file contents
+     * @param lineStart index of first byte of line
+     * @param lineEnd   index after last byte of line
+     * @param fieldEnds reusable array to hold end index of first four fields
+     * @param columns   columns to which bucket data is appended
+     */
+    private static void extractBucketFromCSVBytes(ByteBuffer buffer, int lineStart, int lineEnd, int[] fieldEnds,
+                                                  Columns columns) {
+        // Same field count rule as String.split, trailing empty fields are not counted
+        int field = 0;
+        boolean hasFourFields = false;
+        int fieldStart = lineStart;
+        for (int i = lineStart; i <= lineEnd; i++) {
+            if (i == lineEnd || buffer.get(i) == ',') {
+                if (field < FIELD_COUNT)
+                    fieldEnds[field] = i;
+                if (field >= FIELD_COUNT - 1 && i > fieldStart)
+                    hasFourFields = true;
+                field++;
+                fieldStart = i + 1;
+            }
+        }
+        if (!hasFourFields)
+            throw new VolumeProfileLoadingException("Invalid record found," + ConstantUtils.decode(buffer, lineStart, lineEnd));
+
+        // times in file are time of day, anchored to session date
+        long startTime = toSessionTime(ConstantUtils.extractTimeOfDay(buffer, lineStart, fieldEnds[0]));
+        long endTime = toSessionTime(ConstantUtils.extractTimeOfDay(buffer, fieldEnds[0] + 1, fieldEnds[1]));
+        double percentOfDayVolume = ConstantUtils.extractDouble(buffer, fieldEnds[1] + 1, fieldEnds[2]);
+        BucketType bucketType = ConstantUtils.extractBucketType(buffer, fieldEnds[2] + 1, fieldEnds[3]);
+        if (startTime == ConstantUtils.INVALID_TIME || endTime == ConstantUtils.INVALID_TIME || startTime >= endTime
+                || percentOfDayVolume < 0 || bucketType == null)
+            validateDataRead(ConstantUtils.decode(buffer, lineStart, lineEnd), startTime, endTime, percentOfDayVolume, bucketType);
+
+        columns.add(startTime, endTime, percentOfDayVolume, bucketType);
+    }
+
+    private static long toSessionTime(long timeOfDay) {
+        return timeOfDay == ConstantUtils.INVALID_TIME ? ConstantUtils.INVALID_TIME : ConstantUtils.toSessionTime(timeOfDay);
+    }
+
+    /**
+     * Growable columnar storage for buckets read from file
+     */
+    private static class Columns {
+        private long[] startTimes = new long[INITIAL_CAPACITY];
+        private long[] endTimes = new long[INITIAL_CAPACITY];
+        private double[] percentOfDayVolumes = new double[INITIAL_CAPACITY];
+        private BucketType[] bucketTypes = new BucketType[INITIAL_CAPACITY];
+        private int size;
+
+        private void add(long startTime, long endTime, double percentOfDayVolume, BucketType bucketType) {
+            if (size == startTimes.length) {
+                int capacity = size * 2;
+                startTimes = Arrays.copyOf(startTimes, capacity);
+                endTimes = Arrays.copyOf(endTimes, capacity);
+                percentOfDayVolumes = Arrays.copyOf(percentOfDayVolumes, capacity);
+                bucketTypes = Arrays.copyOf(bucketTypes, capacity);
+            }
+            startTimes[size] = startTime;
+            endTimes[size] = endTime;
+            percentOfDayVolumes[size] = percentOfDayVolume;
+            bucketTypes[size] = bucketType;
+            size++;
+        }
+    }
+}
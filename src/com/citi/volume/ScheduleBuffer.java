@@ -0,0 +1,115 @@
+package com.citi.volume;
+
+import com.citi.volume.util.ConstantUtils;
+
+import java.util.Arrays;
+
+/**
+ * Reusable columnar storage for a child order schedule, one entry per slice.
+ * Capacity grows when needed and is kept across schedules so regenerating a schedule does not create objects.
+ */
+public class ScheduleBuffer {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] startTimes;
+    private long[] endTimes;
+    private double[] percentOfDayVolumes;
+    private double[] quantities;
+    private boolean[] auctions;
+    private int size;
+
+    public ScheduleBuffer() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public ScheduleBuffer(int capacity) {
+        startTimes = new long[capacity];
+        endTimes = new long[capacity];
+        percentOfDayVolumes = new double[capacity];
+        quantities = new double[capacity];
+        auctions = new boolean[capacity];
+    }
+
+    /**
+     * @return number of slices in schedule
+     */
+    public int size() {
+        return size;
+    }
+
+    public long getStartTime(int index) {
+        return startTimes[index];
+    }
+
+    public long getEndTime(int index) {
+        return endTimes[index];
+    }
+
+    /**
+     * @return percent of day volume expected to trade in slice
+     */
+    public double getPercentOfDayVolume(int index) {
+        return percentOfDayVolumes[index];
+    }
+
+    /**
+     * @return target quantity of slice
+     */
+    public double getQuantity(int index) {
+        return quantities[index];
+    }
+
+    /**
+     * @return whether slice is an entire auction bucket
+     */
+    public boolean isAuction(int index) {
+        return auctions[index];
+    }
+
+    /**
+     * @return sum of target quantity of all slices
+     */
+    public double getTotalQuantity() {
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            total += quantities[i];
+        }
+        return total;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    void add(long startTime, long endTime, double percentOfDayVolume, boolean auction) {
+        if (size == startTimes.length) {
+            int capacity = Math.max(INITIAL_CAPACITY, size * 2);
+            startTimes = Arrays.copyOf(startTimes, capacity);
+            endTimes = Arrays.copyOf(endTimes, capacity);
+            percentOfDayVolumes = Arrays.copyOf(percentOfDayVolumes, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            auctions = Arrays.copyOf(auctions, capacity);
+        }
+        startTimes[size] = startTime;
+        endTimes[size] = endTime;
+        percentOfDayVolumes[size] = percentOfDayVolume;
+        quantities[size] = 0;
+        auctions[size] = auction;
+        size++;
+    }
+
+    void setQuantity(int index, double quantity) {
+        quantities[index] = quantity;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("ScheduleBuffer{size=").append(size);
+        for (int i = 0; i < size; i++) {
+            sb.append(", [").append(ConstantUtils.printTime(startTimes[i]))
+                    .append('-').append(ConstantUtils.printTime(endTimes[i]))
+                    .append(' ').append(quantities[i]).append(auctions[i] ? " Auction]" : "]");
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,385 @@
+package com.citi.volume;
+
+import com.citi.volume.data.VolumeProfile;
+import com.citi.volume.data.exception.VolumeProfileLoadingException;
+import com.citi.volume.util.ConstantUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Volume profiles of all symbols in one memory mapped file shared by processes on the same host.
+ * One process opens the store for writing and publishes profiles, other processes attach read only
+ * and query profiles through SharedVolumeProfileView without copying bucket data onto heap.
+ * <p>
+ * Writer publishes whole universe in place guarded by a sequence number (seqlock), sequence is odd while
+ * writing. Readers read sequence, read data, then check sequence did not change and retry if it did,
+ * so readers never take locks and never see partially published data.
+ * If writer dies while publishing, reads fail after write timeout until a new writer opens the store,
+ * new writer empties the half written data before readers can see it.
+ * <p>
+ * File layout, all values big endian:
+ * <pre>
+ * header  : int magic, int version, long capacity, long sequence, int symbol count, int reserved, long used bytes, 24 bytes reserved
+ * index   : per symbol sorted by UTF-8 bytes, int symbol offset, int symbol length, long offset of bucket data, int bucket count, int reserved
+ * symbols : UTF-8 bytes of all symbols
+ * data    : per symbol, 8 byte aligned, long[] start times, long[] end times, double[] percent of day volumes,
+ *           double[] cumulative percents with one extra entry, byte[] bucket types
+ * </pre>
+ * Times are stored as milliseconds since start of session date of writer and views add start of their own session date,
+ * so store outlives the writer and is read correctly on the next trading day, see ConstantUtils.getSessionStart.
+ * File size is fixed when store is created so readers can map it once, default location is /dev/shm which is memory backed on Linux.
+ */
+public class SharedVolumeProfileStore implements Closeable {
+    public static final Path DEFAULT_DIRECTORY = Path.of("/dev/shm");
+    public static final int MAGIC = 0x56505348; // "VPSH"
+    public static final int VERSION = 2;
+    public static final int HEADER_SIZE = 64;
+    public static final int INDEX_ENTRY_SIZE = 24;
+
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int SEQUENCE_OFFSET = 16;
+    private static final int SYMBOL_COUNT_OFFSET = 24;
+    private static final int USED_OFFSET = 32;
+
+    /**
+     * How long readers wait for a publish to finish before deciding writer died while publishing
+     */
+    public static final long DEFAULT_WRITE_TIMEOUT_MILLIS = 5000;
+
+    /**
+     * Spins between checks of clock while waiting for writer
+     */
+    private static final int SPINS_PER_CLOCK_CHECK = 1024;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final boolean writable;
+    private final long writeTimeoutNanos;
+
+    private SharedVolumeProfileStore(Path file, FileChannel channel, MappedByteBuffer buffer, boolean writable, long writeTimeoutMillis) {
+        this.file = file;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.writable = writable;
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMillis);
+    }
+
+    /**
+     * Opens store for publishing, file is created with capacity if it does not exist.
+     * Existing store is reused so processes already attached keep reading it, there must be only one writer.
+     *
+     * @param file     store file, for example DEFAULT_DIRECTORY.resolve("volume-profiles")
+     * @param capacity size of file in bytes, it is not changed after creation
+     * @return store open for publishing
+     * @throws VolumeProfileLoadingException when file cannot be opened or existing file has a different capacity
+     */
+    public static SharedVolumeProfileStore openForWriting(Path file, long capacity) throws VolumeProfileLoadingException {
+        if (capacity < HEADER_SIZE || capacity > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Invalid capacity, " + capacity);
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long size = channel.size();
+            // readers keep their mapping of existing file, changing its size could make them read past end of file
+            if (size != 0 && size != capacity)
+                throw new VolumeProfileLoadingException("Shared store has capacity " + size + ", not " + capacity + ", " + file);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            boolean valid = size == capacity && buffer.getInt(0) == MAGIC;
+            if (!valid || buffer.getInt(4) != VERSION || buffer.getLong(CAPACITY_OFFSET) != capacity || (sequence(buffer) & 1) != 0) {
+                // new or unusable store, or previous writer died while publishing and index and columns may be half written.
+                // Store is emptied inside the seqlock and sequence goes on from where it was, so a reader which read
+                // the old data cannot see the same sequence again after it is emptied
+                long writing = (valid ? sequence(buffer) : 0) | 1;
+                LONGS.setOpaque(buffer, SEQUENCE_OFFSET, writing);
+                VarHandle.storeStoreFence();
+                buffer.putInt(SYMBOL_COUNT_OFFSET, 0);
+                buffer.putLong(USED_OFFSET, HEADER_SIZE);
+                buffer.putInt(4, VERSION);
+                buffer.putLong(CAPACITY_OFFSET, capacity);
+                buffer.putInt(0, MAGIC);
+                LONGS.setRelease(buffer, SEQUENCE_OFFSET, writing + 1);
+            }
+            return new SharedVolumeProfileStore(file, channel, buffer, true, DEFAULT_WRITE_TIMEOUT_MILLIS);
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw new VolumeProfileLoadingException("Problem while opening, " + file, e);
+        } catch (VolumeProfileLoadingException e) {
+            closeQuietly(channel);
+            throw e;
+        }
+    }
+
+    /**
+     * Attaches to store published by another process, reads wait up to DEFAULT_WRITE_TIMEOUT_MILLIS for a publish to finish
+     *
+     * @param file store file
+     * @return read only store
+     * @throws VolumeProfileLoadingException when file cannot be read or is not a shared store
+     */
+    public static SharedVolumeProfileStore attach(Path file) throws VolumeProfileLoadingException {
+        return attach(file, DEFAULT_WRITE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Attaches to store published by another process
+     *
+     * @param file               store file
+     * @param writeTimeoutMillis how long a read waits for a publish to finish, reads fail after that because
+     *                           writer died while publishing and store is not usable until a new writer opens it
+     * @return read only store
+     * @throws VolumeProfileLoadingException when file cannot be read or is not a shared store
+     */
+    public static SharedVolumeProfileStore attach(Path file, long writeTimeoutMillis) throws VolumeProfileLoadingException {
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE)
+                throw new VolumeProfileLoadingException("Invalid shared store file, " + file);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != MAGIC || buffer.getLong(CAPACITY_OFFSET) != buffer.limit())
+                throw new VolumeProfileLoadingException("Invalid shared store file, " + file);
+            if (buffer.getInt(4) != VERSION)
+                throw new VolumeProfileLoadingException("Unsupported shared store version " + buffer.getInt(4) + ", " + file);
+            return new SharedVolumeProfileStore(file, channel, buffer, false, writeTimeoutMillis);
+        } catch (NoSuchFileException | AccessDeniedException fileNotfound) {
+            closeQuietly(channel);
+            throw new VolumeProfileLoadingException("Cannot read, " + file, fileNotfound);
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw new VolumeProfileLoadingException("Problem while reading, " + file, e);
+        } catch (VolumeProfileLoadingException e) {
+            closeQuietly(channel);
+            throw e;
+        }
+    }
+
+    /**
+     * Replaces all volume profiles in store, readers retry queries running while profiles are written
+     *
+     * @param volumeProfiles volume profiles of all symbols
+     * @return sequence number of published data
+     * @throws VolumeProfileLoadingException when profiles do not fit in capacity of store
+     */
+    public long publish(Collection<VolumeProfile> volumeProfiles) throws VolumeProfileLoadingException {
+        if (!writable)
+            throw new IllegalStateException("Shared store is attached read only, " + file);
+        VolumeProfile[] sorted = volumeProfiles.toArray(new VolumeProfile[0]);
+        byte[][] symbols = new byte[sorted.length][];
+        Arrays.sort(sorted, (a, b) -> Arrays.compareUnsigned(symbolBytes(a.getSymbol()), symbolBytes(b.getSymbol())));
+        long symbolsStart = HEADER_SIZE + (long) sorted.length * INDEX_ENTRY_SIZE;
+        long symbolsSize = 0;
+        long dataSize = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            symbols[i] = symbolBytes(sorted[i].getSymbol());
+            if (i > 0 && Arrays.equals(symbols[i - 1], symbols[i]))
+                throw new IllegalArgumentException("Duplicate symbol, " + sorted[i].getSymbol());
+            symbolsSize += symbols[i].length;
+            dataSize += dataSize(sorted[i].size());
+        }
+        long dataStart = align(symbolsStart + symbolsSize);
+        long used = dataStart + dataSize;
+        if (used > buffer.limit())
+            throw new VolumeProfileLoadingException("Shared store too small, needs " + used + " bytes, " + file);
+
+        long sessionStart = ConstantUtils.getSessionStart();
+        long sequence = sequence(buffer);
+        LONGS.setOpaque(buffer, SEQUENCE_OFFSET, sequence + 1);
+        VarHandle.storeStoreFence();
+
+        int symbolPosition = (int) symbolsStart;
+        int dataPosition = (int) dataStart;
+        for (int i = 0; i < sorted.length; i++) {
+            int indexPosition = HEADER_SIZE + i * INDEX_ENTRY_SIZE;
+            buffer.putInt(indexPosition, symbolPosition);
+            buffer.putInt(indexPosition + 4, symbols[i].length);
+            buffer.putLong(indexPosition + 8, dataPosition);
+            buffer.putInt(indexPosition + 16, sorted[i].size());
+            buffer.putInt(indexPosition + 20, 0);
+            buffer.put(symbolPosition, symbols[i]);
+            symbolPosition += symbols[i].length;
+            writeColumns(dataPosition, sorted[i], sessionStart);
+            dataPosition += (int) dataSize(sorted[i].size());
+        }
+        buffer.putInt(SYMBOL_COUNT_OFFSET, sorted.length);
+        buffer.putLong(USED_OFFSET, used);
+
+        LONGS.setRelease(buffer, SEQUENCE_OFFSET, sequence + 2);
+        return sequence + 2;
+    }
+
+    private void writeColumns(int position, VolumeProfile volumeProfile, long sessionStart) {
+        int size = volumeProfile.size();
+        double cumulativePercent = 0;
+        for (int i = 0; i < size; i++) {
+            buffer.putLong(position + i * Long.BYTES, volumeProfile.getStartTime(i) - sessionStart);
+            buffer.putLong(position + (size + i) * Long.BYTES, volumeProfile.getEndTime(i) - sessionStart);
+            buffer.putDouble(position + (2 * size + i) * Long.BYTES, volumeProfile.getPercentOfDayVolume(i));
+            buffer.putDouble(position + (3 * size + i) * Long.BYTES, cumulativePercent);
+            buffer.put(position + (4 * size + 1) * Long.BYTES + i, (byte) volumeProfile.getBucketType(i).ordinal());
+            cumulativePercent += volumeProfile.getPercentOfDayVolume(i);
+        }
+        buffer.putDouble(position + 4 * size * Long.BYTES, cumulativePercent);
+    }
+
+    /**
+     * @param symbol symbol of volume profile
+     * @return view reading volume profile of symbol from store, view follows later publishes
+     */
+    public SharedVolumeProfileView view(String symbol) {
+        return new SharedVolumeProfileView(this, symbol);
+    }
+
+    /**
+     * @return symbols currently published, sorted by UTF-8 bytes
+     */
+    public List<String> symbols() {
+        while (true) {
+            long sequence = beginRead();
+            try {
+                int symbolCount = buffer.getInt(SYMBOL_COUNT_OFFSET);
+                List<String> symbols = new ArrayList<>(Math.max(0, Math.min(symbolCount, buffer.limit() / INDEX_ENTRY_SIZE)));
+                for (int i = 0; i < symbolCount; i++) {
+                    int indexPosition = HEADER_SIZE + i * INDEX_ENTRY_SIZE;
+                    byte[] symbol = new byte[buffer.getInt(indexPosition + 4)];
+                    buffer.get(buffer.getInt(indexPosition), symbol);
+                    symbols.add(new String(symbol, StandardCharsets.UTF_8));
+                }
+                if (endRead(sequence))
+                    return symbols;
+            } catch (RuntimeException e) {
+                if (endRead(sequence))
+                    throw e;
+            }
+        }
+    }
+
+    /**
+     * @return sequence number of data currently published, it changes on every publish
+     */
+    public long getSequence() {
+        return beginRead();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public boolean isWritable() {
+        return writable;
+    }
+
+    /**
+     * Closes file, mapping stays valid until it is garbage collected so views keep working
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    MappedByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * waits while writer is publishing
+     *
+     * @return sequence to be passed to endRead
+     * @throws VolumeProfileLoadingException when publish does not finish within write timeout
+     */
+    long beginRead() throws VolumeProfileLoadingException {
+        long sequence = (long) LONGS.getAcquire(buffer, SEQUENCE_OFFSET);
+        if ((sequence & 1) == 0)
+            return sequence;
+        long deadline = System.nanoTime() + writeTimeoutNanos;
+        int spins = 0;
+        while (((sequence = (long) LONGS.getAcquire(buffer, SEQUENCE_OFFSET)) & 1) != 0) {
+            if (++spins % SPINS_PER_CLOCK_CHECK == 0 && System.nanoTime() - deadline > 0)
+                throw new VolumeProfileLoadingException("Publish did not finish, writer may have died, " + file);
+            Thread.onSpinWait();
+        }
+        return sequence;
+    }
+
+    /**
+     * @return true if data read since beginRead was not changed by writer
+     */
+    boolean endRead(long sequence) {
+        VarHandle.acquireFence();
+        return (long) LONGS.getOpaque(buffer, SEQUENCE_OFFSET) == sequence;
+    }
+
+    /**
+     * Binary search of index, must be called between beginRead and endRead
+     *
+     * @return position of index entry or -1 if symbol is not published
+     */
+    int indexPositionOf(byte[] symbol) {
+        int low = 0;
+        int high = buffer.getInt(SYMBOL_COUNT_OFFSET) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int indexPosition = HEADER_SIZE + mid * INDEX_ENTRY_SIZE;
+            int compare = compareSymbol(buffer.getInt(indexPosition), buffer.getInt(indexPosition + 4), symbol);
+            if (compare < 0)
+                low = mid + 1;
+            else if (compare > 0)
+                high = mid - 1;
+            else
+                return indexPosition;
+        }
+        return -1;
+    }
+
+    private int compareSymbol(int position, int length, byte[] symbol) {
+        int common = Math.min(length, symbol.length);
+        for (int i = 0; i < common; i++) {
+            int compare = Byte.compareUnsigned(buffer.get(position + i), symbol[i]);
+            if (compare != 0)
+                return compare;
+        }
+        return Integer.compare(length, symbol.length);
+    }
+
+    static byte[] symbolBytes(String symbol) {
+        return symbol.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long sequence(MappedByteBuffer buffer) {
+        return (long) LONGS.getOpaque(buffer, SEQUENCE_OFFSET);
+    }
+
+    private static long dataSize(int size) {
+        return align((4L * size + 1) * Long.BYTES + size);
+    }
+
+    private static long align(long position) {
+        return (position + Long.BYTES - 1) & -Long.BYTES;
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            if (channel != null)
+                channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package com.citi.volume;
+
+import com.citi.volume.data.BucketColumns;
+import com.citi.volume.data.BucketType;
+import com.citi.volume.data.BucketVisitor;
+import com.citi.volume.data.VolumeProfile;
+import com.citi.volume.data.VolumeProfileBuffer;
+import com.citi.volume.data.VolumeProfileQueries;
+import com.citi.volume.data.VolumeProfileView;
+import com.citi.volume.util.ConstantUtils;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Flyweight over volume profile of one symbol in SharedVolumeProfileStore, bucket data is read from shared memory
+ * and never copied onto heap. Times are moved onto current session date as they are read.
+ * Queries are computed by VolumeProfileQueries, same as VolumeProfile, so results are same.
+ * <p>
+ * Every call reads under store sequence and retries if writer published meanwhile, location of symbol is looked up
+ * again after each publish so view always reads latest profile. Symbol which is not published reads as empty profile.
+ * Separate calls can see different publishes, use toVolumeProfile for consistent copy of all buckets.
+ * forEachBucket first copies window into a buffer of the view and then passes it to visitor,
+ * so visitor never sees buckets of a publish which was being overwritten.
+ * <p>
+ * View caches location of symbol so it is not thread safe, create one view per thread.
+ */
+public class SharedVolumeProfileView implements VolumeProfileView {
+    private static final BucketType[] BUCKET_TYPES = BucketType.values();
+
+    private final SharedVolumeProfileStore store;
+    private final ByteBuffer buffer;
+    private final String symbol;
+    private final byte[] symbolBytes;
+
+    /**
+     * Reads bucket data at current location without retrying, used within one read of store
+     */
+    private final BucketColumns columns = new Columns();
+
+    /**
+     * Holds window read for forEachBucket until read is known to be consistent
+     */
+    private final VolumeProfileBuffer window = new VolumeProfileBuffer();
+
+    // location of symbol in store for sequence
+    private long sequence = -1;
+    private int position;
+    private int size;
+
+    /**
+     * Start of current session date, added to times stored in store
+     */
+    private long sessionStart;
+
+    SharedVolumeProfileView(SharedVolumeProfileStore store, String symbol) {
+        this.store = store;
+        this.buffer = store.buffer();
+        this.symbol = symbol;
+        this.symbolBytes = SharedVolumeProfileStore.symbolBytes(symbol);
+    }
+
+    @Override
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * @return whether symbol is currently published
+     */
+    public boolean isPresent() {
+        while (true) {
+            long readSequence = locate();
+            boolean present = position != -1;
+            if (store.endRead(readSequence))
+                return present;
+        }
+    }
+
+    /**
+     * @return number of buckets, 0 when symbol is not published
+     */
+    @Override
+    public int size() {
+        while (true) {
+            long readSequence = locate();
+            int result = size;
+            if (store.endRead(readSequence))
+                return result;
+        }
+    }
+
+    @Override
+    public long getStartTime(int index) {
+        while (true) {
+            long readSequence = locate();
+            try {
+                long result = columns.getStartTime(checkIndex(index));
+                if (store.endRead(readSequence))
+                    return result;
+            } catch (RuntimeException e) {
+                if (store.endRead(readSequence))
+                    throw e;
+            }
+        }
+    }
+
+    @Override
+    public long getEndTime(int index) {
+        while (true) {
+            long readSequence = locate();
+            try {
+                long result = columns.getEndTime(checkIndex(index));
+                if (store.endRead(readSequence))
+                    return result;
+            } catch (RuntimeException e) {
+                if (store.endRead(readSequence))
+                    throw e;
+            }
+        }
+    }
+
+    @Override
+    public double getPercentOfDayVolume(int index) {
+        while (true) {
+            long readSequence = locate();
+            try {
+                double result = columns.getPercentOfDayVolume(checkIndex(index));
+                if (store.endRead(readSequence))
+                    return result;
+            } catch (RuntimeException e) {
+                if (store.endRead(readSequence))
+                    throw e;
+            }
+        }
+    }
+
+    @Override
+    public BucketType getBucketType(int index) {
+        while (true) {
+            long readSequence = locate();
+            try {
+                BucketType result = columns.getBucketType(checkIndex(index));
+                if (store.endRead(readSequence))
+                    return result;
+            } catch (RuntimeException e) {
+                if (store.endRead(readSequence))
+                    throw e;
+            }
+        }
+    }
+
+    @Override
+    public double getCumulativePercent(int index) {
+        while (true) {
+            long readSequence = locate();
+            try {
+                if (index < 0 || index > size)
+                    throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + (size + 1));
+                double result = size == 0 ? 0.0 : columns.getCumulativePercent(index);
+                if (store.endRead(readSequence))
+                    return result;
+            } catch (RuntimeException e) {
+                if (store.endRead(readSequence))
+                    throw e;
+            }
+        }
+    }
+
+    /**
+     * @return sum of percent of day volume of all buckets
+     */
+    @Override
+    public double getTotalPercentOfDayVolume() {
+        while (true) {
+            long readSequence = locate();
+            try {
+                double result = size == 0 ? 0.0 : columns.getCumulativePercent(size);
+                if (store.endRead(readSequence))
+                    return result;
+            } catch (RuntimeException e) {
+                if (store.endRead(readSequence))
+                    throw e;
+            }
+        }
+    }
+
+    /**
+     * same as VolumeProfile.getTargetPercentForTimePeriod
+     *
+     * @param startTime start time for time-period
+     * @param endTime   end time for time-period
+     * @return target percent of day volume expected to trade within the time period
+     */
+    @Override
+    public double getTargetPercentForTimePeriod(long startTime, long endTime) {
+        if (startTime >= endTime)
+            return 0.0;
+        while (true) {
+            long readSequence = locate();
+            try {
+                double result = VolumeProfileQueries.targetPercent(columns, startTime, endTime);
+                if (store.endRead(readSequence))
+                    return result;
+            } catch (RuntimeException e) {
+                if (store.endRead(readSequence))
+                    throw e;
+            }
+        }
+    }
+
+    /**
+     * same as VolumeProfile.getCumulativePercentUpTo
+     *
+     * @param time time up to which percent is needed
+     * @return percent of day volume expected to be traded before time
+     */
+    @Override
+    public double getCumulativePercentUpTo(long time) {
+        while (true) {
+            long readSequence = locate();
+            try {
+                double result = VolumeProfileQueries.cumulativePercentUpTo(columns, time);
+                if (store.endRead(readSequence))
+                    return result;
+            } catch (RuntimeException e) {
+                if (store.endRead(readSequence))
+                    throw e;
+            }
+        }
+    }
+
+    /**
+     * same as VolumeProfile.forEachBucket, all buckets passed to visitor are from same publish
+     *
+     * @param startTime when the time period starts
+     * @param endTime   when the time period ends
+     * @param visitor   receives each bucket within the time period
+     * @return number of buckets visited
+     */
+    @Override
+    public int forEachBucket(long startTime, long endTime, BucketVisitor visitor) {
+        getCumulativeVolumeProfile(startTime, endTime, window);
+        int visited = window.size();
+        for (int i = 0; i < visited; i++) {
+            visitor.visit(window.getStartTime(i), window.getEndTime(i), window.getPercentOfDayVolume(i), window.getBucketType(i));
+        }
+        return visited;
+    }
+
+    /**
+     * same as VolumeProfile.getCumulativeVolumeProfile, copies window of buckets onto heap
+     *
+     * @param startTime when the time period starts
+     * @param endTime   when the time period ends
+     * @return Volume profile applicable for the time period
+     */
+    @Override
+    public VolumeProfile getCumulativeVolumeProfile(long startTime, long endTime) {
+        return getCumulativeVolumeProfile(startTime, endTime, window).toVolumeProfile();
+    }
+
+    /**
+     * same as VolumeProfile.getCumulativeVolumeProfile with buffer, all buckets are from same publish
+     *
+     * @param startTime when the time period starts
+     * @param endTime   when the time period ends
+     * @param buffer    cleared and filled with buckets applicable for the time period
+     * @return passed buffer
+     */
+    @Override
+    public VolumeProfileBuffer getCumulativeVolumeProfile(long startTime, long endTime, VolumeProfileBuffer buffer) {
+        while (true) {
+            long readSequence = locate();
+            try {
+                VolumeProfileQueries.cumulativeVolumeProfile(columns, symbol, startTime, endTime, buffer);
+                if (store.endRead(readSequence))
+                    return buffer;
+            } catch (RuntimeException e) {
+                if (store.endRead(readSequence))
+                    throw e;
+            }
+        }
+    }
+
+    /**
+     * Copies buckets from shared memory into a heap volume profile, all buckets are from same publish
+     *
+     * @return volume profile of symbol, empty if symbol is not published
+     */
+    public VolumeProfile toVolumeProfile() {
+        while (true) {
+            long readSequence = locate();
+            try {
+                long[] startTimes = new long[size];
+                long[] endTimes = new long[size];
+                double[] percentOfDayVolumes = new double[size];
+                BucketType[] bucketTypes = new BucketType[size];
+                for (int i = 0; i < size; i++) {
+                    startTimes[i] = columns.getStartTime(i);
+                    endTimes[i] = columns.getEndTime(i);
+                    percentOfDayVolumes[i] = columns.getPercentOfDayVolume(i);
+                    bucketTypes[i] = columns.getBucketType(i);
+                }
+                if (store.endRead(readSequence))
+                    return new VolumeProfile(symbol, startTimes, endTimes, percentOfDayVolumes, bucketTypes, size);
+            } catch (RuntimeException e) {
+                if (store.endRead(readSequence))
+                    throw e;
+            }
+        }
+    }
+
+    /**
+     * starts a read, looks up symbol again if store was published since last lookup
+     *
+     * @return sequence of read
+     */
+    private long locate() {
+        sessionStart = ConstantUtils.getSessionStart();
+        while (true) {
+            long readSequence = store.beginRead();
+            if (readSequence == sequence)
+                return readSequence;
+            try {
+                int indexPosition = store.indexPositionOf(symbolBytes);
+                int newPosition = indexPosition == -1 ? -1 : (int) buffer.getLong(indexPosition + 8);
+                int newSize = indexPosition == -1 ? 0 : buffer.getInt(indexPosition + 16);
+                if (store.endRead(readSequence)) {
+                    position = newPosition;
+                    size = newSize;
+                    sequence = readSequence;
+                    return readSequence;
+                }
+            } catch (RuntimeException e) {
+                if (store.endRead(readSequence))
+                    throw e;
+            }
+        }
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        return index;
+    }
+
+    /**
+     * Bucket columns of symbol at location found by last locate
+     */
+    private class Columns implements BucketColumns {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public long getStartTime(int index) {
+            return sessionStart + buffer.getLong(position + index * Long.BYTES);
+        }
+
+        @Override
+        public long getEndTime(int index) {
+            return sessionStart + buffer.getLong(position + (size + index) * Long.BYTES);
+        }
+
+        @Override
+        public double getPercentOfDayVolume(int index) {
+            return buffer.getDouble(position + (2 * size + index) * Long.BYTES);
+        }
+
+        @Override
+        public double getCumulativePercent(int index) {
+            return buffer.getDouble(position + (3 * size + index) * Long.BYTES);
+        }
+
+        @Override
+        public BucketType getBucketType(int index) {
+            return BUCKET_TYPES[buffer.get(position + (4 * size + 1) * Long.BYTES + index)];
+        }
+    }
+}
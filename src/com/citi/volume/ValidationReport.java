@@ -0,0 +1,155 @@
+package com.citi.volume;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of validating many volume profile files in lenient mode, holds every problem found in every file.
+ * Problems are plain values with line numbers, no exception is created while collecting them.
+ */
+public class ValidationReport {
+    private final List<FileReport> files;
+
+    public ValidationReport(List<FileReport> files) {
+        this.files = Collections.unmodifiableList(files);
+    }
+
+    /**
+     * @return report of each file in order files were passed
+     */
+    public List<FileReport> getFiles() {
+        return files;
+    }
+
+    /**
+     * @return reports of files with at least one problem
+     */
+    public List<FileReport> getInvalidFiles() {
+        List<FileReport> invalidFiles = new ArrayList<>();
+        for (FileReport file : files) {
+            if (!file.isValid())
+                invalidFiles.add(file);
+        }
+        return invalidFiles;
+    }
+
+    /**
+     * @return number of problems in all files
+     */
+    public int getProblemCount() {
+        int count = 0;
+        for (FileReport file : files) {
+            count += file.getProblems().size();
+        }
+        return count;
+    }
+
+    public boolean isValid() {
+        return getProblemCount() == 0;
+    }
+
+    /**
+     * @return one line per problem, prefixed with file name and line number
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("ValidationReport{files=").append(files.size())
+                .append(", invalidFiles=").append(getInvalidFiles().size())
+                .append(", problems=").append(getProblemCount()).append("}\n");
+        for (FileReport file : files) {
+            for (Problem problem : file.getProblems()) {
+                sb.append(file.getFilename()).append(':').append(problem.getLineNumber()).append(' ')
+                        .append(problem.getMessage()).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * All problems found in volume profile file of one symbol
+     */
+    public static class FileReport {
+        private final String symbol;
+        private final String filename;
+        private final int rowCount;
+        private final List<Problem> problems;
+
+        public FileReport(String symbol, String filename, int rowCount, List<Problem> problems) {
+            this.symbol = symbol;
+            this.filename = filename;
+            this.rowCount = rowCount;
+            this.problems = Collections.unmodifiableList(problems);
+        }
+
+        public String getSymbol() {
+            return symbol;
+        }
+
+        public String getFilename() {
+            return filename;
+        }
+
+        /**
+         * @return number of bucket rows read from file, comments are not counted
+         */
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        /**
+         * @return problems in order of line number, problems of whole file come last
+         */
+        public List<Problem> getProblems() {
+            return problems;
+        }
+
+        public boolean isValid() {
+            return problems.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return "FileReport{" +
+                    "symbol='" + symbol + '\'' +
+                    ", filename='" + filename + '\'' +
+                    ", rows=" + rowCount +
+                    ", problems=" + problems +
+                    '}';
+        }
+    }
+
+    /**
+     * One problem in a file, message is same as message of exception loader would throw for it
+     */
+    public static class Problem {
+        /**
+         * Line number used for problems of whole file, like unreadable file or total not 100
+         */
+        public static final int WHOLE_FILE = 0;
+
+        private final int lineNumber;
+        private final String message;
+
+        public Problem(int lineNumber, String message) {
+            this.lineNumber = lineNumber;
+            this.message = message;
+        }
+
+        /**
+         * @return line number in file starting from 1, WHOLE_FILE for problems of whole file
+         */
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return lineNumber + ": " + message;
+        }
+    }
+}
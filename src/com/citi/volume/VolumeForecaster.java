@@ -0,0 +1,110 @@
+package com.citi.volume;
+
+import com.citi.volume.data.BucketType;
+import com.citi.volume.data.VolumeProfile;
+import com.citi.volume.data.VolumeProfileQueries;
+
+/**
+ * Predicts day volume and volume of upcoming time windows from volume traded so far.
+ * Predicted day volume is volume traded so far divided by fraction of day volume the profile expects up to now,
+ * which scales the profile by ratio of realized to expected volume.
+ * Auction volume prints only when auction uncrosses, so an auction bucket is not expected until it has ended.
+ * All predictions are done in logarithmic time of number of buckets without creating objects.
+ */
+public class VolumeForecaster {
+    /**
+     * Default minimum percent of day volume which must be expected before realized volume is used to predict
+     */
+    public static final double DEFAULT_MIN_EXPECTED_PERCENT = 1.0;
+
+    private final double minExpectedPercent;
+
+    public VolumeForecaster() {
+        this(DEFAULT_MIN_EXPECTED_PERCENT);
+    }
+
+    /**
+     * @param minExpectedPercent below this expected percent of day volume, too little has traded to predict
+     *                           and fallback day volume is returned instead
+     */
+    public VolumeForecaster(double minExpectedPercent) {
+        this.minExpectedPercent = minExpectedPercent;
+    }
+
+    /**
+     * predicts total volume of the day
+     *
+     * @param volumeProfile     expected volume profile of symbol
+     * @param tradedVolume      volume traded so far today
+     * @param now               current time
+     * @param fallbackDayVolume returned when too little of the day has passed, for example average daily volume
+     * @return predicted day volume
+     */
+    public double predictDayVolume(VolumeProfile volumeProfile, double tradedVolume, long now, double fallbackDayVolume) {
+        double expectedPercent = expectedPercentUpTo(volumeProfile, now);
+        if (expectedPercent < minExpectedPercent)
+            return fallbackDayVolume;
+        return tradedVolume / expectedPercent * volumeProfile.getTotalPercentOfDayVolume();
+    }
+
+    /**
+     * predicts volume still to be traded today after current time
+     *
+     * @param volumeProfile     expected volume profile of symbol
+     * @param tradedVolume      volume traded so far today
+     * @param now               current time
+     * @param fallbackDayVolume used as day volume when too little of the day has passed
+     * @return predicted remaining volume
+     */
+    public double predictRemainingVolume(VolumeProfile volumeProfile, double tradedVolume, long now, double fallbackDayVolume) {
+        double dayVolume = predictDayVolume(volumeProfile, tradedVolume, now, fallbackDayVolume);
+        double remainingPercent = volumeProfile.getTotalPercentOfDayVolume() - expectedPercentUpTo(volumeProfile, now);
+        return dayVolume * remainingPercent / volumeProfile.getTotalPercentOfDayVolume();
+    }
+
+    /**
+     * predicts volume to be traded within a time window
+     *
+     * @param volumeProfile     expected volume profile of symbol
+     * @param tradedVolume      volume traded so far today
+     * @param now               current time
+     * @param startTime         start time of window
+     * @param endTime           end time of window
+     * @param fallbackDayVolume used as day volume when too little of the day has passed
+     * @return predicted volume within window
+     */
+    public double predictWindowVolume(VolumeProfile volumeProfile, double tradedVolume, long now, long startTime, long endTime,
+                                      double fallbackDayVolume) {
+        double dayVolume = predictDayVolume(volumeProfile, tradedVolume, now, fallbackDayVolume);
+        return dayVolume * volumeProfile.getTargetPercentForTimePeriod(startTime, endTime) / volumeProfile.getTotalPercentOfDayVolume();
+    }
+
+    /**
+     * predicts day volume of many symbols at once, results are written to passed array
+     *
+     * @param registry           from which volume profiles are read
+     * @param symbols            symbols to predict
+     * @param tradedVolumes      volume traded so far for each symbol
+     * @param now                current time
+     * @param fallbackDayVolumes fallback day volume for each symbol
+     * @param predictedVolumes   receives predicted day volume of each symbol, NaN for symbols not in registry
+     */
+    public void predictDayVolumes(VolumeProfileRegistry registry, String[] symbols, double[] tradedVolumes, long now,
+                                  double[] fallbackDayVolumes, double[] predictedVolumes) {
+        for (int i = 0; i < symbols.length; i++) {
+            VolumeProfile volumeProfile = registry.get(symbols[i]);
+            predictedVolumes[i] = volumeProfile == null ? Double.NaN
+                    : predictDayVolume(volumeProfile, tradedVolumes[i], now, fallbackDayVolumes[i]);
+        }
+    }
+
+    /**
+     * percent of day volume expected to have traded by now, auction bucket which now is inside is left out
+     */
+    private static double expectedPercentUpTo(VolumeProfile volumeProfile, long now) {
+        int index = VolumeProfileQueries.bucketIndexAt(volumeProfile, now);
+        if (index != -1 && volumeProfile.getBucketType(index) == BucketType.Auction)
+            return volumeProfile.getCumulativePercent(index);
+        return volumeProfile.getCumulativePercentUpTo(now);
+    }
+}
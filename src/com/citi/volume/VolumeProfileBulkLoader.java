@@ -0,0 +1,197 @@
+package com.citi.volume;
+
+import com.citi.volume.data.VolumeProfile;
+import com.citi.volume.data.exception.VolumeProfileLoadingException;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads volume profiles for many symbols concurrently.
+ * Files are named after the symbol, for example 9988_HK.csv holds volume profile of 9988_HK.
+ * Failure of one file is reported in result and does not stop the other files from loading.
+ * Loading blocks on file reads, so by default files are loaded on a bounded I/O executor of daemon threads
+ * instead of common fork join pool, which is left free for computation.
+ */
+public class VolumeProfileBulkLoader {
+    public static final String FILE_EXTENSION = ".csv";
+
+    /**
+     * Number of threads of default I/O executor
+     */
+    public static final int DEFAULT_IO_THREADS = Math.min(16, Math.max(2, Runtime.getRuntime().availableProcessors()));
+
+    private final VolumeProfileCSVFileLoader loader;
+    private final ExecutorService executor;
+
+    /**
+     * Uses memory mapped loader on default I/O executor
+     */
+    public VolumeProfileBulkLoader() {
+        this(new MappedVolumeProfileCSVFileLoader(), DefaultExecutor.INSTANCE);
+    }
+
+    /**
+     * @param loader   used to load each file, it must be safe to call from multiple threads
+     * @param executor on which files are loaded, for example a ForkJoinPool or Executors.newVirtualThreadPerTaskExecutor(),
+     *                 it is not shut down by bulk loader
+     */
+    public VolumeProfileBulkLoader(VolumeProfileCSVFileLoader loader, ExecutorService executor) {
+        this.loader = loader;
+        this.executor = executor;
+    }
+
+    /**
+     * Executor shared by bulk loaders created with default constructor, created on first use.
+     * It has DEFAULT_IO_THREADS daemon threads which stop after a minute without work, so it is never shut down.
+     * Only execute is exposed so callers sharing it, for example LazyVolumeProfileLoader.prefetch, cannot shut it down.
+     *
+     * @return default I/O executor
+     */
+    public static Executor defaultExecutor() {
+        return DefaultExecutor.EXECUTE_ONLY;
+    }
+
+    /**
+     * Loads all csv files in directory, symbol is taken from file name without extension
+     *
+     * @param directory directory containing volume profile files
+     * @return loaded volume profiles and errors for files which could not be loaded
+     * @throws VolumeProfileLoadingException when directory cannot be read
+     */
+    public BulkLoadResult loadDirectory(String directory) throws VolumeProfileLoadingException {
+        return loadVolumeProfiles(listDirectory(directory));
+    }
+
+    /**
+     * Lists csv files in directory
+     *
+     * @param directory directory containing volume profile files
+     * @return symbol to file name for each csv file
+     * @throws VolumeProfileLoadingException when directory cannot be read
+     */
+    public static Map<String, String> listDirectory(String directory) throws VolumeProfileLoadingException {
+        Map<String, String> manifest = new LinkedHashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Path.of(directory), "*" + FILE_EXTENSION)) {
+            for (Path file : files) {
+                if (Files.isRegularFile(file))
+                    manifest.put(symbolOf(file), file.toString());
+            }
+        } catch (IOException e) {
+            throw new VolumeProfileLoadingException("Cannot read, " + directory, e);
+        }
+        return manifest;
+    }
+
+    /**
+     * @param file volume profile file
+     * @return symbol for the file, file name without extension
+     */
+    public static String symbolOf(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(FILE_EXTENSION) ? name.substring(0, name.length() - FILE_EXTENSION.length()) : name;
+    }
+
+    /**
+     * Loads volume profile files concurrently
+     *
+     * @param manifest symbol to name of file which contains its volume profile
+     * @return loaded volume profiles and errors for files which could not be loaded
+     */
+    public BulkLoadResult loadVolumeProfiles(Map<String, String> manifest) {
+        Map<String, Future<VolumeProfile>> futures = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : manifest.entrySet()) {
+            futures.put(entry.getKey(), executor.submit(() -> loader.loadVolumeProfile(entry.getKey(), entry.getValue())));
+        }
+
+        Map<String, VolumeProfile> volumeProfiles = new HashMap<>(manifest.size() * 2);
+        List<BulkLoadResult.LoadError> errors = new ArrayList<>();
+        for (Map.Entry<String, Future<VolumeProfile>> entry : futures.entrySet()) {
+            String symbol = entry.getKey();
+            try {
+                volumeProfiles.put(symbol, entry.getValue().get());
+            } catch (ExecutionException e) {
+                RuntimeException cause = e.getCause() instanceof RuntimeException runtimeException ? runtimeException
+                        : new VolumeProfileLoadingException("Problem while reading, " + manifest.get(symbol), e.getCause());
+                errors.add(new BulkLoadResult.LoadError(symbol, manifest.get(symbol), cause));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new VolumeProfileLoadingException("Interrupted while loading volume profiles", e);
+            }
+        }
+        return new BulkLoadResult(volumeProfiles, errors);
+    }
+
+    /**
+     * Validates all csv files in directory in lenient mode, symbol is taken from file name without extension
+     *
+     * @param directory directory containing volume profile files
+     * @return every problem found in every file
+     * @throws VolumeProfileLoadingException when directory cannot be read
+     */
+    public ValidationReport validateDirectory(String directory) throws VolumeProfileLoadingException {
+        return validateVolumeProfiles(listDirectory(directory));
+    }
+
+    /**
+     * Validates volume profile files concurrently in lenient mode, each file is read to the end
+     * and all its problems are reported instead of stopping at the first one
+     *
+     * @param manifest symbol to name of file which contains its volume profile
+     * @return every problem found in every file, in order of manifest
+     */
+    public ValidationReport validateVolumeProfiles(Map<String, String> manifest) {
+        List<Future<ValidationReport.FileReport>> futures = new ArrayList<>(manifest.size());
+        for (Map.Entry<String, String> entry : manifest.entrySet()) {
+            futures.add(executor.submit(() -> loader.validateVolumeProfile(entry.getKey(), entry.getValue())));
+        }
+
+        List<ValidationReport.FileReport> files = new ArrayList<>(manifest.size());
+        for (Future<ValidationReport.FileReport> future : futures) {
+            try {
+                files.add(future.get());
+            } catch (ExecutionException e) {
+                throw new VolumeProfileLoadingException("Problem while validating volume profiles", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new VolumeProfileLoadingException("Interrupted while validating volume profiles", e);
+            }
+        }
+        return new ValidationReport(files);
+    }
+
+    /**
+     * Holder so default executor is only created when it is used
+     */
+    private static final class DefaultExecutor {
+        private static final ExecutorService INSTANCE = create();
+        private static final Executor EXECUTE_ONLY = INSTANCE::execute;
+
+        private static ExecutorService create() {
+            AtomicInteger threadCount = new AtomicInteger();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(DEFAULT_IO_THREADS, DEFAULT_IO_THREADS, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), task -> {
+                Thread thread = new Thread(task, "VolumeProfileBulkLoader-io-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+}
@@ -3,7 +3,12 @@ package com.citi.volume;
 import com.citi.volume.data.Bucket;
 import com.citi.volume.data.BucketType;
 import com.citi.volume.data.VolumeProfile;
+import com.citi.volume.data.VolumeProfileCompactor;
+import com.citi.volume.data.VolumeProfileValidator;
+import com.citi.volume.data.exception.Violation;
 import com.citi.volume.data.exception.VolumeProfileLoadingException;
+import com.citi.volume.metrics.Metrics;
+import com.citi.volume.metrics.VolumeProfileMetrics;
 import com.citi.volume.util.ConstantUtils;
 
 import java.io.BufferedReader;
@@ -11,7 +16,8 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -20,6 +26,19 @@ import java.util.List;
 public class VolumeProfileCSVFileLoader {
     public static final String COMMA_DELIMITER = ",";
 
+    private final boolean compact;
+
+    public VolumeProfileCSVFileLoader() {
+        this(false);
+    }
+
+    /**
+     * @param compact whether runs of zero volume buckets are merged after loading, query results are not changed
+     */
+    public VolumeProfileCSVFileLoader(boolean compact) {
+        this.compact = compact;
+    }
+
     /**
      * to load volume profile for a symbol
      *
@@ -29,6 +48,32 @@ public class VolumeProfileCSVFileLoader {
      * @throws VolumeProfileLoadingException when errors occurs during file load
      */
     public VolumeProfile loadVolumeProfile(String symbol, String filename) throws VolumeProfileLoadingException {
+        VolumeProfileMetrics metrics = Metrics.get();
+        long startNanos = metrics.startTimer();
+        try {
+            VolumeProfile volumeProfile = readVolumeProfile(symbol, filename);
+            if (compact) {
+                VolumeProfileCompactor.Result result = VolumeProfileCompactor.compact(volumeProfile);
+                metrics.bucketsCompacted(filename, result.getRemovedBuckets());
+                volumeProfile = result.getVolumeProfile();
+            }
+            metrics.fileLoaded(filename, startNanos, volumeProfile.size());
+            return volumeProfile;
+        } catch (RuntimeException e) {
+            metrics.loadFailed(filename, startNanos, e);
+            throw e;
+        }
+    }
+
+    /**
+     * reads and validates volume profile from file, called by loadVolumeProfile which records metrics
+     *
+     * @param symbol for which volume profile is being loaded
+     * @param filename name of file which contains volume profile
+     * @return Loaded VolumeProfile object
+     * @throws VolumeProfileLoadingException when errors occurs during file load
+     */
+    protected VolumeProfile readVolumeProfile(String symbol, String filename) throws VolumeProfileLoadingException {
         List<Bucket> buckets = new ArrayList<>();
         try(BufferedReader br = new BufferedReader(new FileReader(filename))) {
             String line;
@@ -57,34 +102,144 @@ public class VolumeProfileCSVFileLoader {
         if (values.length < 4)
             throw new VolumeProfileLoadingException("Invalid record found," + line);
 
-        Date startTime = ConstantUtils.extractTime(values[0]);
-        Date endTime = ConstantUtils.extractTime(values[1]);
+        long startTime = ConstantUtils.extractTimeMillis(values[0]);
+        long endTime = ConstantUtils.extractTimeMillis(values[1]);
         double percentOfDayVolume = ConstantUtils.extractDouble(values[2]);
         BucketType bucketType = ConstantUtils.extractBucketType(values[3]);
-        validateDataRead(line, startTime, endTime, percentOfDayVolume, bucketType);
+        if (startTime == ConstantUtils.INVALID_TIME || endTime == ConstantUtils.INVALID_TIME || startTime >= endTime
+                || percentOfDayVolume < 0 || bucketType == null)
+            validateDataRead(line, startTime, endTime, percentOfDayVolume, bucketType);
 
-        return new Bucket(startTime.getTime(), endTime.getTime(), percentOfDayVolume, bucketType);
+        return new Bucket(startTime, endTime, percentOfDayVolume, bucketType);
     }
 
     /**
      * Validates whether entries read are good to create bucket or not
      *
      * @param line string from which data is read
-     * @param startTime bucket start time extracted from line
-     * @param endTime bucket end time extracted from line
+     * @param startTime bucket start time extracted from line, ConstantUtils.INVALID_TIME if not valid
+     * @param endTime bucket end time extracted from line, ConstantUtils.INVALID_TIME if not valid
      * @param percentOfDayVolume percent of day volume for the bucket extracted from line
      * @param bucketType type of bucket extracted from line
      */
-    private static void validateDataRead(String line, Date startTime, Date endTime, double percentOfDayVolume, BucketType bucketType) {
-        if (startTime == null)
-            throw new VolumeProfileLoadingException("Invalid start time in line, " + line);
-        if (endTime == null)
-            throw new VolumeProfileLoadingException("Invalid end time in line, " + line);
-        if (startTime.getTime() >= endTime.getTime())
-            throw new VolumeProfileLoadingException("Start time is before or same as end time in line, " + line);
+    protected static void validateDataRead(String line, long startTime, long endTime, double percentOfDayVolume, BucketType bucketType) {
+        List<String> problems = dataReadProblems(line, startTime, endTime, percentOfDayVolume, bucketType);
+        if (!problems.isEmpty())
+            throw new VolumeProfileLoadingException(problems.getFirst());
+    }
+
+    /**
+     * Same checks as validateDataRead but returns message of every problem in line instead of throwing for first one
+     *
+     * @return messages of problems in order validateDataRead checks them, empty if entries are good
+     */
+    protected static List<String> dataReadProblems(String line, long startTime, long endTime, double percentOfDayVolume, BucketType bucketType) {
+        List<String> problems = new ArrayList<>(1);
+        if (startTime == ConstantUtils.INVALID_TIME)
+            problems.add("Invalid start time in line, " + line);
+        if (endTime == ConstantUtils.INVALID_TIME)
+            problems.add("Invalid end time in line, " + line);
+        if (startTime != ConstantUtils.INVALID_TIME && endTime != ConstantUtils.INVALID_TIME && startTime >= endTime)
+            problems.add("Start time is before or same as end time in line, " + line);
         if (percentOfDayVolume < 0)
-            throw new VolumeProfileLoadingException("Invalid percentOfDayVolume in line, " + line);
+            problems.add("Invalid percentOfDayVolume in line, " + line);
         if (bucketType == null)
-            throw new VolumeProfileLoadingException("Invalid Bucket Type in line, " + line);
+            problems.add("Invalid Bucket Type in line, " + line);
+        return problems;
+    }
+
+    /**
+     * Lenient mode, reads every row of file and collects all problems with line numbers instead of throwing on first one.
+     * Rows with problems are left out of checks across buckets, overlapping buckets are checked between good rows,
+     * and total of 100 is checked on percent of day volume of every row where it could be read.
+     * Memory mapped loader uses same lenient reader, it only differs in how a valid file is read.
+     *
+     * @param symbol   for which volume profile is being validated
+     * @param filename name of file which contains volume profile
+     * @return all problems found in file, no exception is thrown or created for them
+     */
+    public ValidationReport.FileReport validateVolumeProfile(String symbol, String filename) {
+        List<ValidationReport.Problem> problems = new ArrayList<>();
+        Rows rows = new Rows();
+        double totalPercentOfDayVolume = 0;
+        int rowCount = 0;
+        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = br.readLine()) != null) {
+                lineNumber++;
+                if (line.startsWith("#")) // line starting with # will be considered as comment
+                    continue;
+                rowCount++;
+                String[] values = line.split(COMMA_DELIMITER);
+                if (values.length < 4) {
+                    problems.add(new ValidationReport.Problem(lineNumber, "Invalid record found," + line));
+                    continue;
+                }
+                long startTime = ConstantUtils.extractTimeMillis(values[0]);
+                long endTime = ConstantUtils.extractTimeMillis(values[1]);
+                double percentOfDayVolume = ConstantUtils.extractDouble(values[2]);
+                BucketType bucketType = ConstantUtils.extractBucketType(values[3]);
+                if (percentOfDayVolume >= 0)
+                    totalPercentOfDayVolume += percentOfDayVolume;
+                List<String> lineProblems = dataReadProblems(line, startTime, endTime, percentOfDayVolume, bucketType);
+                for (String problem : lineProblems) {
+                    problems.add(new ValidationReport.Problem(lineNumber, problem));
+                }
+                if (lineProblems.isEmpty())
+                    rows.add(lineNumber, startTime, endTime, percentOfDayVolume, bucketType);
+            }
+        } catch (FileNotFoundException fileNotfound) {
+            return new ValidationReport.FileReport(symbol, filename, 0,
+                    List.of(new ValidationReport.Problem(ValidationReport.Problem.WHOLE_FILE, "Cannot read, " + filename)));
+        } catch (IOException e) {
+            problems.add(new ValidationReport.Problem(ValidationReport.Problem.WHOLE_FILE, "Problem while reading, " + filename));
+            return new ValidationReport.FileReport(symbol, filename, rowCount, problems);
+        }
+
+        for (Violation violation : VolumeProfileValidator.validate(rows.startTimes, rows.endTimes,
+                rows.percentOfDayVolumes, rows.bucketTypes, rows.size, false)) {
+            problems.add(new ValidationReport.Problem(rows.lineNumbers[violation.getIndex()], violation.getMessage()));
+        }
+        problems.sort(Comparator.comparingInt(VolumeProfileCSVFileLoader::sortKey));
+        Violation total = VolumeProfileValidator.checkTotal(totalPercentOfDayVolume);
+        if (total != null)
+            problems.add(new ValidationReport.Problem(ValidationReport.Problem.WHOLE_FILE, total.getMessage()));
+        return new ValidationReport.FileReport(symbol, filename, rowCount, problems);
+    }
+
+    private static int sortKey(ValidationReport.Problem problem) {
+        return problem.getLineNumber() == ValidationReport.Problem.WHOLE_FILE ? Integer.MAX_VALUE : problem.getLineNumber();
+    }
+
+    /**
+     * Growable columnar storage for good rows read in lenient mode, with line number of each row
+     */
+    private static class Rows {
+        private static final int INITIAL_CAPACITY = 512;
+
+        private int[] lineNumbers = new int[INITIAL_CAPACITY];
+        private long[] startTimes = new long[INITIAL_CAPACITY];
+        private long[] endTimes = new long[INITIAL_CAPACITY];
+        private double[] percentOfDayVolumes = new double[INITIAL_CAPACITY];
+        private byte[] bucketTypes = new byte[INITIAL_CAPACITY];
+        private int size;
+
+        private void add(int lineNumber, long startTime, long endTime, double percentOfDayVolume, BucketType bucketType) {
+            if (size == startTimes.length) {
+                int capacity = size * 2;
+                lineNumbers = Arrays.copyOf(lineNumbers, capacity);
+                startTimes = Arrays.copyOf(startTimes, capacity);
+                endTimes = Arrays.copyOf(endTimes, capacity);
+                percentOfDayVolumes = Arrays.copyOf(percentOfDayVolumes, capacity);
+                bucketTypes = Arrays.copyOf(bucketTypes, capacity);
+            }
+            lineNumbers[size] = lineNumber;
+            startTimes[size] = startTime;
+            endTimes[size] = endTime;
+            percentOfDayVolumes[size] = percentOfDayVolume;
+            bucketTypes[size] = (byte) bucketType.ordinal();
+            size++;
+        }
     }
 }
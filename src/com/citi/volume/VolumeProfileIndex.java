@@ -0,0 +1,194 @@
+package com.citi.volume;
+
+import com.citi.volume.data.exception.VolumeProfileLoadingException;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Index of volume profile files, symbol to file name with size and last modified time of file.
+ * Index is built once from a directory of SYMBOL.csv files and can be written to disk, so a later start
+ * knows every symbol without listing the directory or opening any file.
+ * <p>
+ * Index file is csv with one line per symbol: symbol, file name, size in bytes, last modified epoch milliseconds.
+ */
+public class VolumeProfileIndex {
+    public static final String HEADER = "#Symbol,Filename,Size,LastModified";
+
+    private final Map<String, Entry> entries;
+
+    public VolumeProfileIndex(Map<String, Entry> entries) {
+        this.entries = Collections.unmodifiableMap(new TreeMap<>(entries));
+    }
+
+    /**
+     * Builds index of csv files in directory, symbol is taken from file name without extension
+     *
+     * @param directory directory containing volume profile files
+     * @return index of files
+     * @throws VolumeProfileLoadingException when directory or file attributes cannot be read
+     */
+    public static VolumeProfileIndex build(String directory) throws VolumeProfileLoadingException {
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        for (Map.Entry<String, String> file : VolumeProfileBulkLoader.listDirectory(directory).entrySet()) {
+            Path path = Path.of(file.getValue());
+            try {
+                entries.put(file.getKey(), new Entry(file.getValue(), Files.size(path), Files.getLastModifiedTime(path).toMillis()));
+            } catch (IOException e) {
+                throw new VolumeProfileLoadingException("Cannot read, " + file.getValue(), e);
+            }
+        }
+        return new VolumeProfileIndex(entries);
+    }
+
+    /**
+     * Reads index written by write
+     *
+     * @param file index file
+     * @return index
+     * @throws VolumeProfileLoadingException when file cannot be read or has invalid line
+     */
+    public static VolumeProfileIndex read(Path file) throws VolumeProfileLoadingException {
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        try (BufferedReader br = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) // line starting with # will be considered as comment
+                    continue;
+                // file name may contain commas, symbol is before first comma and numbers after last two
+                int symbolEnd = line.indexOf(',');
+                int modifiedStart = line.lastIndexOf(',') + 1;
+                int sizeStart = line.lastIndexOf(',', modifiedStart - 2) + 1;
+                if (symbolEnd <= 0 || sizeStart <= symbolEnd + 1)
+                    throw new VolumeProfileLoadingException("Invalid record found," + line);
+                try {
+                    entries.put(line.substring(0, symbolEnd), new Entry(line.substring(symbolEnd + 1, sizeStart - 1),
+                            Long.parseLong(line.substring(sizeStart, modifiedStart - 1)), Long.parseLong(line.substring(modifiedStart))));
+                } catch (NumberFormatException e) {
+                    throw new VolumeProfileLoadingException("Invalid record found," + line, e);
+                }
+            }
+        } catch (NoSuchFileException fileNotfound) {
+            throw new VolumeProfileLoadingException("Cannot read, " + file, fileNotfound);
+        } catch (IOException e) {
+            throw new VolumeProfileLoadingException("Problem while reading, " + file, e);
+        }
+        return new VolumeProfileIndex(entries);
+    }
+
+    /**
+     * Writes index, file is replaced atomically so readers never see partially written index.
+     * Temporary file is deleted when writing fails.
+     *
+     * @param file index file
+     * @throws VolumeProfileLoadingException when file cannot be written
+     */
+    public void write(Path file) throws VolumeProfileLoadingException {
+        Path temporaryFile = null;
+        try {
+            // unique name so concurrent writers of the same file do not write into each other's temporary file
+            temporaryFile = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName() + ".", ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(temporaryFile, StandardCharsets.UTF_8)) {
+                writer.write(HEADER);
+                writer.newLine();
+                for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                    writer.write(entry.getKey() + ',' + entry.getValue().filename + ',' + entry.getValue().size
+                            + ',' + entry.getValue().lastModified);
+                    writer.newLine();
+                }
+            }
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            if (temporaryFile != null)
+                deleteTemporaryFile(temporaryFile, e);
+            throw new VolumeProfileLoadingException("Problem while writing, " + file, e);
+        }
+    }
+
+    private static void deleteTemporaryFile(Path temporaryFile, Exception cause) {
+        try {
+            Files.deleteIfExists(temporaryFile);
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    /**
+     * @param symbol symbol to look up
+     * @return index entry or null if symbol has no file
+     */
+    public Entry get(String symbol) {
+        return entries.get(symbol);
+    }
+
+    public boolean contains(String symbol) {
+        return entries.containsKey(symbol);
+    }
+
+    public Set<String> symbols() {
+        return entries.keySet();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * File of one symbol
+     */
+    public static class Entry {
+        private final String filename;
+        private final long size;
+        private final long lastModified;
+
+        public Entry(String filename, long size, long lastModified) {
+            this.filename = filename;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        public String getFilename() {
+            return filename;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * @return true if file no longer has size and last modified time recorded in index
+         */
+        public boolean isStale() {
+            Path path = Path.of(filename);
+            try {
+                return Files.size(path) != size || Files.getLastModifiedTime(path).toMillis() != lastModified;
+            } catch (IOException e) {
+                return true;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Entry{" +
+                    "filename='" + filename + '\'' +
+                    ", size=" + size +
+                    ", lastModified=" + lastModified +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.citi.volume;
+
+import com.citi.volume.data.VolumeProfile;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds volume profiles of all symbols.
+ * Reads are lock free, they see an immutable map published through a single volatile reference.
+ * Updates copy the map, change the copy and swap it in atomically, so readers never see a partially updated universe.
+ * Each swap increments epoch of registry and each entry remembers epoch at which it was installed,
+ * callers can compare versions to detect that volume profile of a symbol has been replaced.
+ */
+public class VolumeProfileRegistry {
+    /**
+     * Version returned for symbols which are not in registry
+     */
+    public static final long NO_VERSION = -1;
+
+    private final AtomicReference<Universe> universe = new AtomicReference<>(new Universe(Collections.emptyMap(), 0));
+
+    /**
+     * @param symbol symbol to look up
+     * @return volume profile of symbol or null if symbol is not in registry
+     */
+    public VolumeProfile get(String symbol) {
+        Entry entry = universe.get().entries.get(symbol);
+        return entry == null ? null : entry.volumeProfile;
+    }
+
+    /**
+     * @param symbol symbol to look up
+     * @return volume profile of symbol with version at which it was installed, null if symbol is not in registry
+     */
+    public Entry getEntry(String symbol) {
+        return universe.get().entries.get(symbol);
+    }
+
+    /**
+     * @param symbol symbol to look up
+     * @return epoch at which current volume profile of symbol was installed or NO_VERSION if symbol is not in registry
+     */
+    public long getVersion(String symbol) {
+        Entry entry = universe.get().entries.get(symbol);
+        return entry == null ? NO_VERSION : entry.version;
+    }
+
+    /**
+     * @return number of swaps done on registry
+     */
+    public long getEpoch() {
+        return universe.get().epoch;
+    }
+
+    /**
+     * @return immutable view of all entries as of one epoch, it does not change when registry is updated
+     */
+    public Map<String, Entry> getEntries() {
+        return universe.get().entries;
+    }
+
+    public Set<String> symbols() {
+        return universe.get().entries.keySet();
+    }
+
+    public int size() {
+        return universe.get().entries.size();
+    }
+
+    /**
+     * Adds or replaces volume profile of one symbol
+     *
+     * @param volumeProfile volume profile to be installed for its symbol
+     * @return new epoch of registry
+     */
+    public long put(VolumeProfile volumeProfile) {
+        return putAll(Collections.singletonList(volumeProfile));
+    }
+
+    /**
+     * Adds or replaces volume profiles of many symbols in one swap, other symbols are kept
+     *
+     * @param volumeProfiles volume profiles to be installed for their symbols
+     * @return new epoch of registry
+     */
+    public long putAll(Collection<VolumeProfile> volumeProfiles) {
+        while (true) {
+            Universe current = universe.get();
+            long epoch = current.epoch + 1;
+            Map<String, Entry> entries = new HashMap<>(current.entries);
+            for (VolumeProfile volumeProfile : volumeProfiles) {
+                entries.put(volumeProfile.getSymbol(), new Entry(volumeProfile, epoch));
+            }
+            if (universe.compareAndSet(current, new Universe(entries, epoch)))
+                return epoch;
+        }
+    }
+
+    /**
+     * Replaces whole universe, symbols not passed are removed
+     *
+     * @param volumeProfiles symbol to volume profile for new universe
+     * @return new epoch of registry
+     */
+    public long replaceAll(Map<String, VolumeProfile> volumeProfiles) {
+        while (true) {
+            Universe current = universe.get();
+            long epoch = current.epoch + 1;
+            Map<String, Entry> entries = new HashMap<>(volumeProfiles.size() * 2);
+            for (Map.Entry<String, VolumeProfile> entry : volumeProfiles.entrySet()) {
+                entries.put(entry.getKey(), new Entry(entry.getValue(), epoch));
+            }
+            if (universe.compareAndSet(current, new Universe(entries, epoch)))
+                return epoch;
+        }
+    }
+
+    /**
+     * Removes volume profile of symbol
+     *
+     * @param symbol symbol to be removed
+     * @return removed volume profile or null if symbol was not in registry
+     */
+    public VolumeProfile remove(String symbol) {
+        while (true) {
+            Universe current = universe.get();
+            Entry removed = current.entries.get(symbol);
+            if (removed == null)
+                return null;
+            Map<String, Entry> entries = new HashMap<>(current.entries);
+            entries.remove(symbol);
+            if (universe.compareAndSet(current, new Universe(entries, current.epoch + 1)))
+                return removed.volumeProfile;
+        }
+    }
+
+    /**
+     * Volume profile of a symbol with epoch at which it was installed
+     */
+    public static class Entry {
+        private final VolumeProfile volumeProfile;
+        private final long version;
+
+        private Entry(VolumeProfile volumeProfile, long version) {
+            this.volumeProfile = volumeProfile;
+            this.version = version;
+        }
+
+        public VolumeProfile getVolumeProfile() {
+            return volumeProfile;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+    }
+
+    /**
+     * Immutable map of all entries with epoch at which it was published
+     */
+    private static class Universe {
+        private final Map<String, Entry> entries;
+        private final long epoch;
+
+        private Universe(Map<String, Entry> entries, long epoch) {
+            this.entries = Collections.unmodifiableMap(entries);
+            this.epoch = epoch;
+        }
+    }
+}
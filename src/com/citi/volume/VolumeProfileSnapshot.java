@@ -0,0 +1,232 @@
+package com.citi.volume;
+
+import com.citi.volume.data.VolumeProfile;
+import com.citi.volume.data.exception.VolumeProfileLoadingException;
+import com.citi.volume.util.ConstantUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Reads and writes volume profiles of many symbols in a single binary file, used to avoid parsing csv files on restart.
+ * Times are stored as milliseconds since start of session date when written and are moved onto session date when read,
+ * so a snapshot written on one trading day can be read on the next one, see ConstantUtils.getSessionStart.
+ * <p>
+ * File layout, all values big endian:
+ * <pre>
+ * header  : int magic, int version, int symbol count, int reserved, long length after header, long CRC32 of bytes after header
+ * index   : per symbol, long offset of bucket data, int bucket count, short symbol length, symbol UTF-8 bytes
+ * data    : per symbol, 8 byte aligned, long[] start times, long[] end times, double[] percent of day volumes, byte[] bucket types,
+ *           times in milliseconds since start of session date
+ * </pre>
+ */
+public class VolumeProfileSnapshot {
+    public static final int MAGIC = 0x5650534E; // "VPSN"
+    public static final int VERSION = 2;
+    public static final int HEADER_SIZE = 32;
+
+    /**
+     * Writes volume profiles to file, file is replaced atomically so readers never see partially written file.
+     * Temporary file is deleted when writing fails.
+     *
+     * @param file           file to write
+     * @param volumeProfiles volume profiles to be written
+     * @throws VolumeProfileLoadingException when file cannot be written
+     */
+    public static void write(Path file, Collection<VolumeProfile> volumeProfiles) throws VolumeProfileLoadingException {
+        byte[][] symbols = new byte[volumeProfiles.size()][];
+        long indexSize = 0;
+        long dataSize = 0;
+        int i = 0;
+        for (VolumeProfile volumeProfile : volumeProfiles) {
+            symbols[i] = volumeProfile.getSymbol().getBytes(StandardCharsets.UTF_8);
+            if (symbols[i].length > Short.MAX_VALUE)
+                throw new VolumeProfileLoadingException("Symbol longer than " + Short.MAX_VALUE + " bytes, " + file);
+            indexSize += Long.BYTES + Integer.BYTES + Short.BYTES + symbols[i].length;
+            dataSize += dataSize(volumeProfile.size());
+            i++;
+        }
+        long dataStart = align(HEADER_SIZE + indexSize);
+        long fileSize = dataStart + dataSize;
+        if (fileSize > Integer.MAX_VALUE)
+            throw new VolumeProfileLoadingException("Snapshot too large, " + file);
+
+        long sessionStart = ConstantUtils.getSessionStart();
+        Path temporaryFile = null;
+        try {
+            // unique name so concurrent writers of the same file do not write into each other's temporary file
+            temporaryFile = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName() + ".", ".tmp");
+            try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+                int indexPosition = HEADER_SIZE;
+                long dataPosition = dataStart;
+                i = 0;
+                for (VolumeProfile volumeProfile : volumeProfiles) {
+                    buffer.putLong(indexPosition, dataPosition);
+                    buffer.putInt(indexPosition + Long.BYTES, volumeProfile.size());
+                    buffer.putShort(indexPosition + Long.BYTES + Integer.BYTES, (short) symbols[i].length);
+                    buffer.put(indexPosition + Long.BYTES + Integer.BYTES + Short.BYTES, symbols[i]);
+                    indexPosition += Long.BYTES + Integer.BYTES + Short.BYTES + symbols[i].length;
+
+                    writeColumns(buffer, (int) dataPosition, volumeProfile, sessionStart);
+                    dataPosition += dataSize(volumeProfile.size());
+                    i++;
+                }
+
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+                buffer.putInt(8, volumeProfiles.size());
+                buffer.putInt(12, 0);
+                buffer.putLong(16, fileSize - HEADER_SIZE);
+                buffer.putLong(24, checksum(buffer, (int) fileSize));
+                buffer.force();
+            }
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            if (temporaryFile != null)
+                deleteTemporaryFile(temporaryFile, e);
+            throw new VolumeProfileLoadingException("Problem while writing, " + file, e);
+        }
+    }
+
+    private static void deleteTemporaryFile(Path temporaryFile, Exception cause) {
+        try {
+            Files.deleteIfExists(temporaryFile);
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Reads all volume profiles from snapshot file
+     *
+     * @param file snapshot file
+     * @return symbol to volume profile
+     * @throws VolumeProfileLoadingException when file cannot be read or is not a valid snapshot
+     */
+    public static Map<String, VolumeProfile> read(Path file) throws VolumeProfileLoadingException {
+        ByteBuffer buffer = map(file);
+        int symbolCount = buffer.getInt(8);
+        Map<String, VolumeProfile> volumeProfiles = new HashMap<>(symbolCount * 2);
+        int indexPosition = HEADER_SIZE;
+        for (int i = 0; i < symbolCount; i++) {
+            String symbol = symbolAt(buffer, indexPosition);
+            volumeProfiles.put(symbol, readColumns(buffer, symbol, indexPosition));
+            indexPosition = nextIndexPosition(buffer, indexPosition);
+        }
+        return volumeProfiles;
+    }
+
+    /**
+     * Reads volume profile of one symbol from snapshot file, index is scanned until symbol is found
+     * and only buckets of that symbol are copied. Whole file is still mapped and checksummed first.
+     *
+     * @param file   snapshot file
+     * @param symbol symbol to be read
+     * @return volume profile of symbol or null if symbol is not in snapshot
+     * @throws VolumeProfileLoadingException when file cannot be read or is not a valid snapshot
+     */
+    public static VolumeProfile read(Path file, String symbol) throws VolumeProfileLoadingException {
+        ByteBuffer buffer = map(file);
+        int symbolCount = buffer.getInt(8);
+        int indexPosition = HEADER_SIZE;
+        for (int i = 0; i < symbolCount; i++) {
+            if (symbol.equals(symbolAt(buffer, indexPosition)))
+                return readColumns(buffer, symbol, indexPosition);
+            indexPosition = nextIndexPosition(buffer, indexPosition);
+        }
+        return null;
+    }
+
+    /**
+     * Maps snapshot file and verifies header and checksum
+     */
+    private static ByteBuffer map(Path file) {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new VolumeProfileLoadingException("Invalid snapshot file, " + file);
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException | AccessDeniedException fileNotfound) {
+            throw new VolumeProfileLoadingException("Cannot read, " + file, fileNotfound);
+        } catch (IOException e) {
+            throw new VolumeProfileLoadingException("Problem while reading, " + file, e);
+        }
+
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+            throw new VolumeProfileLoadingException("Invalid snapshot file, " + file);
+        if (buffer.getInt(4) != VERSION)
+            throw new VolumeProfileLoadingException("Unsupported snapshot version " + buffer.getInt(4) + ", " + file);
+        if (buffer.getLong(16) != buffer.limit() - HEADER_SIZE || buffer.getLong(24) != checksum(buffer, buffer.limit()))
+            throw new VolumeProfileLoadingException("Snapshot checksum does not match, " + file);
+        return buffer;
+    }
+
+    private static String symbolAt(ByteBuffer buffer, int indexPosition) {
+        int symbolLength = buffer.getShort(indexPosition + Long.BYTES + Integer.BYTES);
+        byte[] symbol = new byte[symbolLength];
+        buffer.get(indexPosition + Long.BYTES + Integer.BYTES + Short.BYTES, symbol);
+        return new String(symbol, StandardCharsets.UTF_8);
+    }
+
+    private static int nextIndexPosition(ByteBuffer buffer, int indexPosition) {
+        return indexPosition + Long.BYTES + Integer.BYTES + Short.BYTES + buffer.getShort(indexPosition + Long.BYTES + Integer.BYTES);
+    }
+
+    private static void writeColumns(ByteBuffer buffer, int position, VolumeProfile volumeProfile, long sessionStart) {
+        int size = volumeProfile.size();
+        for (int i = 0; i < size; i++) {
+            buffer.putLong(position + i * Long.BYTES, volumeProfile.getStartTime(i) - sessionStart);
+            buffer.putLong(position + (size + i) * Long.BYTES, volumeProfile.getEndTime(i) - sessionStart);
+            buffer.putDouble(position + (2 * size + i) * Long.BYTES, volumeProfile.getPercentOfDayVolume(i));
+            buffer.put(position + 3 * size * Long.BYTES + i, (byte) volumeProfile.getBucketType(i).ordinal());
+        }
+    }
+
+    private static VolumeProfile readColumns(ByteBuffer buffer, String symbol, int indexPosition) {
+        int position = (int) buffer.getLong(indexPosition);
+        int size = buffer.getInt(indexPosition + Long.BYTES);
+        long[] startTimes = new long[size];
+        long[] endTimes = new long[size];
+        double[] percentOfDayVolumes = new double[size];
+        byte[] bucketTypes = new byte[size];
+        buffer.slice(position, size * Long.BYTES).asLongBuffer().get(startTimes);
+        buffer.slice(position + size * Long.BYTES, size * Long.BYTES).asLongBuffer().get(endTimes);
+        buffer.slice(position + 2 * size * Long.BYTES, size * Long.BYTES).asDoubleBuffer().get(percentOfDayVolumes);
+        buffer.get(position + 3 * size * Long.BYTES, bucketTypes);
+        long sessionStart = ConstantUtils.getSessionStart();
+        for (int i = 0; i < size; i++) {
+            startTimes[i] += sessionStart;
+            endTimes[i] += sessionStart;
+        }
+        // columns are read into new arrays so profile can own them, validated once as file may come from another process
+        return VolumeProfile.wrap(symbol, startTimes, endTimes, percentOfDayVolumes, bucketTypes);
+    }
+
+    private static long checksum(ByteBuffer buffer, int fileSize) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(HEADER_SIZE, fileSize - HEADER_SIZE));
+        return crc.getValue();
+    }
+
+    private static long dataSize(int size) {
+        return align(3L * size * Long.BYTES + size);
+    }
+
+    private static long align(long position) {
+        return (position + Long.BYTES - 1) & -Long.BYTES;
+    }
+}
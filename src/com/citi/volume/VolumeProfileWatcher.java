@@ -0,0 +1,287 @@
+package com.citi.volume;
+
+import com.citi.volume.data.VolumeProfile;
+import com.citi.volume.data.exception.VolumeProfileLoadingException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * Reloads volume profiles when their files are changed or added in profile directory during the day.
+ * Events are collected until directory has been quiet for debounce time, so a burst of writes causes one reload.
+ * Only files whose content hash changed since they were last loaded are parsed again, in parallel by bulk loader,
+ * and all profiles parsed in one reload are published to registry in one swap.
+ * Files are hashed again after parsing and a profile is only published when hash did not change,
+ * file rewritten while it was parsed is left pending for next reload so a mix of old and new content is never published.
+ * Deleted files are ignored, last loaded profile of the symbol stays in registry.
+ * Events can also be passed through fileChanged, followed by reload, without a watch service.
+ */
+public class VolumeProfileWatcher implements Closeable {
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 500;
+
+    private final Path directory;
+    private final VolumeProfileBulkLoader bulkLoader;
+    private final VolumeProfileRegistry registry;
+    private final long debounceMillis;
+
+    /**
+     * Files with events since last reload, guarded by itself
+     */
+    private final Set<Path> pendingFiles = new LinkedHashSet<>();
+
+    /**
+     * Content hash of each file when it was last loaded, only used while holding lock of watcher
+     */
+    private final Map<Path, Long> contentHashes = new HashMap<>();
+
+    private volatile BulkLoadResult lastResult;
+    private WatchService watchService;
+    private Thread watchThread;
+
+    /**
+     * Uses memory mapped loader on default I/O executor of VolumeProfileBulkLoader and default debounce time
+     *
+     * @param directory directory containing volume profile files
+     * @param registry  registry to which reloaded profiles are published
+     */
+    public VolumeProfileWatcher(String directory, VolumeProfileRegistry registry) {
+        this(directory, new VolumeProfileBulkLoader(), registry, DEFAULT_DEBOUNCE_MILLIS);
+    }
+
+    /**
+     * @param directory      directory containing volume profile files
+     * @param bulkLoader     used to parse changed files in parallel
+     * @param registry       registry to which reloaded profiles are published
+     * @param debounceMillis how long directory must be quiet before pending files are reloaded
+     */
+    public VolumeProfileWatcher(String directory, VolumeProfileBulkLoader bulkLoader, VolumeProfileRegistry registry,
+                                long debounceMillis) {
+        // absolute so files listed from directory and files from events resolve to same path
+        this.directory = Path.of(directory).toAbsolutePath().normalize();
+        this.bulkLoader = bulkLoader;
+        this.registry = registry;
+        this.debounceMillis = debounceMillis;
+    }
+
+    /**
+     * Starts watching directory on a daemon thread
+     *
+     * @throws VolumeProfileLoadingException when directory cannot be watched
+     */
+    public synchronized void start() throws VolumeProfileLoadingException {
+        if (watchThread != null)
+            throw new IllegalStateException("Watcher already started, " + directory);
+        try {
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            throw new VolumeProfileLoadingException("Cannot watch, " + directory, e);
+        }
+        watchThread = new Thread(this::watch, "VolumeProfileWatcher-" + directory.getFileName());
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    /**
+     * Stops watching directory, pending files are not reloaded
+     */
+    @Override
+    public synchronized void close() {
+        if (watchService == null)
+            return;
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            // nothing more can be done, watch thread stops when it sees service closed
+        }
+        watchThread.interrupt();
+        watchService = null;
+        watchThread = null;
+    }
+
+    /**
+     * Records that file has been created or modified, it is reloaded by next reload if it is a csv file
+     *
+     * @param file changed file, relative paths are resolved against watched directory
+     */
+    public void fileChanged(Path file) {
+        Path resolved = directory.resolve(file);
+        if (!resolved.getFileName().toString().endsWith(VolumeProfileBulkLoader.FILE_EXTENSION))
+            return;
+        synchronized (pendingFiles) {
+            pendingFiles.add(resolved);
+        }
+    }
+
+    /**
+     * @return number of files waiting for reload
+     */
+    public int pendingCount() {
+        synchronized (pendingFiles) {
+            return pendingFiles.size();
+        }
+    }
+
+    /**
+     * Reloads pending files whose content changed and publishes them to registry in one swap
+     *
+     * @return profiles published and errors for files which could not be loaded, registry is not changed when empty
+     */
+    public synchronized BulkLoadResult reload() {
+        List<Path> files;
+        synchronized (pendingFiles) {
+            files = new ArrayList<>(pendingFiles);
+            pendingFiles.clear();
+        }
+
+        Map<String, String> manifest = new LinkedHashMap<>();
+        Map<String, Long> hashes = new HashMap<>();
+        List<BulkLoadResult.LoadError> errors = new ArrayList<>();
+        for (Path file : files) {
+            String symbol = VolumeProfileBulkLoader.symbolOf(file);
+            try {
+                long hash = contentHash(file);
+                Long loadedHash = contentHashes.get(file);
+                if (loadedHash == null || loadedHash != hash) {
+                    manifest.put(symbol, file.toString());
+                    hashes.put(symbol, hash);
+                }
+            } catch (NoSuchFileException deleted) {
+                // file was removed again before reload, nothing to load
+            } catch (IOException e) {
+                errors.add(new BulkLoadResult.LoadError(symbol, file.toString(),
+                        new VolumeProfileLoadingException("Problem while reading, " + file, e)));
+            }
+        }
+
+        BulkLoadResult loaded;
+        try {
+            loaded = manifest.isEmpty() ? new BulkLoadResult(Collections.emptyMap(), Collections.emptyList())
+                    : bulkLoader.loadVolumeProfiles(manifest);
+        } catch (RuntimeException e) {
+            // nothing was loaded, files are tried again by next reload
+            for (Path file : files) {
+                fileChanged(file);
+            }
+            throw e;
+        }
+        Map<String, VolumeProfile> volumeProfiles = new HashMap<>(loaded.getVolumeProfiles());
+        for (Iterator<String> symbols = volumeProfiles.keySet().iterator(); symbols.hasNext(); ) {
+            String symbol = symbols.next();
+            Path file = Path.of(manifest.get(symbol));
+            if (!hasContent(file, hashes.get(symbol))) {
+                symbols.remove();
+                fileChanged(file);
+            }
+        }
+        if (!volumeProfiles.isEmpty())
+            registry.putAll(volumeProfiles.values());
+        // hash is only kept for files which loaded, a failed file is parsed again even if it is republished unchanged
+        for (String symbol : volumeProfiles.keySet()) {
+            contentHashes.put(Path.of(manifest.get(symbol)), hashes.get(symbol));
+        }
+        errors.addAll(loaded.getErrors());
+
+        BulkLoadResult result = new BulkLoadResult(volumeProfiles, errors);
+        lastResult = result;
+        return result;
+    }
+
+    /**
+     * @return result of last reload, null if nothing has been reloaded yet,
+     * reload which failed on watch thread is reported as one error for the directory
+     */
+    public BulkLoadResult getLastResult() {
+        return lastResult;
+    }
+
+    /**
+     * Collects events and reloads once no event has arrived for debounce time
+     */
+    private void watch() {
+        WatchService service;
+        synchronized (this) {
+            service = watchService;
+        }
+        try {
+            while (true) {
+                WatchKey key = service.poll(debounceMillis, TimeUnit.MILLISECONDS);
+                if (key == null) {
+                    if (pendingCount() > 0)
+                        reloadAndRecordFailure();
+                    continue;
+                }
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+                        allFilesChanged();
+                    else
+                        fileChanged((Path) event.context());
+                }
+                key.reset();
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // watcher closed
+        }
+    }
+
+    /**
+     * Reloads on watch thread, failure is recorded as result of reload so watching goes on
+     */
+    private void reloadAndRecordFailure() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            lastResult = new BulkLoadResult(Collections.emptyMap(),
+                    List.of(new BulkLoadResult.LoadError(null, directory.toString(), e)));
+        }
+    }
+
+    /**
+     * Events were lost, every csv file in directory is checked on next reload
+     */
+    void allFilesChanged() {
+        try {
+            for (String filename : VolumeProfileBulkLoader.listDirectory(directory.toString()).values()) {
+                fileChanged(Path.of(filename).getFileName());
+            }
+        } catch (VolumeProfileLoadingException e) {
+            // directory cannot be listed now, files are picked up by their next event
+        }
+    }
+
+    /**
+     * @return whether file still has content with hash, false if it cannot be read
+     */
+    private static boolean hasContent(Path file, long hash) {
+        try {
+            return contentHash(file) == hash;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static long contentHash(Path file) throws IOException {
+        CRC32C crc = new CRC32C();
+        crc.update(Files.readAllBytes(file));
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,310 @@
+package com.citi.volume;
+
+import com.citi.volume.data.VolumeProfile;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Caches results of getCumulativeVolumeProfile and getTargetPercentForTimePeriod for time windows
+ * of volume profiles held in a VolumeProfileRegistry.
+ * Target percents and volume profiles are cached separately, so a target percent lookup never builds a volume profile.
+ * Least recently used windows are evicted when cache is full and windows older than expiry time are computed again.
+ * Cached windows are invalidated when volume profile of their symbol is replaced in registry.
+ * <p>
+ * Each cache is split into stripes with own lock so threads looking up different windows do not wait on each other,
+ * least recently used order is kept per stripe. Lookup uses a key owned by calling thread and does not create objects,
+ * key is copied only when a window is added.
+ */
+public class VolumeProfileWindowCache {
+    private static final int MAX_STRIPES = 16;
+
+    /**
+     * Cache is striped only when every stripe can hold at least this many windows, so small caches keep exact LRU order
+     */
+    private static final int MIN_STRIPE_SIZE = 64;
+
+    private static final ThreadLocal<WindowKey> LOOKUP_KEY = ThreadLocal.withInitial(WindowKey::new);
+
+    private final VolumeProfileRegistry registry;
+    private final long expireAfterMillis;
+    private final LongSupplier clock;
+    private final Stripe<Double>[] percents;
+    private final Stripe<VolumeProfile>[] volumeProfiles;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * @param registry          from which volume profiles are read
+     * @param maxSize           maximum number of windows kept in each of target percent and volume profile caches
+     * @param expireAfterMillis time after which cached window is computed again
+     */
+    public VolumeProfileWindowCache(VolumeProfileRegistry registry, int maxSize, long expireAfterMillis) {
+        this(registry, maxSize, expireAfterMillis, System::currentTimeMillis);
+    }
+
+    /**
+     * @param registry          from which volume profiles are read
+     * @param maxSize           maximum number of windows kept in each of target percent and volume profile caches
+     * @param expireAfterMillis time after which cached window is computed again
+     * @param clock             current time in milliseconds
+     */
+    public VolumeProfileWindowCache(VolumeProfileRegistry registry, int maxSize, long expireAfterMillis, LongSupplier clock) {
+        if (maxSize <= 0)
+            throw new IllegalArgumentException("Cache size must be more than 0, " + maxSize);
+        this.registry = registry;
+        this.expireAfterMillis = expireAfterMillis;
+        this.clock = clock;
+        int stripeCount = Math.max(1, Math.min(MAX_STRIPES, Integer.highestOneBit(maxSize / MIN_STRIPE_SIZE)));
+        this.percents = stripes(stripeCount, maxSize);
+        this.volumeProfiles = stripes(stripeCount, maxSize);
+    }
+
+    /**
+     * returns target percent of day volume expected to be traded within the start and end time
+     *
+     * @param symbol    symbol who's volume profile is used
+     * @param startTime start time for time-period
+     * @param endTime   end time for time-period
+     * @return target percent of day volume expected to trade within the time period, 0 if symbol is not in registry
+     */
+    public double getTargetPercentForTimePeriod(String symbol, long startTime, long endTime) {
+        VolumeProfileRegistry.Entry entry = registry.getEntry(symbol);
+        if (entry == null)
+            return 0.0;
+        WindowKey key = LOOKUP_KEY.get().set(symbol, startTime, endTime);
+        Stripe<Double> stripe = stripe(percents, key);
+        long now = clock.getAsLong();
+        Double targetPercent = stripe.get(key, entry.getVersion(), now);
+        if (targetPercent != null)
+            return targetPercent;
+
+        // computed outside lock so slow window does not block other threads
+        double computed = entry.getVolumeProfile().getTargetPercentForTimePeriod(startTime, endTime);
+        stripe.put(key.copy(), new Window<>(computed, entry.getVersion(), now));
+        return computed;
+    }
+
+    /**
+     * returns volume profile for the time period
+     *
+     * @param symbol    symbol who's volume profile is used
+     * @param startTime when the time period starts
+     * @param endTime   when the time period ends
+     * @return Volume profile applicable for the time period, null if symbol is not in registry
+     */
+    public VolumeProfile getCumulativeVolumeProfile(String symbol, long startTime, long endTime) {
+        VolumeProfileRegistry.Entry entry = registry.getEntry(symbol);
+        if (entry == null)
+            return null;
+        WindowKey key = LOOKUP_KEY.get().set(symbol, startTime, endTime);
+        Stripe<VolumeProfile> stripe = stripe(volumeProfiles, key);
+        long now = clock.getAsLong();
+        VolumeProfile volumeProfile = stripe.get(key, entry.getVersion(), now);
+        if (volumeProfile != null)
+            return volumeProfile;
+
+        // computed outside lock so slow window does not block other threads
+        VolumeProfile computed = entry.getVolumeProfile().getCumulativeVolumeProfile(startTime, endTime);
+        stripe.put(key.copy(), new Window<>(computed, entry.getVersion(), now));
+        return computed;
+    }
+
+    /**
+     * Removes all windows of symbols which have been replaced in registry, stale windows are otherwise removed when looked up
+     *
+     * @return number of windows removed
+     */
+    public int invalidateStale() {
+        int removed = 0;
+        for (int i = 0; i < percents.length; i++) {
+            removed += percents[i].invalidateStale();
+            removed += volumeProfiles[i].invalidateStale();
+        }
+        return removed;
+    }
+
+    public void clear() {
+        for (int i = 0; i < percents.length; i++) {
+            percents[i].clear();
+            volumeProfiles[i].clear();
+        }
+    }
+
+    /**
+     * @return number of windows in target percent and volume profile caches
+     */
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < percents.length; i++) {
+            size += percents[i].size() + volumeProfiles[i].size();
+        }
+        return size;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return number of windows removed because cache was full or window expired
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return number of windows removed because volume profile of symbol was replaced
+     */
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "VolumeProfileWindowCache{" +
+                "size=" + size() +
+                ", hits=" + getHits() +
+                ", misses=" + getMisses() +
+                ", evictions=" + getEvictions() +
+                ", invalidations=" + getInvalidations() +
+                '}';
+    }
+
+    @SuppressWarnings("unchecked")
+    private <V> Stripe<V>[] stripes(int stripeCount, int maxSize) {
+        Stripe<V>[] stripes = (Stripe<V>[]) new Stripe<?>[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            // remainder of max size is spread over first stripes so total is exactly max size
+            stripes[i] = new Stripe<>(maxSize / stripeCount + (i < maxSize % stripeCount ? 1 : 0));
+        }
+        return stripes;
+    }
+
+    private static <V> Stripe<V> stripe(Stripe<V>[] stripes, WindowKey key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    /**
+     * Part of cache with its own lock and least recently used order
+     */
+    private class Stripe<V> {
+        private final LinkedHashMap<WindowKey, Window<V>> windows;
+
+        private Stripe(int maxSize) {
+            this.windows = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<WindowKey, Window<V>> eldest) {
+                    if (size() > maxSize) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        /**
+         * @return cached value or null if window is not cached, stale or expired
+         */
+        private synchronized V get(WindowKey key, long version, long now) {
+            Window<V> window = windows.get(key);
+            if (window != null) {
+                if (window.version != version) {
+                    windows.remove(key);
+                    invalidations.increment();
+                } else if (now - window.createdAt >= expireAfterMillis) {
+                    windows.remove(key);
+                    evictions.increment();
+                } else {
+                    hits.increment();
+                    return window.value;
+                }
+            }
+            misses.increment();
+            return null;
+        }
+
+        private synchronized void put(WindowKey key, Window<V> window) {
+            windows.put(key, window);
+        }
+
+        private synchronized int invalidateStale() {
+            int removed = 0;
+            for (Iterator<Map.Entry<WindowKey, Window<V>>> iterator = windows.entrySet().iterator(); iterator.hasNext(); ) {
+                Map.Entry<WindowKey, Window<V>> entry = iterator.next();
+                if (entry.getValue().version != registry.getVersion(entry.getKey().symbol)) {
+                    iterator.remove();
+                    removed++;
+                }
+            }
+            invalidations.add(removed);
+            return removed;
+        }
+
+        private synchronized void clear() {
+            windows.clear();
+        }
+
+        private synchronized int size() {
+            return windows.size();
+        }
+    }
+
+    /**
+     * Key of a time window, lookups reuse key of calling thread and only a copy is stored in cache
+     */
+    private static class WindowKey {
+        private String symbol;
+        private long startTime;
+        private long endTime;
+
+        private WindowKey set(String symbol, long startTime, long endTime) {
+            this.symbol = symbol;
+            this.startTime = startTime;
+            this.endTime = endTime;
+            return this;
+        }
+
+        private WindowKey copy() {
+            return new WindowKey().set(symbol, startTime, endTime);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof WindowKey other)) return false;
+            return startTime == other.startTime && endTime == other.endTime && symbol.equals(other.symbol);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = symbol.hashCode();
+            result = 31 * result + Long.hashCode(startTime);
+            return 31 * result + Long.hashCode(endTime);
+        }
+    }
+
+    private static class Window<V> {
+        private final V value;
+        private final long version;
+        private final long createdAt;
+
+        private Window(V value, long version, long createdAt) {
+            this.value = value;
+            this.version = version;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.citi.volume;
+
+import com.citi.volume.data.BucketType;
+import com.citi.volume.data.BucketVisitor;
+import com.citi.volume.data.VolumeProfile;
+
+/**
+ * Turns a parent order quantity and time window into child order slices following a volume profile.
+ * Continuous time is cut into slices of fixed interval from start time, each slice gets quantity in proportion
+ * to volume expected within it. Auction buckets are never cut, each one is a separate slice same as
+ * getCumulativeVolumeProfile returns whole auction buckets.
+ * <p>
+ * Slice quantity is kept between minimum and maximum participation of volume expected in the slice,
+ * quantity not scheduled in a slice is carried over to later slices.
+ * <p>
+ * Generator keeps state while generating so each thread needs its own generator, it does not create objects
+ * once schedule buffer has enough capacity.
+ */
+public class VolumeScheduleGenerator {
+    private final long sliceInterval;
+    private final double minParticipation;
+    private final double maxParticipation;
+
+    /**
+     * Cuts visited buckets into slices, kept private so buckets are only fed by generate which sets up state first
+     */
+    private final BucketVisitor slicer = this::slice;
+
+    // state of schedule being generated
+    private ScheduleBuffer schedule;
+    private long windowStartTime;
+    private long windowEndTime;
+    private long openSliceIndex;
+    private long openSliceStartTime;
+    private long openSliceEndTime;
+    private double openSlicePercent;
+
+    /**
+     * @param sliceInterval    length of continuous slices in milliseconds
+     * @param minParticipation minimum fraction of expected slice volume to be scheduled in a slice, 0 for no minimum
+     * @param maxParticipation maximum fraction of expected slice volume to be scheduled in a slice,
+     *                         Double.POSITIVE_INFINITY for no maximum
+     */
+    public VolumeScheduleGenerator(long sliceInterval, double minParticipation, double maxParticipation) {
+        if (sliceInterval <= 0)
+            throw new IllegalArgumentException("Slice interval must be more than 0, " + sliceInterval);
+        if (minParticipation < 0 || maxParticipation < minParticipation)
+            throw new IllegalArgumentException("Invalid participation limits, " + minParticipation + ", " + maxParticipation);
+        this.sliceInterval = sliceInterval;
+        this.minParticipation = minParticipation;
+        this.maxParticipation = maxParticipation;
+    }
+
+    /**
+     * Generates schedule into passed buffer, previous content of buffer is cleared
+     *
+     * @param volumeProfile     expected volume profile of symbol
+     * @param quantity          parent order quantity
+     * @param startTime         start time of order
+     * @param endTime           end time of order
+     * @param expectedDayVolume expected market volume of the day used for participation limits, 0 to ignore limits
+     * @param schedule          receives slices
+     * @return quantity which could not be scheduled because of maximum participation, 0 when all quantity is scheduled
+     */
+    public double generate(VolumeProfile volumeProfile, double quantity, long startTime, long endTime, double expectedDayVolume,
+                           ScheduleBuffer schedule) {
+        schedule.clear();
+        this.schedule = schedule;
+        this.windowStartTime = startTime;
+        this.windowEndTime = endTime;
+        this.openSliceIndex = -1;
+        volumeProfile.forEachBucket(startTime, endTime, slicer);
+        flushOpenSlice();
+        this.schedule = null;
+
+        double windowPercent = 0;
+        for (int i = 0; i < schedule.size(); i++) {
+            windowPercent += schedule.getPercentOfDayVolume(i);
+        }
+        if (windowPercent <= 0)
+            return quantity;
+
+        // each slice gets its share of quantity still left, so quantity cut by limits moves to later slices
+        double totalPercent = volumeProfile.getTotalPercentOfDayVolume();
+        boolean limited = expectedDayVolume > 0 && totalPercent > 0;
+        double remainingQuantity = quantity;
+        double remainingPercent = windowPercent;
+        for (int i = 0; i < schedule.size(); i++) {
+            double percent = schedule.getPercentOfDayVolume(i);
+            double sliceQuantity = remainingPercent > percent ? remainingQuantity * percent / remainingPercent : remainingQuantity;
+            if (limited) {
+                double expectedSliceVolume = expectedDayVolume * percent / totalPercent;
+                sliceQuantity = Math.min(Math.max(sliceQuantity, minParticipation * expectedSliceVolume), maxParticipation * expectedSliceVolume);
+            }
+            sliceQuantity = Math.min(sliceQuantity, remainingQuantity);
+            schedule.setQuantity(i, sliceQuantity);
+            remainingQuantity -= sliceQuantity;
+            remainingPercent -= percent;
+        }
+        return remainingQuantity;
+    }
+
+    /**
+     * Receives buckets of order window, auction buckets become one slice, continuous buckets are cut by slice interval
+     */
+    private void slice(long startTime, long endTime, double percentOfDayVolume, BucketType bucketType) {
+        if (bucketType == BucketType.Auction) {
+            flushOpenSlice();
+            schedule.add(startTime, endTime, percentOfDayVolume, true);
+            return;
+        }
+        long time = startTime;
+        while (time < endTime) {
+            long sliceIndex = (time - windowStartTime) / sliceInterval;
+            long sliceEndTime = Math.min(windowStartTime + (sliceIndex + 1) * sliceInterval, windowEndTime);
+            long segmentEndTime = Math.min(endTime, sliceEndTime);
+            double segmentPercent = percentOfDayVolume * (segmentEndTime - time) / (endTime - startTime);
+            if (sliceIndex != openSliceIndex) {
+                flushOpenSlice();
+                openSliceIndex = sliceIndex;
+                openSliceStartTime = time;
+                openSlicePercent = 0;
+            }
+            openSliceEndTime = segmentEndTime;
+            openSlicePercent += segmentPercent;
+            time = segmentEndTime;
+        }
+    }
+
+    private void flushOpenSlice() {
+        if (openSliceIndex != -1) {
+            schedule.add(openSliceStartTime, openSliceEndTime, openSlicePercent, false);
+            openSliceIndex = -1;
+        }
+    }
+}
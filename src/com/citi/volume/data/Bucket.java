@@ -37,12 +37,26 @@ public class Bucket {
         validate();
     }
 
+    /**
+     * Copies bucket, source bucket is already validated so copy is not validated again
+     */
     public Bucket(Bucket bucket) {
-        this.startTime = bucket.getStartTime();;
+        this.startTime = bucket.getStartTime();
         this.endTime = bucket.getEndTime();
         this.percentOfDayVolume = bucket.getPercentOfDayVolume();
         this.bucketType = bucket.getBucketType();
-        validate();
+    }
+
+    /**
+     * Creates bucket from data already validated by VolumeProfile, bucket is not validated again
+     */
+    Bucket(long startTime, long endTime, double percentOfDayVolume, BucketType bucketType, boolean validated) {
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.percentOfDayVolume = percentOfDayVolume;
+        this.bucketType = bucketType;
+        if (!validated)
+            validate();
     }
 
     /**
@@ -76,6 +90,13 @@ public class Bucket {
 
     @Override
     public String toString() {
+        return toString(startTime, endTime, percentOfDayVolume, bucketType);
+    }
+
+    /**
+     * same text as toString of bucket with these values, used to report problems without creating bucket
+     */
+    static String toString(long startTime, long endTime, double percentOfDayVolume, BucketType bucketType) {
         return "Bucket{" +
                 "startTime=" + ConstantUtils.printTime(startTime) +
                 ", endTime=" + ConstantUtils.printTime(endTime) +
@@ -0,0 +1,27 @@
+package com.citi.volume.data;
+
+/**
+ * Read access to bucket data by index, buckets are sorted by start time and do not overlap.
+ * Implemented over heap arrays by VolumeProfile and over shared memory by SharedVolumeProfileView,
+ * VolumeProfileQueries computes queries on either.
+ */
+public interface BucketColumns {
+    /**
+     * @return number of buckets
+     */
+    int size();
+
+    long getStartTime(int index);
+
+    long getEndTime(int index);
+
+    double getPercentOfDayVolume(int index);
+
+    BucketType getBucketType(int index);
+
+    /**
+     * @param index index of bucket, or size for total of all buckets
+     * @return sum of percent of day volume of all buckets before index
+     */
+    double getCumulativePercent(int index);
+}
@@ -0,0 +1,18 @@
+package com.citi.volume.data;
+
+/**
+ * Receives bucket data one bucket at a time as primitive values,
+ * used to walk volume profile without creating Bucket objects
+ */
+@FunctionalInterface
+public interface BucketVisitor {
+    /**
+     * called for each bucket being visited
+     *
+     * @param startTime start time of bucket
+     * @param endTime end time of bucket
+     * @param percentOfDayVolume percent of day volume within the bucket
+     * @param bucketType type of bucket
+     */
+    void visit(long startTime, long endTime, double percentOfDayVolume, BucketType bucketType);
+}
@@ -0,0 +1,95 @@
+package com.citi.volume.data;
+
+import java.util.Arrays;
+
+/**
+ * Traded volume per bucket over many days for a symbol.
+ * Volumes are held in one primitive array, day by day, oldest day first.
+ */
+public class HistoricalVolumes {
+    private final String symbol;
+    private final VolumeProfile grid;
+    private final int days;
+    private final double[] volumes;
+    private final boolean[] excludedDays;
+
+    /**
+     * @param symbol       symbol who's volumes are stored
+     * @param grid         volume profile whose bucket times and types are used, its percentages are ignored
+     * @param dailyVolumes traded volume for each day and bucket, oldest day first, each day must have one value per bucket
+     */
+    public HistoricalVolumes(String symbol, VolumeProfile grid, double[][] dailyVolumes) {
+        this.symbol = symbol;
+        this.grid = grid;
+        this.days = dailyVolumes.length;
+        int buckets = grid.size();
+        this.volumes = new double[days * buckets];
+        for (int day = 0; day < days; day++) {
+            if (dailyVolumes[day].length != buckets)
+                throw new IllegalArgumentException("Day " + day + " has " + dailyVolumes[day].length + " volumes, expected " + buckets);
+            System.arraycopy(dailyVolumes[day], 0, volumes, day * buckets, buckets);
+        }
+        this.excludedDays = new boolean[days];
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public VolumeProfile getGrid() {
+        return grid;
+    }
+
+    public int getDays() {
+        return days;
+    }
+
+    public int getBuckets() {
+        return grid.size();
+    }
+
+    /**
+     * @param day    index of day, 0 is oldest
+     * @param bucket index of bucket in grid
+     * @return traded volume
+     */
+    public double getVolume(int day, int bucket) {
+        return volumes[day * grid.size() + bucket];
+    }
+
+    /**
+     * @param day index of day, 0 is oldest
+     * @return total traded volume of day
+     */
+    public double getDayVolume(int day) {
+        double total = 0;
+        int from = day * grid.size();
+        for (int i = from; i < from + grid.size(); i++) {
+            total += volumes[i];
+        }
+        return total;
+    }
+
+    /**
+     * Marks day to be left out of aggregation, for example half days or index rebalance days
+     *
+     * @param day index of day, 0 is oldest
+     */
+    public void excludeDay(int day) {
+        excludedDays[day] = true;
+    }
+
+    public boolean isExcluded(int day) {
+        return excludedDays[day];
+    }
+
+    @Override
+    public String toString() {
+        return "HistoricalVolumes{" +
+                "symbol='" + symbol + '\'' +
+                ", days=" + days +
+                ", buckets=" + grid.size() +
+                ", excludedDays=" + Arrays.toString(excludedDays) +
+                '}';
+    }
+}
@@ -0,0 +1,140 @@
+package com.citi.volume.data;
+
+import com.citi.volume.data.exception.VolumeProfileValidationException;
+
+import java.util.Arrays;
+
+/**
+ * Builds volume profile from live trades using bucket grid of an existing volume profile.
+ * Trades are accumulated into per bucket volume without creating objects, for trades arriving in time order
+ * finding bucket is constant time as search continues from bucket of previous trade, trades out of order use binary search.
+ * Latest auction bucket at or before each bucket is computed once from the grid, so late auction trades are also constant time.
+ * Normalized volume profile adding up to 100% can be built at any time to compare realized against expected volume.
+ * <p>
+ * Builder is not thread safe, trades are expected from a single feed thread.
+ */
+public class RealizedVolumeProfileBuilder {
+    private final VolumeProfile grid;
+    private final double[] volumes;
+
+    /**
+     * index of latest auction bucket at or before each bucket, -1 if there is none
+     */
+    private final int[] lastAuctionIndex;
+    private double totalVolume;
+    private long unmatchedTrades;
+    private int lastIndex;
+
+    /**
+     * @param grid volume profile whose buckets are used to accumulate trades
+     */
+    public RealizedVolumeProfileBuilder(VolumeProfile grid) {
+        this.grid = grid;
+        this.volumes = new double[grid.size()];
+        this.lastAuctionIndex = new int[grid.size()];
+        int auctionIndex = -1;
+        for (int i = 0; i < lastAuctionIndex.length; i++) {
+            if (grid.getBucketType(i) == BucketType.Auction)
+                auctionIndex = i;
+            lastAuctionIndex[i] = auctionIndex;
+        }
+    }
+
+    /**
+     * Adds trade to bucket covering its time.
+     * Auction trades printed after the auction bucket has ended, and not within any other auction bucket,
+     * are added to the latest auction bucket before trade time.
+     *
+     * @param timestamp time of trade
+     * @param quantity  traded quantity
+     * @param auction   whether trade was done in auction
+     * @return true if trade was added to a bucket, false if no bucket matches trade
+     */
+    public boolean onTrade(long timestamp, double quantity, boolean auction) {
+        int position = lastBucketStartingAtOrBefore(timestamp);
+        int index = VolumeProfileQueries.coveringBucket(grid, position, timestamp, true);
+        if (auction && (index == -1 || grid.getBucketType(index) != BucketType.Auction))
+            index = position == -1 ? -1 : lastAuctionIndex[position];
+        if (index == -1) {
+            unmatchedTrades++;
+            return false;
+        }
+        volumes[index] += quantity;
+        totalVolume += quantity;
+        return true;
+    }
+
+    /**
+     * Finds last bucket starting at or before time, moving forward from bucket of previous trade
+     *
+     * @return index of bucket or -1 if all buckets start after time
+     */
+    private int lastBucketStartingAtOrBefore(long time) {
+        if (volumes.length == 0)
+            return -1;
+        int index = time < grid.getStartTime(lastIndex)
+                ? VolumeProfileQueries.lastBucketStartingBefore(grid, time, true) // trade out of order
+                : VolumeProfileQueries.lastBucketStartingBefore(grid, time, true, lastIndex);
+        if (index != -1)
+            lastIndex = index;
+        return index;
+    }
+
+    /**
+     * @return total volume of trades added so far
+     */
+    public double getTotalVolume() {
+        return totalVolume;
+    }
+
+    /**
+     * @param index index of bucket in grid
+     * @return volume of trades added to bucket
+     */
+    public double getVolume(int index) {
+        return volumes[index];
+    }
+
+    /**
+     * @return number of trades which did not match any bucket
+     */
+    public long getUnmatchedTrades() {
+        return unmatchedTrades;
+    }
+
+    /**
+     * Builds volume profile with each bucket's share of volume traded so far
+     *
+     * @return volume profile which adds up to 100% over all buckets
+     * @throws VolumeProfileValidationException when no volume has been traded
+     */
+    public VolumeProfile build() throws VolumeProfileValidationException {
+        if (totalVolume <= 0)
+            throw new VolumeProfileValidationException("No volume traded, cannot build Volume Profile for " + grid.getSymbol());
+        int size = volumes.length;
+        long[] startTimes = new long[size];
+        long[] endTimes = new long[size];
+        double[] percentOfDayVolumes = new double[size];
+        byte[] bucketTypes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            startTimes[i] = grid.getStartTime(i);
+            endTimes[i] = grid.getEndTime(i);
+            percentOfDayVolumes[i] = volumes[i] / totalVolume * 100.0;
+            bucketTypes[i] = (byte) grid.getBucketType(i).ordinal();
+        }
+        // buckets are same as validated grid, only total has to be checked
+        VolumeProfile volumeProfile = new VolumeProfile(grid.getSymbol(), startTimes, endTimes, percentOfDayVolumes, bucketTypes);
+        volumeProfile.validate(true);
+        return volumeProfile;
+    }
+
+    /**
+     * Clears all volumes so builder can be reused for next day
+     */
+    public void reset() {
+        Arrays.fill(volumes, 0.0);
+        totalVolume = 0;
+        unmatchedTrades = 0;
+        lastIndex = 0;
+    }
+}
@@ -1,74 +1,329 @@
 package com.citi.volume.data;
 
+import com.citi.volume.data.exception.Violation;
 import com.citi.volume.data.exception.VolumeProfileValidationException;
-import com.citi.volume.util.ConstantUtils;
+import com.citi.volume.metrics.Metrics;
+import com.citi.volume.metrics.VolumeProfileMetrics;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.RandomAccess;
+import java.util.stream.IntStream;
 
 /**
  * Stores Volume Profile for a symbol
+ * Bucket data is held in parallel primitive arrays (columnar layout) instead of a list of Bucket objects,
+ * Bucket objects are only created on demand through getBuckets() view.
  */
-public class VolumeProfile {
+public class VolumeProfile implements VolumeProfileView {
+    private static final BucketType[] BUCKET_TYPES = BucketType.values();
+
+    /**
+     * Number of time periods computed by each task of parallel batch query
+     */
+    private static final int PARALLEL_CHUNK_SIZE = 1024;
+
     /**
      * Symbol who's volume profile is stored
      */
     private final String symbol;
-    private final List<Bucket> buckets;
 
+    /**
+     * Start time of each bucket
+     */
+    private final long[] startTimes;
+
+    /**
+     * End time of each bucket
+     */
+    private final long[] endTimes;
+
+    /**
+     * Percent of day volume done within each bucket
+     */
+    private final double[] percentOfDayVolumes;
+
+    /**
+     * Ordinal of BucketType for each bucket
+     */
+    private final byte[] bucketTypes;
+
+    /**
+     * Running total of percent of day volume, cumulativePercents[i] is sum of all buckets before index i.
+     * It has one more entry than number of buckets so that cumulativePercents[size] is total of the profile.
+     */
+    private final double[] cumulativePercents;
+
+    /**
+     * Read only list view over columnar data, kept for compatibility
+     */
+    private final List<Bucket> bucketView = new BucketListView();
 
     public VolumeProfile(String symbol, List<Bucket> buckets) {
         this.symbol = symbol;
-        this.buckets = buckets;
-        validate(false);
+        int size = buckets.size();
+        this.startTimes = new long[size];
+        this.endTimes = new long[size];
+        this.percentOfDayVolumes = new double[size];
+        this.bucketTypes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            Bucket bucket = buckets.get(i);
+            startTimes[i] = bucket.getStartTime();
+            endTimes[i] = bucket.getEndTime();
+            percentOfDayVolumes[i] = bucket.getPercentOfDayVolume();
+            bucketTypes[i] = (byte) bucket.getBucketType().ordinal();
+        }
+        this.cumulativePercents = cumulativePercents(percentOfDayVolumes);
+        checkBuckets();
+    }
+
+    /**
+     * Creates volume profile from columnar data, arrays are copied so caller can reuse them
+     * All entries are validated in one pass with same checks as Bucket.
+     *
+     * @param symbol              symbol who's volume profile is stored
+     * @param startTimes          start time of each bucket
+     * @param endTimes            end time of each bucket
+     * @param percentOfDayVolumes percent of day volume for each bucket
+     * @param bucketTypes         type of each bucket
+     * @param size                number of buckets to be read from arrays
+     */
+    public VolumeProfile(String symbol, long[] startTimes, long[] endTimes, double[] percentOfDayVolumes, BucketType[] bucketTypes, int size) {
+        this.symbol = symbol;
+        this.startTimes = Arrays.copyOf(startTimes, size);
+        this.endTimes = Arrays.copyOf(endTimes, size);
+        this.percentOfDayVolumes = Arrays.copyOf(percentOfDayVolumes, size);
+        this.bucketTypes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            this.bucketTypes[i] = bucketTypes[i] == null ? VolumeProfileValidator.NO_BUCKET_TYPE : (byte) bucketTypes[i].ordinal();
+        }
+        this.cumulativePercents = cumulativePercents(this.percentOfDayVolumes);
+        checkBuckets();
+    }
+
+    /**
+     * Creates volume profile which owns columnar data, arrays are not copied so caller must not change them after this call.
+     * All entries are validated in one pass with same checks as Bucket.
+     *
+     * @param symbol              symbol who's volume profile is stored
+     * @param startTimes          start time of each bucket
+     * @param endTimes            end time of each bucket
+     * @param percentOfDayVolumes percent of day volume for each bucket
+     * @param bucketTypes         ordinal of BucketType of each bucket
+     * @return volume profile holding the arrays
+     * @throws VolumeProfileValidationException when a bucket is invalid
+     */
+    public static VolumeProfile wrap(String symbol, long[] startTimes, long[] endTimes, double[] percentOfDayVolumes, byte[] bucketTypes) {
+        int size = startTimes.length;
+        if (endTimes.length != size || percentOfDayVolumes.length != size || bucketTypes.length != size)
+            throw new IllegalArgumentException("Columns have different lengths");
+        if (!VolumeProfileValidator.isValid(startTimes, endTimes, percentOfDayVolumes, bucketTypes, size))
+            throw new VolumeProfileValidationException(
+                    VolumeProfileValidator.validate(startTimes, endTimes, percentOfDayVolumes, bucketTypes, size, false));
+        return new VolumeProfile(symbol, startTimes, endTimes, percentOfDayVolumes, bucketTypes);
     }
 
+    /**
+     * Creates trusted volume profile directly from columnar data, arrays are owned by the profile after this call.
+     * Data must be derived from an already validated volume profile, it is not validated again.
+     */
+    VolumeProfile(String symbol, long[] startTimes, long[] endTimes, double[] percentOfDayVolumes, byte[] bucketTypes) {
+        this.symbol = symbol;
+        this.startTimes = startTimes;
+        this.endTimes = endTimes;
+        this.percentOfDayVolumes = percentOfDayVolumes;
+        this.bucketTypes = bucketTypes;
+        this.cumulativePercents = cumulativePercents(percentOfDayVolumes);
+    }
+
+    /**
+     * validates all buckets once at construction, reports every problem found
+     */
+    private void checkBuckets() {
+        if (!VolumeProfileValidator.isValid(startTimes, endTimes, percentOfDayVolumes, bucketTypes, startTimes.length))
+            throw new VolumeProfileValidationException(
+                    VolumeProfileValidator.validate(startTimes, endTimes, percentOfDayVolumes, bucketTypes, startTimes.length, false));
+    }
+
+    private static double[] cumulativePercents(double[] percentOfDayVolumes) {
+        double[] cumulative = new double[percentOfDayVolumes.length + 1];
+        for (int i = 0; i < percentOfDayVolumes.length; i++) {
+            cumulative[i + 1] = cumulative[i] + percentOfDayVolumes[i];
+        }
+        return cumulative;
+    }
+
+    @Override
     public String getSymbol() {
         return symbol;
     }
 
+    /**
+     * @return read only view of buckets, Bucket objects are created when accessed
+     */
     public List<Bucket> getBuckets() {
-        return buckets;
+        return bucketView;
+    }
+
+    /**
+     * @return number of buckets in volume profile
+     */
+    @Override
+    public int size() {
+        return startTimes.length;
+    }
+
+    @Override
+    public long getStartTime(int index) {
+        return startTimes[index];
+    }
+
+    @Override
+    public long getEndTime(int index) {
+        return endTimes[index];
+    }
+
+    @Override
+    public double getPercentOfDayVolume(int index) {
+        return percentOfDayVolumes[index];
+    }
+
+    @Override
+    public BucketType getBucketType(int index) {
+        return BUCKET_TYPES[bucketTypes[index]];
+    }
+
+    @Override
+    public double getCumulativePercent(int index) {
+        return cumulativePercents[index];
+    }
+
+    /**
+     * @return sum total of percent of day volume in all buckets
+     */
+    @Override
+    public double getTotalPercentOfDayVolume() {
+        return cumulativePercents[cumulativePercents.length - 1];
     }
 
     /**
      * Validates whether volume profile
-     * Checks there should be no overlapping buckets.
+     * Buckets and overlaps are validated once when volume profile is created, so only profile wide checks are left.
      * For complete day profile checks if sum total percent of day volume is 100.0
      *
      * @param completeDayProfile if volume profile is for entire day's volume then runs additional checks
      */
     public void validate(boolean completeDayProfile) {
-        double totalPercentageOfDayVolume = 0;
-        long previousEndTime = 0;
-        for (Bucket bucket : buckets) {
-            if (bucket.getStartTime() < previousEndTime)
-                throw new VolumeProfileValidationException("Overlapping buckets found in Volume Profile," + bucket);
-            totalPercentageOfDayVolume += bucket.getPercentOfDayVolume();
-            previousEndTime = bucket.getEndTime();
-        }
-
-        if (completeDayProfile && !ConstantUtils.equalDouble(totalPercentageOfDayVolume, 100.0)) {
-            throw new VolumeProfileValidationException("Total percentages in all buckets do not total to 100.0," + totalPercentageOfDayVolume);
+        if (completeDayProfile) {
+            Violation violation = VolumeProfileValidator.checkTotal(getTotalPercentOfDayVolume());
+            if (violation != null)
+                throw new VolumeProfileValidationException(List.of(violation));
         }
     }
 
     /**
      * returns target percent of day volume expected to be traded within the start and end time
+     * Uses cumulative percent table so only buckets at both ends of time period are looked at.
      *
      * @param startTime start time for time-period
      * @param endTime   end time for time-period
      * @return target percent of day volume expected to trade within the time period
      */
+    @Override
     public double getTargetPercentForTimePeriod(long startTime, long endTime) {
-        VolumeProfile profile = getCumulativeVolumeProfile(startTime, endTime);
+        VolumeProfileMetrics metrics = Metrics.get();
+        long startNanos = metrics.startTimer();
         double targetPercent = 0.0;
-        for (Bucket bucket : profile.getBuckets()) {
-            targetPercent += bucket.getPercentOfDayVolume();
-        }
+        if (startTime < endTime)
+            targetPercent = VolumeProfileQueries.targetPercent(this, startTime, endTime);
+        metrics.queryCompleted(VolumeProfileMetrics.Query.TARGET_PERCENT, startNanos);
         return targetPercent;
     }
 
+    /**
+     * returns target percent of day volume for many time periods in one pass over buckets.
+     * When time periods are sorted by start time and by end time, buckets are searched by moving forward
+     * from bucket of previous time period so whole batch takes one pass, otherwise each one is searched separately.
+     *
+     * @param startTimes start time of each time period
+     * @param endTimes   end time of each time period
+     * @param results    receives target percent of day volume for each time period
+     */
+    public void getTargetPercentForTimePeriods(long[] startTimes, long[] endTimes, double[] results) {
+        VolumeProfileMetrics metrics = Metrics.get();
+        long startNanos = metrics.startTimer();
+        getTargetPercentForTimePeriods(startTimes, endTimes, results, 0, startTimes.length);
+        metrics.queryCompleted(VolumeProfileMetrics.Query.TARGET_PERCENT_BATCH, startNanos);
+    }
+
+    /**
+     * same as getTargetPercentForTimePeriods but splits large batches in chunks computed on common fork join pool
+     *
+     * @param startTimes start time of each time period
+     * @param endTimes   end time of each time period
+     * @param results    receives target percent of day volume for each time period
+     */
+    public void getTargetPercentForTimePeriodsParallel(long[] startTimes, long[] endTimes, double[] results) {
+        int chunks = (startTimes.length + PARALLEL_CHUNK_SIZE - 1) / PARALLEL_CHUNK_SIZE;
+        if (chunks <= 1) {
+            getTargetPercentForTimePeriods(startTimes, endTimes, results);
+            return;
+        }
+        VolumeProfileMetrics metrics = Metrics.get();
+        long startNanos = metrics.startTimer();
+        IntStream.range(0, chunks).parallel().forEach(chunk -> getTargetPercentForTimePeriods(startTimes, endTimes, results,
+                chunk * PARALLEL_CHUNK_SIZE, Math.min(startTimes.length, (chunk + 1) * PARALLEL_CHUNK_SIZE)));
+        metrics.queryCompleted(VolumeProfileMetrics.Query.TARGET_PERCENT_BATCH, startNanos);
+    }
+
+    private void getTargetPercentForTimePeriods(long[] periodStartTimes, long[] periodEndTimes, double[] results, int from, int to) {
+        // cursors of first time period are found by binary search, so a chunk starting late in the day
+        // does not walk forward from first bucket
+        boolean seeded = false;
+        int startCursor = -1;
+        int endCursor = -1;
+        long previousStartTime = Long.MIN_VALUE;
+        long previousEndTime = Long.MIN_VALUE;
+        for (int i = from; i < to; i++) {
+            long startTime = periodStartTimes[i];
+            long endTime = periodEndTimes[i];
+            if (startTime >= endTime) {
+                results[i] = 0.0;
+                continue;
+            }
+            if (startTime < previousStartTime || endTime < previousEndTime)
+                Metrics.get().fallback(VolumeProfileMetrics.Fallback.UNSORTED_BATCH);
+            startCursor = seeded && startTime >= previousStartTime ? VolumeProfileQueries.lastBucketStartingBefore(this, startTime, true, startCursor)
+                    : VolumeProfileQueries.lastBucketStartingBefore(this, startTime, true);
+            endCursor = seeded && endTime >= previousEndTime ? VolumeProfileQueries.lastBucketStartingBefore(this, endTime, false, endCursor)
+                    : VolumeProfileQueries.lastBucketStartingBefore(this, endTime, false);
+            seeded = true;
+            previousStartTime = startTime;
+            previousEndTime = endTime;
+            results[i] = VolumeProfileQueries.targetPercent(this, startTime, endTime,
+                    VolumeProfileQueries.coveringBucket(this, startCursor, startTime, true),
+                    VolumeProfileQueries.coveringBucket(this, endCursor, endTime, false));
+        }
+    }
+
+    /**
+     * returns percent of day volume expected to be traded from start of volume profile up to time.
+     * Time within auction bucket includes entire auction, same as end time in getTargetPercentForTimePeriod.
+     * Time in gap between buckets includes all buckets before the gap.
+     *
+     * @param time time up to which percent is needed
+     * @return percent of day volume expected to be traded before time
+     */
+    @Override
+    public double getCumulativePercentUpTo(long time) {
+        VolumeProfileMetrics metrics = Metrics.get();
+        long startNanos = metrics.startTimer();
+        double cumulativePercent = VolumeProfileQueries.cumulativePercentUpTo(this, time);
+        metrics.queryCompleted(VolumeProfileMetrics.Query.CUMULATIVE_PERCENT, startNanos);
+        return cumulativePercent;
+    }
+
     /**
      * returns volume profile for the time period
      *
@@ -76,108 +331,123 @@ public class VolumeProfile {
      * @param endTime   when the time period ends
      * @return Volume profile applicable for the time period
      */
+    @Override
     public VolumeProfile getCumulativeVolumeProfile(long startTime, long endTime) {
-        List<Bucket> resultBuckets = new ArrayList<>();
-        if (startTime < endTime) {
-            int startIndex = bucketIndexOf(startTime, true);
-            int endIndex = bucketIndexOf(endTime, false);
-            if (startIndex != -1 && endIndex != -1) {
-                // Single bucket has both start time and end time in it
-                if (startIndex == endIndex) {
-                    Bucket bucket = new Bucket(buckets.get(startIndex));
-                    if (bucket.getBucketType() == BucketType.Auction)
-                        resultBuckets.add(bucket); // return entire bucket if it is auction type
-                    else {
-                        //Compute percentOfDayVolume using start time and end time
-                        double percentOfDayVolume = calculateRemainingPercentOfDayVolume(endTime - startTime, bucket);
-                        resultBuckets.add(new Bucket(startTime, endTime, percentOfDayVolume, bucket.getBucketType()));
-                    }
-                } else {
-                    // multiple buckets within start and end time
-                    List<Bucket> bucketList = new ArrayList<>();
-                    //create copy of buckets from main list
-                    for (Bucket b : buckets.subList(startIndex, endIndex + 1)) {
-                        bucketList.add(new Bucket(b));
-                    }
-
-                    //Create first bucket using start time
-                    Bucket firstBucket = bucketList.removeFirst();
-                    if (firstBucket.getStartTime() < startTime && firstBucket.getBucketType() == BucketType.Continuous) { // if start time is in middle of the bucket then calculate remaining percent
-                        double percentOfDayVolume = calculateRemainingPercentOfDayVolume(firstBucket.getEndTime() - startTime, firstBucket);
-                        resultBuckets.add(new Bucket(startTime, firstBucket.getEndTime(), percentOfDayVolume, firstBucket.getBucketType()));
-                    } else if (firstBucket.getEndTime() > startTime) {
-                        resultBuckets.add(firstBucket);
-                    }
-
-                    //Create last bucket using end time
-                    if (!bucketList.isEmpty()) {
-                        Bucket lastBucket = bucketList.removeLast();
-
-                        resultBuckets.addAll(bucketList); // add all in between buckets to result
-
-                        if (lastBucket.getEndTime() > endTime && lastBucket.getBucketType() == BucketType.Continuous) { // if end time is in middle of the bucket then calculate remaining percent
-                            double percentOfDayVolume = calculateRemainingPercentOfDayVolume(endTime - lastBucket.getStartTime(), lastBucket);
-                            resultBuckets.add(new Bucket(lastBucket.getStartTime(), endTime, percentOfDayVolume, lastBucket.getBucketType()));
-                        } else
-                            resultBuckets.add(lastBucket);
-                    }
-                }
-            }
-        }
-        return new VolumeProfile(symbol, resultBuckets);
+        VolumeProfileMetrics metrics = Metrics.get();
+        long startNanos = metrics.startTimer();
+        VolumeProfile volumeProfile = cumulativeVolumeProfile(startTime, endTime);
+        metrics.queryCompleted(VolumeProfileMetrics.Query.CUMULATIVE_VOLUME_PROFILE, startNanos);
+        return volumeProfile;
     }
 
     /**
-     * Computes percent of day volume for smaller time window than bucket time
+     * Same as getCumulativeVolumeProfile but writes result into passed buffer instead of creating a volume profile,
+     * no objects are created once buffer has grown to size of the window.
      *
-     * @param remainingBucketTime
-     * @param bucket
-     * @return
+     * @param startTime when the time period starts
+     * @param endTime   when the time period ends
+     * @param buffer    cleared and filled with buckets applicable for the time period
+     * @return passed buffer
      */
-    private static double calculateRemainingPercentOfDayVolume(long remainingBucketTime, Bucket bucket) {
-        long totalBucketTime = bucket.getEndTime() - bucket.getStartTime();
-        return ((double) remainingBucketTime / totalBucketTime) * bucket.getPercentOfDayVolume();
+    @Override
+    public VolumeProfileBuffer getCumulativeVolumeProfile(long startTime, long endTime, VolumeProfileBuffer buffer) {
+        VolumeProfileMetrics metrics = Metrics.get();
+        long startNanos = metrics.startTimer();
+        VolumeProfileQueries.cumulativeVolumeProfile(this, symbol, startTime, endTime, buffer);
+        metrics.queryCompleted(VolumeProfileMetrics.Query.CUMULATIVE_VOLUME_PROFILE, startNanos);
+        return buffer;
+    }
+
+    private VolumeProfile cumulativeVolumeProfile(long startTime, long endTime) {
+        int startIndex = -1;
+        int endIndex = -1;
+        if (startTime < endTime) {
+            startIndex = VolumeProfileQueries.bucketIndexOf(this, startTime, true);
+            endIndex = VolumeProfileQueries.bucketIndexOf(this, endTime, false);
+        }
+        if (startIndex == -1 || endIndex == -1)
+            return new VolumeProfile(symbol, new long[0], new long[0], new double[0], new byte[0]);
+
+        ColumnCollector collector = new ColumnCollector(endIndex - startIndex + 1);
+        VolumeProfileQueries.visitBuckets(this, startIndex, endIndex, startTime, endTime, collector);
+        return new VolumeProfile(symbol, collector.startTimes, collector.endTimes, collector.percentOfDayVolumes, collector.bucketTypes);
     }
 
     /**
-     * Finds index of bucket which covers passed time.
-     * It works in two modes,
-     * earliestBucket tries to find first bucket which can cover time
-     * or
-     * tries to find last bucket which can cover time
+     * Walks buckets applicable for the time period without creating any objects.
+     * Visitor receives same buckets as returned by getCumulativeVolumeProfile,
+     * with continuous buckets at both ends trimmed to the time period.
      *
-     * @param time           time to be searched
-     * @param earliestBucket whether pick earliest bucket or last bucket
-     * @return index of bucket which covers time
-     */
-    private int bucketIndexOf(long time, boolean earliestBucket) {
-        int index = -1;
-        for (int i = 0; i < buckets.size(); i++) {
-            if (earliestBucket && buckets.get(i).getStartTime() <= time && buckets.get(i).getEndTime() > time) {
-                index = i;
-                break;
-            } else if (!earliestBucket && buckets.get(i).getStartTime() < time && buckets.get(i).getEndTime() >= time) {
-                index = i;
-                break;
-            }
-        }
-        return index;
+     * @param startTime when the time period starts
+     * @param endTime   when the time period ends
+     * @param visitor   receives each bucket within the time period
+     * @return number of buckets visited
+     */
+    @Override
+    public int forEachBucket(long startTime, long endTime, BucketVisitor visitor) {
+        return VolumeProfileQueries.forEachBucket(this, startTime, endTime, visitor);
+    }
+
+    private Bucket bucketAt(int index) {
+        return new Bucket(startTimes[index], endTimes[index], percentOfDayVolumes[index], getBucketType(index), true);
     }
 
     @Override
     public String toString() {
         return "VolumeProfile{" +
                 "symbol='" + symbol + '\'' +
-                ", buckets=" + buckets +
+                ", buckets=" + bucketView +
                 '}';
     }
 
     public String toMultiLineString() {
         StringBuilder sb = new StringBuilder();
         sb.append("VolumeProfile:" + symbol).append("\n");
-        for (Bucket bucket : buckets) {
-            sb.append("[").append(bucket).append("]\n");
+        for (int i = 0; i < startTimes.length; i++) {
+            sb.append("[").append(bucketAt(i)).append("]\n");
         }
         return sb.toString();
     }
+
+    /**
+     * Read only List view over columnar bucket data
+     */
+    private class BucketListView extends AbstractList<Bucket> implements RandomAccess {
+        @Override
+        public Bucket get(int index) {
+            return bucketAt(index);
+        }
+
+        @Override
+        public int size() {
+            return startTimes.length;
+        }
+    }
+
+    /**
+     * Collects visited buckets into columnar arrays of known size
+     */
+    private static class ColumnCollector implements BucketVisitor {
+        private final long[] startTimes;
+        private final long[] endTimes;
+        private final double[] percentOfDayVolumes;
+        private final byte[] bucketTypes;
+        private int size;
+
+        private ColumnCollector(int capacity) {
+            startTimes = new long[capacity];
+            endTimes = new long[capacity];
+            percentOfDayVolumes = new double[capacity];
+            bucketTypes = new byte[capacity];
+        }
+
+        @Override
+        public void visit(long startTime, long endTime, double percentOfDayVolume, BucketType bucketType) {
+            startTimes[size] = startTime;
+            endTimes[size] = endTime;
+            percentOfDayVolumes[size] = percentOfDayVolume;
+            bucketTypes[size] = (byte) bucketType.ordinal();
+            size++;
+        }
+    }
 }
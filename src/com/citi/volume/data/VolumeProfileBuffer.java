@@ -0,0 +1,175 @@
+package com.citi.volume.data;
+
+import com.citi.volume.data.exception.VolumeProfileValidationException;
+import com.citi.volume.util.ConstantUtils;
+
+import java.util.Arrays;
+
+/**
+ * Reusable columnar storage for a volume profile derived for a time period.
+ * Filled only by getCumulativeVolumeProfile(startTime, endTime, buffer) of a VolumeProfileView, each fill replaces
+ * previous contents, capacity grows when needed and is kept across calls so extracting a window again does not create objects.
+ * Buffer is not thread safe, forCurrentThread() gives each thread its own buffer.
+ */
+public class VolumeProfileBuffer {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final BucketType[] BUCKET_TYPES = BucketType.values();
+
+    private static final ThreadLocal<VolumeProfileBuffer> THREAD_BUFFER = ThreadLocal.withInitial(VolumeProfileBuffer::new);
+
+    /**
+     * Appends visited buckets, kept private so buffer is only filled by a query which resets it first
+     */
+    private final BucketVisitor appender = this::add;
+
+    private String symbol;
+    private long[] startTimes;
+    private long[] endTimes;
+    private double[] percentOfDayVolumes;
+    private byte[] bucketTypes;
+    private int size;
+
+    public VolumeProfileBuffer() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public VolumeProfileBuffer(int capacity) {
+        startTimes = new long[capacity];
+        endTimes = new long[capacity];
+        percentOfDayVolumes = new double[capacity];
+        bucketTypes = new byte[capacity];
+    }
+
+    /**
+     * Buffer owned by calling thread, same buffer is returned on every call from a thread.
+     * Contents are overwritten by next use on the same thread so results must be consumed before that.
+     *
+     * @return cleared buffer of calling thread
+     */
+    public static VolumeProfileBuffer forCurrentThread() {
+        VolumeProfileBuffer buffer = THREAD_BUFFER.get();
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * @return symbol of volume profile buffer was last filled from, null if it has not been filled
+     */
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * @return number of buckets in buffer
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return number of buckets buffer can hold without growing
+     */
+    public int capacity() {
+        return startTimes.length;
+    }
+
+    public long getStartTime(int index) {
+        checkIndex(index);
+        return startTimes[index];
+    }
+
+    public long getEndTime(int index) {
+        checkIndex(index);
+        return endTimes[index];
+    }
+
+    public double getPercentOfDayVolume(int index) {
+        checkIndex(index);
+        return percentOfDayVolumes[index];
+    }
+
+    public BucketType getBucketType(int index) {
+        checkIndex(index);
+        return BUCKET_TYPES[bucketTypes[index]];
+    }
+
+    /**
+     * @return sum of percent of day volume of all buckets in buffer
+     */
+    public double getTotalPercentOfDayVolume() {
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            total += percentOfDayVolumes[i];
+        }
+        return total;
+    }
+
+    /**
+     * Empties buffer, capacity is kept
+     */
+    public void clear() {
+        symbol = null;
+        size = 0;
+    }
+
+    /**
+     * Copies buffer into a new volume profile, for callers who need to keep the result.
+     * Buckets are validated because buffer can be filled from any BucketColumns.
+     *
+     * @return volume profile with same buckets as buffer
+     * @throws VolumeProfileValidationException when buckets in buffer are not valid
+     */
+    public VolumeProfile toVolumeProfile() throws VolumeProfileValidationException {
+        if (!VolumeProfileValidator.isValid(startTimes, endTimes, percentOfDayVolumes, bucketTypes, size))
+            throw new VolumeProfileValidationException(
+                    VolumeProfileValidator.validate(startTimes, endTimes, percentOfDayVolumes, bucketTypes, size, false));
+        return new VolumeProfile(symbol, Arrays.copyOf(startTimes, size), Arrays.copyOf(endTimes, size),
+                Arrays.copyOf(percentOfDayVolumes, size), Arrays.copyOf(bucketTypes, size));
+    }
+
+    private void add(long startTime, long endTime, double percentOfDayVolume, BucketType bucketType) {
+        if (size == startTimes.length) {
+            int capacity = Math.max(INITIAL_CAPACITY, size * 2);
+            startTimes = Arrays.copyOf(startTimes, capacity);
+            endTimes = Arrays.copyOf(endTimes, capacity);
+            percentOfDayVolumes = Arrays.copyOf(percentOfDayVolumes, capacity);
+            bucketTypes = Arrays.copyOf(bucketTypes, capacity);
+        }
+        startTimes[size] = startTime;
+        endTimes[size] = endTime;
+        percentOfDayVolumes[size] = percentOfDayVolume;
+        bucketTypes[size] = (byte) bucketType.ordinal();
+        size++;
+    }
+
+    /**
+     * Empties buffer for a new window of volume profile of symbol
+     *
+     * @return visitor appending buckets to buffer
+     */
+    BucketVisitor reset(String symbol) {
+        this.symbol = symbol;
+        this.size = 0;
+        return appender;
+    }
+
+    private void checkIndex(int index) {
+        if (index >= size)
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("VolumeProfileBuffer{symbol=").append(symbol).append(", size=").append(size);
+        for (int i = 0; i < size; i++) {
+            sb.append(", [").append(ConstantUtils.printTime(startTimes[i]))
+                    .append('-').append(ConstantUtils.printTime(endTimes[i]))
+                    .append(' ').append(percentOfDayVolumes[i]).append(' ').append(BUCKET_TYPES[bucketTypes[i]]).append(']');
+        }
+        return sb.append('}').toString();
+    }
+}
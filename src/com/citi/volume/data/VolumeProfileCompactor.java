@@ -0,0 +1,101 @@
+package com.citi.volume.data;
+
+import java.util.Arrays;
+
+/**
+ * Reduces number of buckets without changing what volume profile queries return.
+ * Runs of adjacent Continuous buckets with 0 percent of day volume are merged into one bucket,
+ * which keeps getTargetPercentForTimePeriod and getCumulativePercentUpTo results exactly the same.
+ * <p>
+ * Optionally adjacent Continuous buckets trading at nearly same rate (percent per millisecond) are merged too,
+ * results of queries ending inside merged buckets can then change by the rate difference allowed.
+ * Auction buckets and buckets separated by a gap are never merged.
+ */
+public final class VolumeProfileCompactor {
+    private static final byte CONTINUOUS = (byte) BucketType.Continuous.ordinal();
+
+    private VolumeProfileCompactor() {
+    }
+
+    /**
+     * Compacted volume profile with number of buckets removed
+     */
+    public static final class Result {
+        private final VolumeProfile volumeProfile;
+        private final int removedBuckets;
+
+        private Result(VolumeProfile volumeProfile, int removedBuckets) {
+            this.volumeProfile = volumeProfile;
+            this.removedBuckets = removedBuckets;
+        }
+
+        public VolumeProfile getVolumeProfile() {
+            return volumeProfile;
+        }
+
+        public int getRemovedBuckets() {
+            return removedBuckets;
+        }
+    }
+
+    /**
+     * Merges runs of adjacent zero volume Continuous buckets, query results stay exactly the same
+     *
+     * @param volumeProfile volume profile to be compacted
+     * @return compacted volume profile, same instance when nothing could be merged
+     */
+    public static Result compact(VolumeProfile volumeProfile) {
+        return compact(volumeProfile, -1);
+    }
+
+    /**
+     * Merges runs of adjacent zero volume Continuous buckets and adjacent Continuous buckets with nearly same rate
+     *
+     * @param volumeProfile volume profile to be compacted
+     * @param rateTolerance relative difference of rate allowed within merged bucket, compared to first bucket of
+     *                      merged run, 0 merges only equal rates and negative value merges only zero volume buckets
+     * @return compacted volume profile, same instance when nothing could be merged
+     */
+    public static Result compact(VolumeProfile volumeProfile, double rateTolerance) {
+        int size = volumeProfile.size();
+        long[] startTimes = new long[size];
+        long[] endTimes = new long[size];
+        double[] percentOfDayVolumes = new double[size];
+        byte[] bucketTypes = new byte[size];
+        int compactedSize = 0;
+        double runRate = 0;
+        for (int i = 0; i < size; i++) {
+            long startTime = volumeProfile.getStartTime(i);
+            long endTime = volumeProfile.getEndTime(i);
+            double percentOfDayVolume = volumeProfile.getPercentOfDayVolume(i);
+            byte bucketType = (byte) volumeProfile.getBucketType(i).ordinal();
+            double rate = percentOfDayVolume / (endTime - startTime);
+            int last = compactedSize - 1;
+            if (last >= 0 && bucketType == CONTINUOUS && bucketTypes[last] == CONTINUOUS && endTimes[last] == startTime
+                    && canMerge(percentOfDayVolumes[last], percentOfDayVolume, runRate, rate, rateTolerance)) {
+                endTimes[last] = endTime;
+                percentOfDayVolumes[last] += percentOfDayVolume;
+                continue;
+            }
+            startTimes[compactedSize] = startTime;
+            endTimes[compactedSize] = endTime;
+            percentOfDayVolumes[compactedSize] = percentOfDayVolume;
+            bucketTypes[compactedSize] = bucketType;
+            compactedSize++;
+            runRate = rate;
+        }
+        if (compactedSize == size)
+            return new Result(volumeProfile, 0);
+
+        // merged buckets cover same time as validated buckets, so compacted profile is trusted
+        return new Result(new VolumeProfile(volumeProfile.getSymbol(), Arrays.copyOf(startTimes, compactedSize),
+                Arrays.copyOf(endTimes, compactedSize), Arrays.copyOf(percentOfDayVolumes, compactedSize),
+                Arrays.copyOf(bucketTypes, compactedSize)), size - compactedSize);
+    }
+
+    private static boolean canMerge(double runPercent, double percentOfDayVolume, double runRate, double rate, double rateTolerance) {
+        if (runPercent == 0 && percentOfDayVolume == 0)
+            return true;
+        return rateTolerance >= 0 && Math.abs(rate - runRate) <= rateTolerance * Math.max(rate, runRate);
+    }
+}
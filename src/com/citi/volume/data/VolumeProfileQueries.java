@@ -0,0 +1,233 @@
+package com.citi.volume.data;
+
+/**
+ * Query math of volume profile over BucketColumns, shared by VolumeProfile and SharedVolumeProfileView
+ * so both give same results. Nothing is allocated, buckets are found by binary search on start time.
+ */
+public final class VolumeProfileQueries {
+
+    private VolumeProfileQueries() {
+    }
+
+    /**
+     * returns target percent of day volume expected to be traded within the start and end time
+     * Uses cumulative percent so only buckets at both ends of time period are looked at.
+     *
+     * @param columns   buckets of volume profile
+     * @param startTime start time for time-period
+     * @param endTime   end time for time-period
+     * @return target percent of day volume expected to trade within the time period
+     */
+    public static double targetPercent(BucketColumns columns, long startTime, long endTime) {
+        if (startTime >= endTime)
+            return 0.0;
+        return targetPercent(columns, startTime, endTime, bucketIndexOf(columns, startTime, true), bucketIndexOf(columns, endTime, false));
+    }
+
+    /**
+     * returns percent of day volume expected to be traded from start of volume profile up to time.
+     * Time within auction bucket includes entire auction, same as end time in targetPercent.
+     * Time in gap between buckets includes all buckets before the gap.
+     *
+     * @param columns buckets of volume profile
+     * @param time    time up to which percent is needed
+     * @return percent of day volume expected to be traded before time
+     */
+    public static double cumulativePercentUpTo(BucketColumns columns, long time) {
+        int index = lastBucketStartingBefore(columns, time, false);
+        return index == -1 ? 0.0 : columns.getCumulativePercent(index) + lastBucketPercent(columns, index, time);
+    }
+
+    /**
+     * Finds bucket which time is in, bucket start time is inclusive and end time exclusive
+     *
+     * @param columns buckets of volume profile
+     * @param time    time to be searched
+     * @return index of bucket covering time, -1 if time is outside all buckets
+     */
+    public static int bucketIndexAt(BucketColumns columns, long time) {
+        return bucketIndexOf(columns, time, true);
+    }
+
+    /**
+     * Walks buckets applicable for the time period without creating any objects,
+     * continuous buckets at both ends are trimmed to the time period.
+     *
+     * @param columns   buckets of volume profile
+     * @param startTime when the time period starts
+     * @param endTime   when the time period ends
+     * @param visitor   receives each bucket within the time period
+     * @return number of buckets visited
+     */
+    public static int forEachBucket(BucketColumns columns, long startTime, long endTime, BucketVisitor visitor) {
+        if (startTime >= endTime)
+            return 0;
+        int startIndex = bucketIndexOf(columns, startTime, true);
+        int endIndex = bucketIndexOf(columns, endTime, false);
+        if (startIndex == -1 || endIndex == -1)
+            return 0;
+        visitBuckets(columns, startIndex, endIndex, startTime, endTime, visitor);
+        return endIndex - startIndex + 1;
+    }
+
+    /**
+     * Writes buckets applicable for the time period into buffer
+     *
+     * @param columns   buckets of volume profile
+     * @param symbol    symbol of volume profile
+     * @param startTime when the time period starts
+     * @param endTime   when the time period ends
+     * @param buffer    cleared and filled with buckets applicable for the time period
+     * @return passed buffer
+     */
+    public static VolumeProfileBuffer cumulativeVolumeProfile(BucketColumns columns, String symbol, long startTime, long endTime,
+                                                              VolumeProfileBuffer buffer) {
+        forEachBucket(columns, startTime, endTime, buffer.reset(symbol));
+        return buffer;
+    }
+
+    /**
+     * target percent of day volume using index of buckets covering start time and end time
+     */
+    static double targetPercent(BucketColumns columns, long startTime, long endTime, int startIndex, int endIndex) {
+        if (startIndex == -1 || endIndex == -1)
+            return 0.0;
+
+        // Single bucket has both start time and end time in it
+        if (startIndex == endIndex) {
+            if (columns.getBucketType(startIndex) == BucketType.Auction)
+                return columns.getPercentOfDayVolume(startIndex); // entire bucket if it is auction type
+            return remainingPercentOfDayVolume(columns, endTime - startTime, startIndex);
+        }
+        return firstBucketPercent(columns, startIndex, startTime)
+                + (columns.getCumulativePercent(endIndex) - columns.getCumulativePercent(startIndex + 1))
+                + lastBucketPercent(columns, endIndex, endTime);
+    }
+
+    /**
+     * Passes buckets between start index and end index to visitor, trimming continuous buckets at both ends to time period
+     */
+    static void visitBuckets(BucketColumns columns, int startIndex, int endIndex, long startTime, long endTime, BucketVisitor visitor) {
+        // Single bucket has both start time and end time in it
+        if (startIndex == endIndex) {
+            if (columns.getBucketType(startIndex) == BucketType.Auction) // return entire bucket if it is auction type
+                visitor.visit(columns.getStartTime(startIndex), columns.getEndTime(startIndex), columns.getPercentOfDayVolume(startIndex),
+                        BucketType.Auction);
+            else //Compute percentOfDayVolume using start time and end time
+                visitor.visit(startTime, endTime, remainingPercentOfDayVolume(columns, endTime - startTime, startIndex), BucketType.Continuous);
+            return;
+        }
+
+        // if start time is in middle of the first bucket then calculate remaining percent
+        if (columns.getStartTime(startIndex) < startTime && columns.getBucketType(startIndex) == BucketType.Continuous)
+            visitor.visit(startTime, columns.getEndTime(startIndex), firstBucketPercent(columns, startIndex, startTime), BucketType.Continuous);
+        else
+            visitBucket(columns, startIndex, visitor);
+
+        for (int i = startIndex + 1; i < endIndex; i++) {
+            visitBucket(columns, i, visitor);
+        }
+
+        // if end time is in middle of the last bucket then calculate remaining percent
+        if (columns.getEndTime(endIndex) > endTime && columns.getBucketType(endIndex) == BucketType.Continuous)
+            visitor.visit(columns.getStartTime(endIndex), endTime, lastBucketPercent(columns, endIndex, endTime), BucketType.Continuous);
+        else
+            visitBucket(columns, endIndex, visitor);
+    }
+
+    private static void visitBucket(BucketColumns columns, int index, BucketVisitor visitor) {
+        visitor.visit(columns.getStartTime(index), columns.getEndTime(index), columns.getPercentOfDayVolume(index), columns.getBucketType(index));
+    }
+
+    /**
+     * percent of day volume of first bucket of time period, computes remaining percent if start time is in middle of continuous bucket
+     */
+    private static double firstBucketPercent(BucketColumns columns, int index, long startTime) {
+        if (columns.getStartTime(index) < startTime && columns.getBucketType(index) == BucketType.Continuous)
+            return remainingPercentOfDayVolume(columns, columns.getEndTime(index) - startTime, index);
+        return columns.getPercentOfDayVolume(index);
+    }
+
+    /**
+     * percent of day volume of last bucket of time period, computes remaining percent if end time is in middle of continuous bucket
+     */
+    private static double lastBucketPercent(BucketColumns columns, int index, long endTime) {
+        if (columns.getEndTime(index) > endTime && columns.getBucketType(index) == BucketType.Continuous)
+            return remainingPercentOfDayVolume(columns, endTime - columns.getStartTime(index), index);
+        return columns.getPercentOfDayVolume(index);
+    }
+
+    /**
+     * Computes percent of day volume for smaller time window than bucket time
+     *
+     * @param remainingBucketTime time within the bucket for which percent is needed
+     * @param index               index of bucket
+     * @return percent of day volume for remaining bucket time
+     */
+    private static double remainingPercentOfDayVolume(BucketColumns columns, long remainingBucketTime, int index) {
+        long totalBucketTime = columns.getEndTime(index) - columns.getStartTime(index);
+        return ((double) remainingBucketTime / totalBucketTime) * columns.getPercentOfDayVolume(index);
+    }
+
+    /**
+     * Finds index of bucket which covers passed time.
+     * It works in two modes,
+     * earliestBucket tries to find first bucket which can cover time
+     * or
+     * tries to find last bucket which can cover time
+     * Buckets are sorted and do not overlap so binary search on start time leaves only one candidate bucket.
+     *
+     * @param time           time to be searched
+     * @param earliestBucket whether pick earliest bucket or last bucket
+     * @return index of bucket which covers time, -1 if no bucket covers time
+     */
+    static int bucketIndexOf(BucketColumns columns, long time, boolean earliestBucket) {
+        return coveringBucket(columns, lastBucketStartingBefore(columns, time, earliestBucket), time, earliestBucket);
+    }
+
+    /**
+     * Finds last bucket which starts before time, or at time when inclusive
+     *
+     * @return index of bucket or -1 if all buckets start after time
+     */
+    static int lastBucketStartingBefore(BucketColumns columns, long time, boolean inclusive) {
+        int low = 0;
+        int high = columns.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long startTime = columns.getStartTime(mid);
+            if (startTime < time || (inclusive && startTime == time))
+                low = mid + 1;
+            else
+                high = mid - 1;
+        }
+        return high;
+    }
+
+    /**
+     * Same as lastBucketStartingBefore but moves forward from index found for an earlier time
+     */
+    static int lastBucketStartingBefore(BucketColumns columns, long time, boolean inclusive, int fromIndex) {
+        int index = fromIndex;
+        int size = columns.size();
+        while (index + 1 < size && (columns.getStartTime(index + 1) < time || (inclusive && columns.getStartTime(index + 1) == time)))
+            index++;
+        return index;
+    }
+
+    /**
+     * Checks whether bucket which starts before time covers time.
+     * Buckets are sorted and do not overlap so no other bucket can cover time.
+     *
+     * @return index if bucket covers time, -1 otherwise
+     */
+    static int coveringBucket(BucketColumns columns, int index, long time, boolean earliestBucket) {
+        if (index == -1)
+            return -1;
+        if (earliestBucket && columns.getEndTime(index) > time)
+            return index;
+        if (!earliestBucket && columns.getEndTime(index) >= time)
+            return index;
+        return -1;
+    }
+}
@@ -0,0 +1,179 @@
+package com.citi.volume.data;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Converts volume profile to a different bucket grid in one pass over buckets and grid.
+ * Continuous buckets are split at grid boundaries with same linear rule as getTargetPercentForTimePeriod
+ * and parts falling in same grid cell are added up. Auction buckets are never split, they are copied whole
+ * and continuous cells next to them are cut at auction edges. Cells are also cut at gaps between buckets
+ * so a resampled bucket never covers time without volume in the source profile.
+ * <p>
+ * Resampled profile keeps total percent of day volume, so a complete day profile still passes validate(true).
+ */
+public final class VolumeProfileResampler {
+    private static final int CONTINUOUS = BucketType.Continuous.ordinal();
+    private static final int AUCTION = BucketType.Auction.ordinal();
+
+    private VolumeProfileResampler() {
+    }
+
+    /**
+     * Resamples to fixed interval grid starting at start time of first bucket
+     *
+     * @param volumeProfile volume profile to be resampled
+     * @param interval      length of grid cells in milliseconds
+     * @return resampled volume profile
+     */
+    public static VolumeProfile resample(VolumeProfile volumeProfile, long interval) {
+        if (interval <= 0)
+            throw new IllegalArgumentException("Interval must be more than 0, " + interval);
+        long anchor = volumeProfile.size() == 0 ? 0 : volumeProfile.getStartTime(0);
+        return resample(volumeProfile, new Grid(null, anchor, interval));
+    }
+
+    /**
+     * Resamples to grid with given boundaries, time before first boundary and after last boundary are one cell each
+     *
+     * @param volumeProfile volume profile to be resampled
+     * @param boundaries    cell boundaries in ascending order, for example custom session times
+     * @return resampled volume profile
+     */
+    public static VolumeProfile resample(VolumeProfile volumeProfile, long[] boundaries) {
+        for (int i = 1; i < boundaries.length; i++) {
+            if (boundaries[i] <= boundaries[i - 1])
+                throw new IllegalArgumentException("Grid boundaries must be in ascending order, at index " + i);
+        }
+        return resample(volumeProfile, new Grid(boundaries, 0, 0));
+    }
+
+    /**
+     * Resamples volume profiles of many symbols in parallel, used to prepare whole universe at start of day
+     *
+     * @param volumeProfiles volume profiles to be resampled
+     * @param interval       length of grid cells in milliseconds
+     * @return symbol to resampled volume profile
+     */
+    public static Map<String, VolumeProfile> resampleAll(Collection<VolumeProfile> volumeProfiles, long interval) {
+        return volumeProfiles.parallelStream()
+                .map(volumeProfile -> resample(volumeProfile, interval))
+                .collect(Collectors.toConcurrentMap(VolumeProfile::getSymbol, Function.identity()));
+    }
+
+    private static VolumeProfile resample(VolumeProfile volumeProfile, Grid grid) {
+        int sourceSize = volumeProfile.size();
+        Columns columns = new Columns(sourceSize);
+
+        // continuous cell being filled
+        boolean open = false;
+        long openStartTime = 0;
+        long openEndTime = 0;
+        long openCellEndTime = 0;
+        double openPercent = 0;
+
+        for (int i = 0; i < sourceSize; i++) {
+            long startTime = volumeProfile.getStartTime(i);
+            long endTime = volumeProfile.getEndTime(i);
+            double percentOfDayVolume = volumeProfile.getPercentOfDayVolume(i);
+            if (volumeProfile.getBucketType(i) == BucketType.Auction) {
+                if (open)
+                    columns.add(openStartTime, openEndTime, openPercent, CONTINUOUS);
+                open = false;
+                columns.add(startTime, endTime, percentOfDayVolume, AUCTION);
+                continue;
+            }
+
+            long time = startTime;
+            while (time < endTime) {
+                long cellEndTime = grid.nextBoundary(time);
+                long segmentEndTime = Math.min(endTime, cellEndTime);
+                double segmentPercent = segmentEndTime == endTime && time == startTime ? percentOfDayVolume
+                        : ((double) (segmentEndTime - time) / (endTime - startTime)) * percentOfDayVolume;
+                if (open && openEndTime == time && openCellEndTime == cellEndTime) {
+                    openPercent += segmentPercent;
+                } else {
+                    if (open)
+                        columns.add(openStartTime, openEndTime, openPercent, CONTINUOUS);
+                    open = true;
+                    openStartTime = time;
+                    openCellEndTime = cellEndTime;
+                    openPercent = segmentPercent;
+                }
+                openEndTime = segmentEndTime;
+                time = segmentEndTime;
+            }
+        }
+        if (open)
+            columns.add(openStartTime, openEndTime, openPercent, CONTINUOUS);
+
+        // buckets come from validated profile and are cut without overlap, so result is trusted
+        return new VolumeProfile(volumeProfile.getSymbol(), Arrays.copyOf(columns.startTimes, columns.size),
+                Arrays.copyOf(columns.endTimes, columns.size), Arrays.copyOf(columns.percentOfDayVolumes, columns.size),
+                Arrays.copyOf(columns.bucketTypes, columns.size));
+    }
+
+    /**
+     * Grid given by boundaries or by fixed interval from anchor time, boundaries are searched with forward cursor
+     */
+    private static class Grid {
+        private final long[] boundaries;
+        private final long anchor;
+        private final long interval;
+        private int cursor;
+
+        private Grid(long[] boundaries, long anchor, long interval) {
+            this.boundaries = boundaries;
+            this.anchor = anchor;
+            this.interval = interval;
+        }
+
+        /**
+         * @return first boundary after time, times only move forward
+         */
+        private long nextBoundary(long time) {
+            if (boundaries == null)
+                return anchor + (Math.floorDiv(time - anchor, interval) + 1) * interval;
+            while (cursor < boundaries.length && boundaries[cursor] <= time)
+                cursor++;
+            return cursor < boundaries.length ? boundaries[cursor] : Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Growable columnar storage for resampled buckets
+     */
+    private static class Columns {
+        private long[] startTimes;
+        private long[] endTimes;
+        private double[] percentOfDayVolumes;
+        private byte[] bucketTypes;
+        private int size;
+
+        private Columns(int capacity) {
+            capacity = Math.max(capacity, 16);
+            startTimes = new long[capacity];
+            endTimes = new long[capacity];
+            percentOfDayVolumes = new double[capacity];
+            bucketTypes = new byte[capacity];
+        }
+
+        private void add(long startTime, long endTime, double percentOfDayVolume, int bucketType) {
+            if (size == startTimes.length) {
+                int capacity = size * 2;
+                startTimes = Arrays.copyOf(startTimes, capacity);
+                endTimes = Arrays.copyOf(endTimes, capacity);
+                percentOfDayVolumes = Arrays.copyOf(percentOfDayVolumes, capacity);
+                bucketTypes = Arrays.copyOf(bucketTypes, capacity);
+            }
+            startTimes[size] = startTime;
+            endTimes[size] = endTime;
+            percentOfDayVolumes[size] = percentOfDayVolume;
+            bucketTypes[size] = (byte) bucketType;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.citi.volume.data;
+
+import com.citi.volume.data.exception.Violation;
+import com.citi.volume.data.exception.ViolationType;
+import com.citi.volume.util.ConstantUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Validates columnar bucket data in one pass and collects every violation instead of stopping at the first.
+ * Valid data is confirmed by a branch free pass which JIT can vectorize, violations are only collected
+ * with messages when that pass finds a problem. Messages are same as Bucket and VolumeProfile validation.
+ */
+public final class VolumeProfileValidator {
+    private static final int BUCKET_TYPE_COUNT = BucketType.values().length;
+    private static final BucketType[] BUCKET_TYPES = BucketType.values();
+
+    /**
+     * Value used in bucket type column for missing bucket type
+     */
+    public static final byte NO_BUCKET_TYPE = -1;
+
+    private VolumeProfileValidator() {
+    }
+
+    /**
+     * Checks bucket data without creating objects
+     *
+     * @param startTimes          start time of each bucket
+     * @param endTimes            end time of each bucket
+     * @param percentOfDayVolumes percent of day volume of each bucket
+     * @param bucketTypes         ordinal of BucketType of each bucket, NO_BUCKET_TYPE when missing
+     * @param size                number of buckets
+     * @return true if no bucket is invalid and no buckets overlap, total is not checked
+     */
+    public static boolean isValid(long[] startTimes, long[] endTimes, double[] percentOfDayVolumes, byte[] bucketTypes, int size) {
+        // counting loops without early exit so JIT can vectorize them
+        int invalid = 0;
+        for (int i = 0; i < size; i++) {
+            invalid += (startTimes[i] >= endTimes[i] ? 1 : 0)
+                    + (percentOfDayVolumes[i] < 0 ? 1 : 0)
+                    + ((bucketTypes[i] & 0xFF) >= BUCKET_TYPE_COUNT ? 1 : 0);
+        }
+        for (int i = 1; i < size; i++) {
+            invalid += startTimes[i] < endTimes[i - 1] ? 1 : 0;
+        }
+        return invalid == 0 && (size == 0 || startTimes[0] >= 0);
+    }
+
+    /**
+     * Collects all problems in bucket data in order of bucket index
+     *
+     * @param startTimes          start time of each bucket
+     * @param endTimes            end time of each bucket
+     * @param percentOfDayVolumes percent of day volume of each bucket
+     * @param bucketTypes         ordinal of BucketType of each bucket, NO_BUCKET_TYPE when missing
+     * @param size                number of buckets
+     * @param completeDayProfile  whether total percent of day volume has to be 100
+     * @return violations found, empty if data is valid
+     */
+    public static List<Violation> validate(long[] startTimes, long[] endTimes, double[] percentOfDayVolumes, byte[] bucketTypes,
+                                           int size, boolean completeDayProfile) {
+        List<Violation> violations = Collections.emptyList();
+        if (!isValid(startTimes, endTimes, percentOfDayVolumes, bucketTypes, size)) {
+            violations = new ArrayList<>();
+            long previousEndTime = 0;
+            for (int i = 0; i < size; i++) {
+                BucketType bucketType = (bucketTypes[i] & 0xFF) < BUCKET_TYPE_COUNT ? BUCKET_TYPES[bucketTypes[i]] : null;
+                if (startTimes[i] >= endTimes[i])
+                    violations.add(new Violation(i, ViolationType.INVALID_TIME_RANGE, "Start time cannot be equal or later than end time, "
+                            + Bucket.toString(startTimes[i], endTimes[i], percentOfDayVolumes[i], bucketType)));
+                if (bucketType == null)
+                    violations.add(new Violation(i, ViolationType.MISSING_BUCKET_TYPE, "Bucket type cannot be null, "
+                            + Bucket.toString(startTimes[i], endTimes[i], percentOfDayVolumes[i], null)));
+                if (percentOfDayVolumes[i] < 0)
+                    violations.add(new Violation(i, ViolationType.NEGATIVE_PERCENT, "Percent of day volume cannot be less than 0, "
+                            + Bucket.toString(startTimes[i], endTimes[i], percentOfDayVolumes[i], bucketType)));
+                if (startTimes[i] < previousEndTime)
+                    violations.add(new Violation(i, ViolationType.OVERLAPPING_BUCKETS, "Overlapping buckets found in Volume Profile,"
+                            + Bucket.toString(startTimes[i], endTimes[i], percentOfDayVolumes[i], bucketType)));
+                previousEndTime = endTimes[i];
+            }
+        }
+        if (completeDayProfile) {
+            double totalPercentOfDayVolume = 0;
+            for (int i = 0; i < size; i++) {
+                totalPercentOfDayVolume += percentOfDayVolumes[i];
+            }
+            Violation total = checkTotal(totalPercentOfDayVolume);
+            if (total != null) {
+                if (violations.isEmpty())
+                    violations = new ArrayList<>(1);
+                violations.add(total);
+            }
+        }
+        return violations;
+    }
+
+    /**
+     * @param totalPercentOfDayVolume sum of percent of day volume of all buckets
+     * @return violation if total is not 100, null otherwise
+     */
+    public static Violation checkTotal(double totalPercentOfDayVolume) {
+        if (ConstantUtils.equalDouble(totalPercentOfDayVolume, 100.0))
+            return null;
+        return new Violation(-1, ViolationType.TOTAL_NOT_100, "Total percentages in all buckets do not total to 100.0," + totalPercentOfDayVolume);
+    }
+}
@@ -0,0 +1,50 @@
+package com.citi.volume.data;
+
+/**
+ * Queries of a volume profile, answered same way whether bucket data is on heap (VolumeProfile)
+ * or in shared memory (SharedVolumeProfileView)
+ */
+public interface VolumeProfileView extends BucketColumns {
+    String getSymbol();
+
+    /**
+     * @return sum total of percent of day volume in all buckets
+     */
+    double getTotalPercentOfDayVolume();
+
+    /**
+     * @param startTime start time for time-period
+     * @param endTime   end time for time-period
+     * @return target percent of day volume expected to trade within the time period
+     */
+    double getTargetPercentForTimePeriod(long startTime, long endTime);
+
+    /**
+     * @param time time up to which percent is needed
+     * @return percent of day volume expected to be traded before time
+     */
+    double getCumulativePercentUpTo(long time);
+
+    /**
+     * @param startTime when the time period starts
+     * @param endTime   when the time period ends
+     * @param visitor   receives each bucket within the time period
+     * @return number of buckets visited
+     */
+    int forEachBucket(long startTime, long endTime, BucketVisitor visitor);
+
+    /**
+     * @param startTime when the time period starts
+     * @param endTime   when the time period ends
+     * @return Volume profile applicable for the time period
+     */
+    VolumeProfile getCumulativeVolumeProfile(long startTime, long endTime);
+
+    /**
+     * @param startTime when the time period starts
+     * @param endTime   when the time period ends
+     * @param buffer    cleared and filled with buckets applicable for the time period
+     * @return passed buffer
+     */
+    VolumeProfileBuffer getCumulativeVolumeProfile(long startTime, long endTime, VolumeProfileBuffer buffer);
+}
@@ -0,0 +1,40 @@
+package com.citi.volume.data.exception;
+
+import java.io.Serializable;
+
+/**
+ * One problem found in volume profile data, carried by VolumeProfileValidationException
+ */
+public final class Violation implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int index;
+    private final ViolationType type;
+    private final String message;
+
+    public Violation(int index, ViolationType type, String message) {
+        this.index = index;
+        this.type = type;
+        this.message = message;
+    }
+
+    /**
+     * @return index of bucket, -1 for problems of whole profile
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public ViolationType getType() {
+        return type;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return message;
+    }
+}
@@ -0,0 +1,12 @@
+package com.citi.volume.data.exception;
+
+/**
+ * Kind of problem found by VolumeProfileValidator
+ */
+public enum ViolationType {
+    INVALID_TIME_RANGE,
+    MISSING_BUCKET_TYPE,
+    NEGATIVE_PERCENT,
+    OVERLAPPING_BUCKETS,
+    TOTAL_NOT_100
+}
@@ -1,7 +1,34 @@
 package com.citi.volume.data.exception;
 
+import java.util.Collections;
+import java.util.List;
+
 public class VolumeProfileValidationException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * always List.copyOf or Collections.emptyList of serializable violations, so exception is serialized with them
+     */
+    @SuppressWarnings("serial")
+    private final List<Violation> violations;
+
     public VolumeProfileValidationException(String s) {
         super(s);
+        this.violations = Collections.emptyList();
+    }
+
+    /**
+     * @param violations all problems found, message is taken from first one
+     */
+    public VolumeProfileValidationException(List<Violation> violations) {
+        super(violations.getFirst().getMessage());
+        this.violations = List.copyOf(violations);
+    }
+
+    /**
+     * @return all problems found by validation, empty when exception was not raised by VolumeProfileValidator
+     */
+    public List<Violation> getViolations() {
+        return violations;
     }
 }
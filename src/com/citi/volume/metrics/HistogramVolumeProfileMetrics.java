@@ -0,0 +1,250 @@
+package com.citi.volume.metrics;
+
+import com.citi.volume.data.exception.Violation;
+import com.citi.volume.data.exception.ViolationType;
+import com.citi.volume.data.exception.VolumeProfileLoadingException;
+import com.citi.volume.data.exception.VolumeProfileValidationException;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.NoSuchFileException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records metrics in process, latencies are kept in LatencyHistogram and counts in LongAdder.
+ * Values can be read with getSnapshot or through JMX after registerMBean.
+ * <p>
+ * Load failures are counted by check which failed, ViolationType name for failed validation of a profile
+ * or one of the loader checks below, so failures can be told apart without parsing messages.
+ */
+public class HistogramVolumeProfileMetrics implements VolumeProfileMetrics, VolumeProfileMetricsMXBean {
+    public static final String DEFAULT_OBJECT_NAME = "com.citi.volume:type=VolumeProfileMetrics";
+
+    /**
+     * file does not exist or cannot be opened
+     */
+    public static final String CANNOT_READ = "CANNOT_READ";
+    /**
+     * file was opened but reading it failed
+     */
+    public static final String READ_ERROR = "READ_ERROR";
+    /**
+     * line of file could not be parsed into a bucket
+     */
+    public static final String INVALID_RECORD = "INVALID_RECORD";
+    /**
+     * profile failed validation which did not report a ViolationType
+     */
+    public static final String INVALID_PROFILE = "INVALID_PROFILE";
+
+    private static final Query[] QUERIES = Query.values();
+    private static final Fallback[] FALLBACKS = Fallback.values();
+
+    private final LatencyHistogram fileLoadLatency = new LatencyHistogram();
+    private final LatencyHistogram failedLoadLatency = new LatencyHistogram();
+    private final LongAdder bucketsLoaded = new LongAdder();
+    private final LongAdder bucketsCompacted = new LongAdder();
+    private final Map<String, LongAdder> loadFailures = new ConcurrentHashMap<>();
+    private final LatencyHistogram[] queryLatencies = new LatencyHistogram[QUERIES.length];
+    private final LongAdder[] fallbacks = new LongAdder[FALLBACKS.length];
+
+    public HistogramVolumeProfileMetrics() {
+        for (int i = 0; i < queryLatencies.length; i++) {
+            queryLatencies[i] = new LatencyHistogram();
+        }
+        for (int i = 0; i < fallbacks.length; i++) {
+            fallbacks[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public long startTimer() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public void fileLoaded(String filename, long startNanos, int buckets) {
+        fileLoadLatency.record(System.nanoTime() - startNanos);
+        bucketsLoaded.add(buckets);
+    }
+
+    @Override
+    public void bucketsCompacted(String filename, int removedBuckets) {
+        bucketsCompacted.add(removedBuckets);
+    }
+
+    @Override
+    public void loadFailed(String filename, long startNanos, RuntimeException failure) {
+        failedLoadLatency.record(System.nanoTime() - startNanos);
+        if (failure instanceof VolumeProfileValidationException validation && !validation.getViolations().isEmpty()) {
+            // each type of violation is counted once per file
+            List<Violation> violations = validation.getViolations();
+            boolean[] counted = new boolean[ViolationType.values().length];
+            for (Violation violation : violations) {
+                if (!counted[violation.getType().ordinal()]) {
+                    counted[violation.getType().ordinal()] = true;
+                    countLoadFailure(violation.getType().name());
+                }
+            }
+        } else {
+            countLoadFailure(loaderCheck(failure));
+        }
+    }
+
+    private void countLoadFailure(String check) {
+        loadFailures.computeIfAbsent(check, type -> new LongAdder()).increment();
+    }
+
+    /**
+     * @return loader check which failed, taken from type of exception and its cause
+     */
+    private static String loaderCheck(RuntimeException failure) {
+        if (failure instanceof VolumeProfileValidationException)
+            return INVALID_PROFILE;
+        Throwable cause = failure.getCause();
+        if (cause instanceof FileNotFoundException || cause instanceof NoSuchFileException || cause instanceof AccessDeniedException)
+            return CANNOT_READ;
+        if (cause instanceof IOException)
+            return READ_ERROR;
+        if (failure instanceof VolumeProfileLoadingException)
+            return INVALID_RECORD;
+        return failure.getClass().getSimpleName();
+    }
+
+    @Override
+    public void queryCompleted(Query query, long startNanos) {
+        queryLatencies[query.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    @Override
+    public void fallback(Fallback fallback) {
+        fallbacks[fallback.ordinal()].increment();
+    }
+
+    public LatencyHistogram getFileLoadLatency() {
+        return fileLoadLatency;
+    }
+
+    /**
+     * @return time taken by loads which failed
+     */
+    public LatencyHistogram getFailedLoadLatency() {
+        return failedLoadLatency;
+    }
+
+    public LatencyHistogram getQueryLatency(Query query) {
+        return queryLatencies[query.ordinal()];
+    }
+
+    /**
+     * @return number of buckets in loaded volume profiles, after compaction
+     */
+    public long getBucketsLoaded() {
+        return bucketsLoaded.sum();
+    }
+
+    /**
+     * @return number of buckets removed by compaction, buckets read from files are this plus buckets loaded
+     */
+    public long getBucketsCompacted() {
+        return bucketsCompacted.sum();
+    }
+
+    /**
+     * @param check loader check, for example CANNOT_READ, or name of ViolationType
+     * @return number of files which failed to load because of the check
+     */
+    public long getLoadFailures(String check) {
+        LongAdder failures = loadFailures.get(check);
+        return failures == null ? 0 : failures.sum();
+    }
+
+    /**
+     * @param type type of violation found by validation
+     * @return number of files which failed validation with the type of violation
+     */
+    public long getLoadFailures(ViolationType type) {
+        return getLoadFailures(type.name());
+    }
+
+    public long getFallbacks(Fallback fallback) {
+        return fallbacks[fallback.ordinal()].sum();
+    }
+
+    /**
+     * @return metric name to value sorted by name, latencies are in nanoseconds
+     */
+    @Override
+    public Map<String, Long> getSnapshot() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        addLatency(snapshot, "fileLoad", fileLoadLatency);
+        addLatency(snapshot, "failedFileLoad", failedLoadLatency);
+        snapshot.put("bucketsLoaded", bucketsLoaded.sum());
+        snapshot.put("bucketsCompacted", bucketsCompacted.sum());
+        loadFailures.forEach((type, failures) -> snapshot.put("loadFailure." + type, failures.sum()));
+        for (Query query : QUERIES) {
+            addLatency(snapshot, "query." + query, queryLatencies[query.ordinal()]);
+        }
+        for (Fallback fallback : FALLBACKS) {
+            snapshot.put("fallback." + fallback, fallbacks[fallback.ordinal()].sum());
+        }
+        return snapshot;
+    }
+
+    private static void addLatency(Map<String, Long> snapshot, String name, LatencyHistogram histogram) {
+        snapshot.put(name + ".count", histogram.getCount());
+        snapshot.put(name + ".p50", histogram.getValueAtPercentile(50));
+        snapshot.put(name + ".p99", histogram.getValueAtPercentile(99));
+        snapshot.put(name + ".p999", histogram.getValueAtPercentile(99.9));
+        snapshot.put(name + ".max", histogram.getMax());
+    }
+
+    @Override
+    public void reset() {
+        fileLoadLatency.reset();
+        failedLoadLatency.reset();
+        bucketsLoaded.reset();
+        bucketsCompacted.reset();
+        loadFailures.clear();
+        for (LatencyHistogram histogram : queryLatencies) {
+            histogram.reset();
+        }
+        for (LongAdder fallback : fallbacks) {
+            fallback.reset();
+        }
+    }
+
+    /**
+     * Registers metrics with platform MBean server
+     *
+     * @param objectName JMX name, for example DEFAULT_OBJECT_NAME
+     * @throws IllegalStateException when name is invalid or already registered
+     */
+    public void registerMBean(String objectName) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(objectName));
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register metrics, " + objectName, e);
+        }
+    }
+
+    /**
+     * Unregisters metrics from platform MBean server, does nothing if name is not registered
+     *
+     * @param objectName JMX name used to register
+     */
+    public void unregisterMBean(String objectName) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(objectName));
+        } catch (JMException ignored) {
+        }
+    }
+}
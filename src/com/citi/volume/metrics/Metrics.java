@@ -0,0 +1,34 @@
+package com.citi.volume.metrics;
+
+import java.util.Objects;
+
+/**
+ * Holds metrics used by loaders and volume profiles, records nothing until metrics are installed
+ */
+public final class Metrics {
+    private static volatile VolumeProfileMetrics metrics = NoOpVolumeProfileMetrics.INSTANCE;
+
+    private Metrics() {
+    }
+
+    /**
+     * @return metrics currently installed
+     */
+    public static VolumeProfileMetrics get() {
+        return metrics;
+    }
+
+    /**
+     * @param volumeProfileMetrics metrics to be used from now on
+     */
+    public static void install(VolumeProfileMetrics volumeProfileMetrics) {
+        metrics = Objects.requireNonNull(volumeProfileMetrics);
+    }
+
+    /**
+     * goes back to recording nothing
+     */
+    public static void uninstall() {
+        metrics = NoOpVolumeProfileMetrics.INSTANCE;
+    }
+}
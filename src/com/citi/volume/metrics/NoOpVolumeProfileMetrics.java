@@ -0,0 +1,36 @@
+package com.citi.volume.metrics;
+
+/**
+ * Default metrics which records nothing and never reads the clock
+ */
+public final class NoOpVolumeProfileMetrics implements VolumeProfileMetrics {
+    public static final NoOpVolumeProfileMetrics INSTANCE = new NoOpVolumeProfileMetrics();
+
+    private NoOpVolumeProfileMetrics() {
+    }
+
+    @Override
+    public long startTimer() {
+        return 0;
+    }
+
+    @Override
+    public void fileLoaded(String filename, long startNanos, int buckets) {
+    }
+
+    @Override
+    public void bucketsCompacted(String filename, int removedBuckets) {
+    }
+
+    @Override
+    public void loadFailed(String filename, long startNanos, RuntimeException failure) {
+    }
+
+    @Override
+    public void queryCompleted(Query query, long startNanos) {
+    }
+
+    @Override
+    public void fallback(Fallback fallback) {
+    }
+}
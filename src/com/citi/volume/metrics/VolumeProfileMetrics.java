@@ -0,0 +1,80 @@
+package com.citi.volume.metrics;
+
+/**
+ * Receives timings and counts from loaders and volume profile queries.
+ * Calls are made on hot paths so implementations must be cheap and safe to call from multiple threads.
+ * Timings are taken by passing value returned by startTimer back to the completing call,
+ * implementation which does not record time can return 0 and never read the clock.
+ */
+public interface VolumeProfileMetrics {
+
+    /**
+     * Volume profile queries being timed
+     */
+    enum Query {
+        TARGET_PERCENT,
+        TARGET_PERCENT_BATCH,
+        CUMULATIVE_PERCENT,
+        CUMULATIVE_VOLUME_PROFILE
+    }
+
+    /**
+     * Slower paths taken when fast path cannot be used
+     */
+    enum Fallback {
+        /**
+         * number could not be parsed from bytes and was parsed as String
+         */
+        DOUBLE_PARSING,
+        /**
+         * time period of batch query was not sorted and was searched separately
+         */
+        UNSORTED_BATCH
+    }
+
+    /**
+     * @return time to be passed to completing call, 0 when time is not recorded
+     */
+    long startTimer();
+
+    /**
+     * called when a file has been loaded, after compaction when loader compacts
+     *
+     * @param filename   name of file
+     * @param startNanos value returned by startTimer when loading started
+     * @param buckets    number of buckets in loaded volume profile
+     */
+    void fileLoaded(String filename, long startNanos, int buckets);
+
+    /**
+     * called before fileLoaded when loader merged runs of zero volume buckets
+     *
+     * @param filename       name of file
+     * @param removedBuckets number of buckets removed by merging
+     */
+    void bucketsCompacted(String filename, int removedBuckets);
+
+    /**
+     * called when a file could not be loaded, check which failed is taken from exception
+     *
+     * @param filename   name of file
+     * @param startNanos value returned by startTimer when loading started
+     * @param failure    exception thrown by loader
+     */
+    void loadFailed(String filename, long startNanos, RuntimeException failure);
+
+    /**
+     * called when a volume profile query has completed
+     *
+     * @param query      query which completed
+     * @param startNanos value returned by startTimer when query started
+     */
+    void queryCompleted(Query query, long startNanos);
+
+    /**
+     * called when a slower path is taken
+     *
+     * @param fallback slower path taken
+     */
+    void fallback(Fallback fallback);
+}
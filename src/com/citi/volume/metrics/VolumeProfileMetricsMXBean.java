@@ -0,0 +1,18 @@
+package com.citi.volume.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of HistogramVolumeProfileMetrics
+ */
+public interface VolumeProfileMetricsMXBean {
+    /**
+     * @return metric name to value, latencies are in nanoseconds
+     */
+    Map<String, Long> getSnapshot();
+
+    /**
+     * clears all recorded values
+     */
+    void reset();
+}
@@ -1,21 +1,76 @@
 package com.citi.volume.util;
 
 import com.citi.volume.data.BucketType;
+import com.citi.volume.metrics.Metrics;
+import com.citi.volume.metrics.VolumeProfileMetrics;
 
-import java.text.ParseException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.zone.ZoneRules;
 import java.util.Date;
 
 public class ConstantUtils {
 
+    /**
+     * @deprecated SimpleDateFormat is not thread safe, it is no longer used by extractDateTime or printTime
+     */
+    @Deprecated
     public static SimpleDateFormat DATE_TIME_FORMATTER = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
+    /**
+     * @deprecated SimpleDateFormat is not thread safe, it is no longer used by extractDateTime or printTime
+     */
+    @Deprecated
     public static SimpleDateFormat TIME_FORMATTER = new SimpleDateFormat("HH:mm:ss");
     public static double EPILSON = 0.000001;
 
+    private static final DateTimeFormatter DATE_TIME_PARSER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+
+    /**
+     * Returned by time extraction when value is not a valid time
+     */
+    public static final long INVALID_TIME = -1;
+
+    private static final long MILLIS_PER_SECOND = 1000;
+    private static final long MILLIS_PER_MINUTE = 60 * MILLIS_PER_SECOND;
+    private static final long MILLIS_PER_HOUR = 60 * MILLIS_PER_MINUTE;
+    private static final long MILLIS_PER_DAY = 24 * MILLIS_PER_HOUR;
+
+    /**
+     * Session to which time of day values are anchored, follows current date in system zone until set explicitly
+     */
+    private static volatile Session session = new Session(LocalDate.now(), ZoneId.systemDefault(), false, null);
+
+    /**
+     * Powers of 10 which are exactly representable as double, used for fast double parsing
+     */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * Maximum significant digits for which mantissa is exact in double, values with more digits use Double.parseDouble
+     */
+    private static final int MAX_FAST_DOUBLE_DIGITS = 15;
+
+    private static final BucketType[] BUCKET_TYPES = BucketType.values();
+    private static final byte[][] BUCKET_TYPE_NAMES = new byte[BUCKET_TYPES.length][];
+
+    static {
+        for (int i = 0; i < BUCKET_TYPES.length; i++) {
+            BUCKET_TYPE_NAMES[i] = BUCKET_TYPES[i].name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
     public static boolean stringNotEmpty(String str) {
         return str != null && str.trim().length() != 0;
     }
@@ -36,32 +91,137 @@ public class ConstantUtils {
         Date retVal = null;
         if (stringNotEmpty(value)) {
             try {
-                retVal = DATE_TIME_FORMATTER.parse(value);
-            } catch (ParseException e) {
-
+                LocalDateTime dt = LocalDateTime.parse(value, DATE_TIME_PARSER);
+                retVal = new Date(dt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            } catch (DateTimeParseException ignored) {
             }
-
         }
         return retVal;
     }
 
     public static Date extractTime(String value) {
-        Date retVal = null;
-        if (stringNotEmpty(value)) {
-            try {
-                LocalDateTime dt = LocalDate.now().atTime(LocalTime.parse(value));
-                retVal = new Date(dt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
-                retVal = DATE_TIME_FORMATTER.parse(value);
-            } catch (ParseException e) {
+        long time = extractTimeMillis(value);
+        return time == INVALID_TIME ? null : new Date(time);
+    }
 
-            }
+    /**
+     * extracts time of day and anchors it to session date
+     *
+     * @param value time in HH:mm, HH:mm:ss or HH:mm:ss.SSS format
+     * @return epoch milliseconds of time on session date or INVALID_TIME if value is not a valid time
+     */
+    public static long extractTimeMillis(String value) {
+        if (value == null)
+            return INVALID_TIME;
+        long timeOfDay = extractTimeOfDay(null, value, 0, value.length());
+        return timeOfDay == INVALID_TIME ? INVALID_TIME : toSessionTime(timeOfDay);
+    }
 
+    /**
+     * extracts time of day without creating any objects
+     *
+     * @param value time in HH:mm, HH:mm:ss or HH:mm:ss.SSS format
+     * @return milliseconds since midnight or INVALID_TIME if value is not a valid time
+     */
+    public static long extractTimeOfDay(CharSequence value) {
+        return value == null ? INVALID_TIME : extractTimeOfDay(null, value, 0, value.length());
+    }
+
+    /**
+     * Converts milliseconds since midnight to epoch milliseconds on session date in session zone
+     *
+     * @param timeOfDay milliseconds since midnight
+     * @return epoch milliseconds
+     */
+    public static long toSessionTime(long timeOfDay) {
+        return currentSession().toEpochMillis(timeOfDay);
+    }
+
+    /**
+     * Sets date and zone to which time of day values read from files are anchored.
+     * Until set, current date in system default zone is used.
+     *
+     * @param sessionDate trading date
+     * @param zone        zone in which times of day are expressed
+     */
+    public static void setSession(LocalDate sessionDate, ZoneId zone) {
+        session = new Session(sessionDate, zone, true, null);
+    }
+
+    /**
+     * Anchors time of day values to trading day of session calendar.
+     * Times of day earlier than first session open are taken as next day, so overnight sessions load in order.
+     *
+     * @param calendar trading day to which times of day are anchored
+     */
+    public static void setSession(SessionCalendar calendar) {
+        session = new Session(calendar.getTradingDate(), calendar.getZone(), true, calendar);
+    }
+
+    /**
+     * Goes back to following current date in system default zone
+     */
+    public static void resetSession() {
+        session = new Session(LocalDate.now(), ZoneId.systemDefault(), false, null);
+    }
+
+    /**
+     * @return session calendar set with setSession, null if session was set by date and zone or not set
+     */
+    public static SessionCalendar getSessionCalendar() {
+        return currentSession().calendar;
+    }
+
+    /**
+     * Times stored relative to this can be moved to another trading day by adding session start of that day
+     *
+     * @return epoch milliseconds of midnight starting session date in session zone
+     */
+    public static long getSessionStart() {
+        return currentSession().midnight;
+    }
+
+    public static LocalDate getSessionDate() {
+        return currentSession().date;
+    }
+
+    public static ZoneId getSessionZone() {
+        return currentSession().zone;
+    }
+
+    private static Session currentSession() {
+        Session current = session;
+        if (!current.explicit && System.currentTimeMillis() >= current.nextMidnight) {
+            current = new Session(LocalDate.now(current.zone), current.zone, false, null);
+            session = current;
         }
-        return retVal;
+        return current;
     }
 
+    /**
+     * formats time as HH:mm:ss in session zone
+     */
     public static String printTime(long value) {
-        return TIME_FORMATTER.format(new Date(value));
+        return appendTime(new StringBuilder(8), value).toString();
+    }
+
+    /**
+     * appends time as HH:mm:ss in session zone without creating intermediate objects for fixed offset zones
+     *
+     * @param sb    to which time is appended
+     * @param value epoch milliseconds
+     * @return passed StringBuilder
+     */
+    public static StringBuilder appendTime(StringBuilder sb, long value) {
+        long timeOfDay = Math.floorMod(value + currentSession().offsetMillis(value), MILLIS_PER_DAY);
+        int seconds = (int) (timeOfDay / MILLIS_PER_SECOND);
+        appendTwoDigits(sb, seconds / 3600).append(':');
+        appendTwoDigits(sb, seconds / 60 % 60).append(':');
+        return appendTwoDigits(sb, seconds % 60);
+    }
+
+    private static StringBuilder appendTwoDigits(StringBuilder sb, int value) {
+        return sb.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
     }
 
     public static double extractDouble(String value) {
@@ -79,4 +239,221 @@ public class ConstantUtils {
     public static boolean equalDouble(double value1, double value2) {
         return Math.abs(value1 - value2) < EPILSON;
     }
+
+    /**
+     * extracts bucket type from bytes without creating String, surrounding whitespace is ignored
+     *
+     * @param buffer bytes to read from
+     * @param from   index of first byte of value
+     * @param to     index after last byte of value
+     * @return BucketType or null if value is not a bucket type
+     */
+    public static BucketType extractBucketType(ByteBuffer buffer, int from, int to) {
+        from = skipLeadingWhitespace(buffer, from, to);
+        to = skipTrailingWhitespace(buffer, from, to);
+        for (int i = 0; i < BUCKET_TYPE_NAMES.length; i++) {
+            byte[] name = BUCKET_TYPE_NAMES[i];
+            if (name.length != to - from)
+                continue;
+            int j = 0;
+            while (j < name.length && buffer.get(from + j) == name[j])
+                j++;
+            if (j == name.length)
+                return BUCKET_TYPES[i];
+        }
+        return null;
+    }
+
+    /**
+     * extracts time of day in HH:mm, HH:mm:ss or HH:mm:ss.SSS format from bytes without creating String
+     *
+     * @param buffer bytes to read from
+     * @param from   index of first byte of value
+     * @param to     index after last byte of value
+     * @return milliseconds since midnight or INVALID_TIME if value is not a valid time
+     */
+    public static long extractTimeOfDay(ByteBuffer buffer, int from, int to) {
+        return extractTimeOfDay(buffer, null, from, to);
+    }
+
+    /**
+     * time of day parsing shared by byte and character input, exactly one of bytes or chars is passed
+     */
+    private static long extractTimeOfDay(ByteBuffer bytes, CharSequence chars, int from, int to) {
+        while (from < to && charAt(bytes, chars, from) <= ' ')
+            from++;
+        while (to > from && charAt(bytes, chars, to - 1) <= ' ')
+            to--;
+        int length = to - from;
+        if (length != 5 && length < 8)
+            return INVALID_TIME;
+        int hours = twoDigits(bytes, chars, from);
+        int minutes = twoDigits(bytes, chars, from + 3);
+        if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59 || charAt(bytes, chars, from + 2) != ':')
+            return INVALID_TIME;
+        long millis = hours * MILLIS_PER_HOUR + minutes * MILLIS_PER_MINUTE;
+        if (length == 5)
+            return millis;
+
+        int seconds = twoDigits(bytes, chars, from + 6);
+        if (seconds < 0 || seconds > 59 || charAt(bytes, chars, from + 5) != ':')
+            return INVALID_TIME;
+        millis += seconds * MILLIS_PER_SECOND;
+        if (length == 8)
+            return millis;
+
+        // fraction of second, 1 to 9 digits of which only milliseconds are kept
+        if (charAt(bytes, chars, from + 8) != '.' || length == 9 || length > 18)
+            return INVALID_TIME;
+        long fraction = 0;
+        for (int i = from + 9; i < to; i++) {
+            int digit = charAt(bytes, chars, i) - '0';
+            if (digit < 0 || digit > 9)
+                return INVALID_TIME;
+            if (i < from + 12)
+                fraction = fraction * 10 + digit;
+        }
+        for (int i = length; i < 12; i++) {
+            fraction *= 10;
+        }
+        return millis + fraction;
+    }
+
+    /**
+     * extracts double from bytes without creating String for plain decimal values,
+     * values with exponent or more than 15 significant digits fall back to Double.parseDouble
+     *
+     * @param buffer bytes to read from
+     * @param from   index of first byte of value
+     * @param to     index after last byte of value
+     * @return double value or -1 if value is not a number
+     */
+    public static double extractDouble(ByteBuffer buffer, int from, int to) {
+        from = skipLeadingWhitespace(buffer, from, to);
+        to = skipTrailingWhitespace(buffer, from, to);
+        if (from == to)
+            return -1;
+
+        int i = from;
+        boolean negative = false;
+        if (buffer.get(i) == '-' || buffer.get(i) == '+') {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int significantDigits = 0;
+        int decimalPlaces = 0;
+        boolean digitFound = false;
+        boolean decimalPoint = false;
+        for (; i < to; i++) {
+            byte b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                digitFound = true;
+                mantissa = mantissa * 10 + (b - '0');
+                if (mantissa != 0)
+                    significantDigits++;
+                if (decimalPoint)
+                    decimalPlaces++;
+                if (significantDigits > MAX_FAST_DOUBLE_DIGITS || decimalPlaces >= POWERS_OF_TEN.length)
+                    return extractDoubleSlowly(buffer, from, to);
+            } else if (b == '.' && !decimalPoint) {
+                decimalPoint = true;
+            } else {
+                return extractDoubleSlowly(buffer, from, to);
+            }
+        }
+        if (!digitFound)
+            return -1;
+        // mantissa and power of ten are both exact, so division gives correctly rounded result as Double.parseDouble
+        double value = mantissa / POWERS_OF_TEN[decimalPlaces];
+        return negative ? -value : value;
+    }
+
+    private static double extractDoubleSlowly(ByteBuffer buffer, int from, int to) {
+        Metrics.get().fallback(VolumeProfileMetrics.Fallback.DOUBLE_PARSING);
+        return extractDouble(decode(buffer, from, to));
+    }
+
+    /**
+     * decodes bytes as String, used to report errors and for slow parsing paths
+     */
+    public static String decode(ByteBuffer buffer, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        buffer.get(from, bytes);
+        return new String(bytes);
+    }
+
+    private static int charAt(ByteBuffer bytes, CharSequence chars, int index) {
+        return bytes != null ? bytes.get(index) : chars.charAt(index);
+    }
+
+    private static int twoDigits(ByteBuffer bytes, CharSequence chars, int index) {
+        int tens = charAt(bytes, chars, index) - '0';
+        int units = charAt(bytes, chars, index + 1) - '0';
+        if (tens < 0 || tens > 9 || units < 0 || units > 9)
+            return -1;
+        return tens * 10 + units;
+    }
+
+    private static int skipLeadingWhitespace(ByteBuffer buffer, int from, int to) {
+        while (from < to && buffer.get(from) <= ' ')
+            from++;
+        return from;
+    }
+
+    private static int skipTrailingWhitespace(ByteBuffer buffer, int from, int to) {
+        while (to > from && buffer.get(to - 1) <= ' ')
+            to--;
+        return to;
+    }
+
+    /**
+     * Date and zone to which times of day are anchored, immutable so it can be swapped atomically
+     */
+    private static final class Session {
+        private final LocalDate date;
+        private final ZoneId zone;
+        private final boolean explicit;
+        private final long midnight;
+        private final long nextMidnight;
+        /**
+         * true when zone offset changes during the date, time of day cannot be simply added to midnight
+         */
+        private final boolean offsetChangesOnDate;
+        /**
+         * offset of zone when it never changes, null otherwise
+         */
+        private final ZoneOffset fixedOffset;
+        /**
+         * trading day when session was set from calendar, null otherwise
+         */
+        private final SessionCalendar calendar;
+
+        private Session(LocalDate date, ZoneId zone, boolean explicit, SessionCalendar calendar) {
+            this.calendar = calendar;
+            this.date = date;
+            this.zone = zone;
+            this.explicit = explicit;
+            this.midnight = date.atStartOfDay(zone).toInstant().toEpochMilli();
+            this.nextMidnight = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+            this.offsetChangesOnDate = nextMidnight - midnight != MILLIS_PER_DAY
+                    || !zone.getRules().getOffset(Instant.ofEpochMilli(midnight)).equals(zone.getRules().getOffset(Instant.ofEpochMilli(nextMidnight - 1)));
+            ZoneRules rules = zone.getRules();
+            this.fixedOffset = rules.isFixedOffset() ? rules.getOffset(Instant.EPOCH) : null;
+        }
+
+        private long toEpochMillis(long timeOfDay) {
+            if (calendar != null)
+                return calendar.toEpochMillis(calendar.timeOfDayToOffset(timeOfDay));
+            if (!offsetChangesOnDate)
+                return midnight + timeOfDay;
+            LocalDateTime dt = date.atTime(LocalTime.ofNanoOfDay(timeOfDay * 1_000_000));
+            return dt.atZone(zone).toInstant().toEpochMilli();
+        }
+
+        private long offsetMillis(long epochMillis) {
+            ZoneOffset offset = fixedOffset != null ? fixedOffset : zone.getRules().getOffset(Instant.ofEpochMilli(epochMillis));
+            return offset.getTotalSeconds() * MILLIS_PER_SECOND;
+        }
+    }
 }
@@ -0,0 +1,193 @@
+package com.citi.volume.util;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.util.Arrays;
+
+/**
+ * Trading day of a market as a table of sessions, for example Hong Kong morning and afternoon sessions
+ * with lunch break in between, or an overnight session which closes after midnight.
+ * <p>
+ * Times within trading day are int millisecond offsets from open of first session, so converting epoch time
+ * to offset is one subtraction and comparing times is an int comparison. Open of trading day is fixed from
+ * trading date and zone of the market, so results are same on any host whatever its default zone or date is.
+ * Sessions may cross midnight, a time of day earlier than first open belongs to next calendar day.
+ * Immutable and safe to share between threads.
+ */
+public final class SessionCalendar {
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    private final LocalDate tradingDate;
+    private final ZoneId zone;
+    private final long openTimeOfDay;
+    private final long openEpochMillis;
+    /**
+     * true when zone offset does not change during the 24 hours from open, time of day converts to offset directly
+     */
+    private final boolean fixedOffsetDay;
+    private final int[] sessionOpens;
+    private final int[] sessionCloses;
+
+    /**
+     * @param tradingDate date on which first session opens
+     * @param zone        zone of the market
+     * @param sessionTimes open and close time of each session in order, close before open means close is after midnight
+     * @throws IllegalArgumentException when times are not pairs or sessions overlap or span more than a day
+     */
+    public SessionCalendar(LocalDate tradingDate, ZoneId zone, LocalTime... sessionTimes) {
+        if (sessionTimes.length == 0 || sessionTimes.length % 2 != 0)
+            throw new IllegalArgumentException("Session times must be pairs of open and close, " + Arrays.toString(sessionTimes));
+        this.tradingDate = tradingDate;
+        this.zone = zone;
+        this.openTimeOfDay = sessionTimes[0].toNanoOfDay() / 1_000_000;
+        this.openEpochMillis = tradingDate.atTime(sessionTimes[0]).atZone(zone).toInstant().toEpochMilli();
+        ZoneOffsetTransition transition = zone.getRules().nextTransition(Instant.ofEpochMilli(openEpochMillis));
+        this.fixedOffsetDay = transition == null || transition.toEpochSecond() * 1000 >= openEpochMillis + MILLIS_PER_DAY;
+
+        int sessions = sessionTimes.length / 2;
+        this.sessionOpens = new int[sessions];
+        this.sessionCloses = new int[sessions];
+        int previous = -1;
+        for (int i = 0; i < sessions; i++) {
+            sessionOpens[i] = toOffsetOfTimeOfDay(sessionTimes[2 * i].toNanoOfDay() / 1_000_000, i > 0);
+            sessionCloses[i] = toOffsetOfTimeOfDay(sessionTimes[2 * i + 1].toNanoOfDay() / 1_000_000, true);
+            if (sessionOpens[i] <= previous || sessionCloses[i] <= sessionOpens[i])
+                throw new IllegalArgumentException("Sessions must be in order and must not overlap, " + Arrays.toString(sessionTimes));
+            previous = sessionCloses[i];
+        }
+    }
+
+    /**
+     * Hong Kong securities market, opening auction from 09:00, lunch break 12:00 to 13:00 and closing auction until 16:10
+     */
+    public static SessionCalendar hongKong(LocalDate tradingDate) {
+        return new SessionCalendar(tradingDate, ZoneId.of("Asia/Hong_Kong"),
+                LocalTime.of(9, 0), LocalTime.of(12, 0), LocalTime.of(13, 0), LocalTime.of(16, 10));
+    }
+
+    public LocalDate getTradingDate() {
+        return tradingDate;
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * @return epoch milliseconds of open of first session, offset 0
+     */
+    public long getOpenEpochMillis() {
+        return openEpochMillis;
+    }
+
+    public int getSessionCount() {
+        return sessionOpens.length;
+    }
+
+    /**
+     * @return offset of open of session
+     */
+    public int getSessionOpen(int session) {
+        return sessionOpens[session];
+    }
+
+    /**
+     * @return offset of close of session
+     */
+    public int getSessionClose(int session) {
+        return sessionCloses[session];
+    }
+
+    /**
+     * @param epochMillis epoch time
+     * @return milliseconds since open of first session, negative before open
+     * @throws IllegalArgumentException when time is too far from open to fit in int
+     */
+    public int toOffset(long epochMillis) {
+        long offset = epochMillis - openEpochMillis;
+        if (offset != (int) offset)
+            throw new IllegalArgumentException("Time is too far from open of trading day, " + Instant.ofEpochMilli(epochMillis));
+        return (int) offset;
+    }
+
+    /**
+     * @param offset milliseconds since open of first session
+     * @return epoch milliseconds
+     */
+    public long toEpochMillis(int offset) {
+        return openEpochMillis + offset;
+    }
+
+    /**
+     * Converts wall clock time of day in market zone to offset, times earlier than first open are on next day
+     *
+     * @param timeOfDay milliseconds since midnight
+     * @return milliseconds since open of first session
+     */
+    public int timeOfDayToOffset(long timeOfDay) {
+        return toOffsetOfTimeOfDay(timeOfDay, false);
+    }
+
+    /**
+     * @param nextDayAtOpen whether time of day same as first open means open of next day
+     */
+    private int toOffsetOfTimeOfDay(long timeOfDay, boolean nextDayAtOpen) {
+        long sinceOpen = Math.floorMod(timeOfDay - openTimeOfDay, MILLIS_PER_DAY);
+        if (sinceOpen == 0 && nextDayAtOpen)
+            sinceOpen = MILLIS_PER_DAY;
+        if (fixedOffsetDay)
+            return (int) sinceOpen;
+        // zone offset changes during trading day, wall clock time has to be resolved with zone rules
+        LocalDate date = timeOfDay < openTimeOfDay || sinceOpen == MILLIS_PER_DAY ? tradingDate.plusDays(1) : tradingDate;
+        long epochMillis = date.atStartOfDay().plusNanos(Math.floorMod(timeOfDay, MILLIS_PER_DAY) * 1_000_000)
+                .atZone(zone).toInstant().toEpochMilli();
+        return toOffset(epochMillis);
+    }
+
+    /**
+     * @param offset milliseconds since open of first session
+     * @return index of session which is open at offset, -1 during breaks and outside trading day
+     */
+    public int sessionOf(int offset) {
+        for (int i = 0; i < sessionOpens.length; i++) {
+            if (offset < sessionOpens[i])
+                return -1;
+            if (offset < sessionCloses[i])
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * @return whether any session is open at offset
+     */
+    public boolean isOpen(int offset) {
+        return sessionOf(offset) != -1;
+    }
+
+    /**
+     * @param fromOffset start of time period
+     * @param toOffset   end of time period
+     * @return milliseconds within time period when a session is open, breaks are not counted
+     */
+    public long getTradingMillis(int fromOffset, int toOffset) {
+        long tradingMillis = 0;
+        for (int i = 0; i < sessionOpens.length; i++) {
+            tradingMillis += Math.max(0, Math.min(toOffset, sessionCloses[i]) - Math.max(fromOffset, sessionOpens[i]));
+        }
+        return tradingMillis;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("SessionCalendar{").append(tradingDate).append(' ').append(zone);
+        for (int i = 0; i < sessionOpens.length; i++) {
+            sb.append(", ").append(Instant.ofEpochMilli(toEpochMillis(sessionOpens[i])).atZone(zone).toLocalTime())
+                    .append('-').append(Instant.ofEpochMilli(toEpochMillis(sessionCloses[i])).atZone(zone).toLocalTime());
+        }
+        return sb.append('}').toString();
+    }
+}
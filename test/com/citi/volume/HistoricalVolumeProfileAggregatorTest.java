@@ -0,0 +1,91 @@
+package com.citi.volume;
+
+import com.citi.volume.data.Bucket;
+import com.citi.volume.data.BucketType;
+import com.citi.volume.data.HistoricalVolumes;
+import com.citi.volume.data.VolumeProfile;
+import com.citi.volume.data.exception.VolumeProfileValidationException;
+import com.citi.volume.util.ConstantUtils;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class HistoricalVolumeProfileAggregatorTest {
+
+    private static long time(String s){
+        return ConstantUtils.extractDateTime(s).getTime();
+    }
+
+    private static final VolumeProfile GRID = new VolumeProfile("TEST_SYMBOL", Arrays.stream(new Bucket[]{
+            new Bucket(time("24/08/2025 09:00:00"), time("24/08/2025 09:01:00"), 0, BucketType.Auction),
+            new Bucket(time("24/08/2025 09:01:00"), time("24/08/2025 09:02:00"), 0, BucketType.Continuous),
+    }).toList()
+    );
+
+    private static HistoricalVolumes volumes(String symbol) {
+        return new HistoricalVolumes(symbol, GRID, new double[][]{
+                {100, 300},   // 25%, 75%
+                {600, 400},   // 60%, 40%
+                {500, 500},   // 50%, 50%
+                {10, 40},     // half day, excluded as below half of median day volume
+        });
+    }
+
+    @Test
+    public void testAverage() {
+        VolumeProfile volumeProfile = new HistoricalVolumeProfileAggregator(HistoricalVolumeProfileAggregator.Method.AVERAGE).aggregate(volumes("A"));
+        assertEquals("A", volumeProfile.getSymbol());
+        assertEquals(45.0, volumeProfile.getPercentOfDayVolume(0), ConstantUtils.EPILSON);
+        assertEquals(55.0, volumeProfile.getPercentOfDayVolume(1), ConstantUtils.EPILSON);
+        assertEquals(BucketType.Auction, volumeProfile.getBucketType(0));
+    }
+
+    @Test
+    public void testMedian() {
+        VolumeProfile volumeProfile = new HistoricalVolumeProfileAggregator(HistoricalVolumeProfileAggregator.Method.MEDIAN).aggregate(volumes("A"));
+        assertEquals(50.0, volumeProfile.getPercentOfDayVolume(0), ConstantUtils.EPILSON);
+        assertEquals(50.0, volumeProfile.getPercentOfDayVolume(1), ConstantUtils.EPILSON);
+    }
+
+    @Test
+    public void testEwmaAndExcludedDays() {
+        HistoricalVolumeProfileAggregator aggregator = new HistoricalVolumeProfileAggregator(
+                HistoricalVolumeProfileAggregator.Method.EWMA, 0.5, 0.5, 3.0, ForkJoinPool.commonPool());
+        HistoricalVolumes historicalVolumes = volumes("A");
+        historicalVolumes.excludeDay(2);
+        // weights 1/3 and 2/3 for day 0 and day 1
+        VolumeProfile volumeProfile = aggregator.aggregate(historicalVolumes);
+        assertEquals(25.0 / 3 + 60.0 * 2 / 3, volumeProfile.getPercentOfDayVolume(0), ConstantUtils.EPILSON);
+    }
+
+    @Test
+    public void testAggregateAll() {
+        BulkLoadResult result = new HistoricalVolumeProfileAggregator(HistoricalVolumeProfileAggregator.Method.AVERAGE)
+                .aggregateAll(List.of(volumes("A"), new HistoricalVolumes("C", GRID, new double[][]{{0, 0}}), volumes("B")));
+        Map<String, VolumeProfile> volumeProfiles = result.getVolumeProfiles();
+        assertEquals(2, volumeProfiles.size());
+        assertEquals(45.0, volumeProfiles.get("B").getPercentOfDayVolume(0), ConstantUtils.EPILSON);
+        assertEquals(1, result.getErrors().size());
+        assertEquals("C", result.getErrors().getFirst().getSymbol());
+        assertEquals("No valid days to aggregate Volume Profile for C", result.getErrors().getFirst().getMessage());
+    }
+
+    @Test
+    public void testNoValidDays() {
+        HistoricalVolumes historicalVolumes = new HistoricalVolumes("A", GRID, new double[][]{{0, 0}});
+        Exception exception = assertThrows(VolumeProfileValidationException.class,
+                () -> new HistoricalVolumeProfileAggregator(HistoricalVolumeProfileAggregator.Method.AVERAGE).aggregate(historicalVolumes)
+        );
+        assertEquals("No valid days to aggregate Volume Profile for A", exception.getMessage());
+
+        assertThrows(IllegalArgumentException.class, () -> new HistoricalVolumes("A", GRID, new double[][]{{1}}));
+    }
+}
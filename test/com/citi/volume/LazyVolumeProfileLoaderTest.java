@@ -0,0 +1,180 @@
+package com.citi.volume;
+
+import com.citi.volume.data.VolumeProfile;
+import com.citi.volume.data.exception.VolumeProfileLoadingException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class LazyVolumeProfileLoaderTest {
+
+    private static Path createDirectory() throws IOException {
+        Path directory = Files.createTempDirectory("volume_profiles");
+        Files.copy(Path.of("9988_HK.csv"), directory.resolve("9988_HK.csv"));
+        Files.copy(Path.of("9988_HK.csv"), directory.resolve("0700_HK.csv"));
+        Files.copy(Path.of("error_buckettype.csv"), directory.resolve("0005_HK.csv"));
+        return directory;
+    }
+
+    @Test
+    public void testIndexWriteAndRead() throws IOException {
+        Path directory = createDirectory();
+        VolumeProfileIndex index = VolumeProfileIndex.build(directory.toString());
+        assertEquals(3, index.size());
+        assertEquals(List.of("0005_HK", "0700_HK", "9988_HK"), new ArrayList<>(index.symbols()));
+        assertEquals(Files.size(Path.of("9988_HK.csv")), index.get("9988_HK").getSize());
+        assertFalse(index.get("9988_HK").isStale());
+
+        Path indexFile = directory.resolve("index.txt");
+        index.write(indexFile);
+        VolumeProfileIndex readIndex = VolumeProfileIndex.read(indexFile);
+        assertEquals(index.symbols(), readIndex.symbols());
+        assertEquals(index.get("0700_HK").getFilename(), readIndex.get("0700_HK").getFilename());
+        assertEquals(index.get("0700_HK").getLastModified(), readIndex.get("0700_HK").getLastModified());
+        assertNull(readIndex.get("MISSING"));
+
+        Files.writeString(directory.resolve("0700_HK.csv"), "#changed\n", StandardOpenOption.APPEND);
+        assertTrue(readIndex.get("0700_HK").isStale());
+
+        Files.writeString(indexFile, "9988_HK,9988_HK.csv,size,1\n");
+        Exception invalid = assertThrows(VolumeProfileLoadingException.class, () -> VolumeProfileIndex.read(indexFile));
+        assertEquals("Invalid record found,9988_HK,9988_HK.csv,size,1", invalid.getMessage());
+        Exception fileNotFound = assertThrows(VolumeProfileLoadingException.class, () -> VolumeProfileIndex.read(Path.of("NoFile.txt")));
+        assertEquals("Cannot read, NoFile.txt", fileNotFound.getMessage());
+    }
+
+    @Test
+    public void testIndexWriteFailureDeletesTemporaryFile() throws IOException {
+        Path directory = createDirectory();
+        VolumeProfileIndex index = VolumeProfileIndex.build(directory.toString());
+        // index cannot replace a directory which is not empty
+        Path indexFile = Files.createDirectory(directory.resolve("index.txt"));
+        Files.writeString(indexFile.resolve("keep.txt"), "keep");
+        assertThrows(VolumeProfileLoadingException.class, () -> index.write(indexFile));
+        try (var files = Files.list(directory)) {
+            assertEquals(List.of("0005_HK.csv", "0700_HK.csv", "9988_HK.csv", "index.txt"),
+                    files.map(file -> file.getFileName().toString()).sorted().toList());
+        }
+    }
+
+    @Test
+    public void testLoadedOnFirstLookup() throws IOException {
+        VolumeProfileRegistry registry = new VolumeProfileRegistry();
+        LazyVolumeProfileLoader lazyLoader = new LazyVolumeProfileLoader(VolumeProfileIndex.build(createDirectory().toString()),
+                new MappedVolumeProfileCSVFileLoader(), registry);
+        assertFalse(lazyLoader.isLoaded("9988_HK"));
+        assertEquals(0, registry.size());
+
+        VolumeProfile volumeProfile = lazyLoader.get("9988_HK");
+        assertEquals(399, volumeProfile.size());
+        assertSame(volumeProfile, lazyLoader.get("9988_HK"));
+        assertSame(volumeProfile, registry.get("9988_HK"));
+        assertTrue(lazyLoader.isLoaded("9988_HK"));
+        assertFalse(lazyLoader.isLoaded("0700_HK"));
+        assertNull(lazyLoader.get("MISSING"));
+
+        Exception exception = assertThrows(VolumeProfileLoadingException.class, () -> lazyLoader.get("0005_HK"));
+        assertEquals("Invalid Bucket Type in line, 09:00:00,09:30:00,10,AUC", exception.getMessage());
+        assertFalse(lazyLoader.isLoaded("0005_HK"));
+        assertEquals(1, lazyLoader.loadedCount());
+
+        lazyLoader.evict("9988_HK");
+        assertNotSame(volumeProfile, lazyLoader.get("9988_HK"));
+    }
+
+    @Test
+    public void testStaleFileNotLoaded() throws IOException {
+        Path directory = createDirectory();
+        LazyVolumeProfileLoader lazyLoader = new LazyVolumeProfileLoader(VolumeProfileIndex.build(directory.toString()),
+                new MappedVolumeProfileCSVFileLoader(), null);
+        Files.writeString(directory.resolve("0700_HK.csv"), "#changed\n", StandardOpenOption.APPEND);
+        Exception exception = assertThrows(VolumeProfileLoadingException.class, () -> lazyLoader.get("0700_HK"));
+        assertEquals("File changed since index was built, " + directory.resolve("0700_HK.csv"), exception.getMessage());
+        assertFalse(lazyLoader.isLoaded("0700_HK"));
+        assertEquals(399, lazyLoader.get("9988_HK").size());
+    }
+
+    @Test
+    public void testErrorDuringLoadNotKept() throws IOException {
+        AtomicInteger loads = new AtomicInteger();
+        VolumeProfileCSVFileLoader failingLoader = new VolumeProfileCSVFileLoader() {
+            @Override
+            protected VolumeProfile readVolumeProfile(String symbol, String filename) {
+                if (loads.incrementAndGet() == 1)
+                    throw new OutOfMemoryError("test");
+                return super.readVolumeProfile(symbol, filename);
+            }
+        };
+        LazyVolumeProfileLoader lazyLoader = new LazyVolumeProfileLoader(VolumeProfileIndex.build(createDirectory().toString()),
+                failingLoader, null);
+        assertThrows(OutOfMemoryError.class, () -> lazyLoader.get("9988_HK"));
+        assertFalse(lazyLoader.isLoaded("9988_HK"));
+        assertEquals(399, lazyLoader.get("9988_HK").size());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testConcurrentLookupsShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        VolumeProfileCSVFileLoader slowLoader = new VolumeProfileCSVFileLoader() {
+            @Override
+            protected VolumeProfile readVolumeProfile(String symbol, String filename) {
+                loads.incrementAndGet();
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.readVolumeProfile(symbol, filename);
+            }
+        };
+        LazyVolumeProfileLoader lazyLoader = new LazyVolumeProfileLoader(VolumeProfileIndex.build(createDirectory().toString()),
+                slowLoader, null);
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            List<Future<VolumeProfile>> lookups = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                lookups.add(executor.submit(() -> lazyLoader.get("9988_HK")));
+            }
+            started.await();
+            release.countDown();
+            VolumeProfile first = lookups.getFirst().get();
+            for (Future<VolumeProfile> lookup : lookups) {
+                assertSame(first, lookup.get());
+            }
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testPrefetchWatchlist() throws Exception {
+        LazyVolumeProfileLoader lazyLoader = new LazyVolumeProfileLoader(VolumeProfileIndex.build(createDirectory().toString()),
+                new MappedVolumeProfileCSVFileLoader(), null);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            BulkLoadResult result = lazyLoader.prefetch(List.of("9988_HK", "0700_HK", "0005_HK", "MISSING"), executor).get();
+            assertEquals(2, result.getVolumeProfiles().size());
+            assertEquals(2, result.getErrors().size());
+            assertEquals("0005_HK", result.getErrors().get(0).getSymbol());
+            assertEquals("Symbol not found in index, MISSING", result.getErrors().get(1).getMessage());
+        }
+        assertTrue(lazyLoader.isLoaded("0700_HK"));
+        assertSame(lazyLoader.get("9988_HK"), lazyLoader.get("9988_HK"));
+    }
+}
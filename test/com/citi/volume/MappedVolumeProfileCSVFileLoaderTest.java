@@ -0,0 +1,101 @@
+package com.citi.volume;
+
+import com.citi.volume.data.VolumeProfile;
+import com.citi.volume.data.exception.VolumeProfileLoadingException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class MappedVolumeProfileCSVFileLoaderTest {
+
+    @Test
+    public void testLoadVolumeProfileErrors() {
+        MappedVolumeProfileCSVFileLoader loader = new MappedVolumeProfileCSVFileLoader();
+        Exception fileNotFound = assertThrows(VolumeProfileLoadingException.class,
+                () -> loader.loadVolumeProfile("HK", "NoFile.csv")
+        );
+        assertEquals("Cannot read, NoFile.csv", fileNotFound.getMessage());
+
+        Exception invalid = assertThrows(VolumeProfileLoadingException.class,
+                () -> loader.loadVolumeProfile("HK", "error_file.csv")
+        );
+        assertEquals("Invalid record found,,09:30:00,2.03355251671", invalid.getMessage());
+
+        Exception errorStartTime = assertThrows(VolumeProfileLoadingException.class,
+                () -> loader.loadVolumeProfile("HK", "error_starttime.csv")
+        );
+        assertEquals("Invalid start time in line, ,09:30:00,2.03355251671,Auction", errorStartTime.getMessage());
+
+        Exception errorEndTime = assertThrows(VolumeProfileLoadingException.class,
+                () -> loader.loadVolumeProfile("HK", "error_endtime.csv")
+        );
+        assertEquals("Invalid end time in line, 09:30:00,,2.03355251671,Auction", errorEndTime.getMessage());
+
+        Exception errorStartEndTime = assertThrows(VolumeProfileLoadingException.class,
+                () -> loader.loadVolumeProfile("HK", "error_start_endtime.csv")
+        );
+        assertEquals("Start time is before or same as end time in line, 09:30:00,09:30:00,2.03355251671,Auction", errorStartEndTime.getMessage());
+
+        Exception errorPercentOfDayVolume = assertThrows(VolumeProfileLoadingException.class,
+                () -> loader.loadVolumeProfile("HK", "error_percentofdayvolume.csv")
+        );
+        assertEquals("Invalid percentOfDayVolume in line, 09:00:00,09:30:00,-1,Auction", errorPercentOfDayVolume.getMessage());
+
+        Exception errorBucketType = assertThrows(VolumeProfileLoadingException.class,
+                () -> loader.loadVolumeProfile("HK", "error_buckettype.csv")
+        );
+        assertEquals("Invalid Bucket Type in line, 09:00:00,09:30:00,10,AUC", errorBucketType.getMessage());
+    }
+
+    @Test
+    public void testLoadVolumeProfileSameAsReaderLoader() {
+        VolumeProfile expected = new VolumeProfileCSVFileLoader().loadVolumeProfile("9988_HK", "9988_HK.csv");
+        VolumeProfile volumeProfile = new MappedVolumeProfileCSVFileLoader().loadVolumeProfile("9988_HK", "9988_HK.csv");
+        assertEquals("9988_HK", volumeProfile.getSymbol());
+        assertEquals(399, volumeProfile.size());
+        assertEquals(expected.toMultiLineString(), volumeProfile.toMultiLineString());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.getStartTime(i), volumeProfile.getStartTime(i));
+            assertEquals(expected.getEndTime(i), volumeProfile.getEndTime(i));
+            assertEquals(expected.getPercentOfDayVolume(i), volumeProfile.getPercentOfDayVolume(i), 0.0);
+        }
+    }
+
+    @Test
+    public void testLoadVolumeProfileWithWindowsLineEndings() throws IOException {
+        File file = File.createTempFile("volume_profile", ".csv");
+        file.deleteOnExit();
+        Files.writeString(file.toPath(), "#StartTime,EndTime,PercentOfDayVolume,BucketType\r\n"
+                + "09:00:00,09:30:00,40,Auction\r\n"
+                + "09:30:00,09:31:00, 60.0 ,Continuous,extra\r\n");
+
+        VolumeProfile volumeProfile = new MappedVolumeProfileCSVFileLoader().loadVolumeProfile("HK", file.getPath());
+        assertEquals(2, volumeProfile.size());
+        assertEquals(60.0, volumeProfile.getPercentOfDayVolume(1), 0.0);
+    }
+
+    @Test
+    public void testLoadMappedVolumeProfileSameAsReaderLoader() throws IOException {
+        File file = File.createTempFile("volume_profile", ".csv");
+        file.deleteOnExit();
+        // comments make file large enough to be memory mapped instead of read into heap buffer
+        String comment = "#" + "x".repeat(1022) + "\n";
+        Files.writeString(file.toPath(), comment.repeat(MappedVolumeProfileCSVFileLoader.MAP_THRESHOLD / comment.length())
+                + Files.readString(Path.of("9988_HK.csv")));
+        assertTrue(file.length() >= MappedVolumeProfileCSVFileLoader.MAP_THRESHOLD);
+
+        VolumeProfile expected = new VolumeProfileCSVFileLoader().loadVolumeProfile("9988_HK", "9988_HK.csv");
+        VolumeProfile volumeProfile = new MappedVolumeProfileCSVFileLoader().loadVolumeProfile("9988_HK", file.getPath());
+        assertEquals(expected.toMultiLineString(), volumeProfile.toMultiLineString());
+    }
+}
@@ -0,0 +1,258 @@
+package com.citi.volume;
+
+import com.citi.volume.data.VolumeProfile;
+import com.citi.volume.data.VolumeProfileBuffer;
+import com.citi.volume.data.VolumeProfileView;
+import com.citi.volume.data.exception.VolumeProfileLoadingException;
+import com.citi.volume.util.ConstantUtils;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class SharedVolumeProfileStoreTest {
+    private static final long CAPACITY = 1024 * 1024;
+    private static final long MINUTE = 60_000;
+
+    private final VolumeProfile volumeProfile = new VolumeProfileCSVFileLoader().loadVolumeProfile("9988_HK", "9988_HK.csv");
+
+    @Test
+    public void testViewMatchesVolumeProfile() throws IOException {
+        VolumeProfile otherVolumeProfile = new VolumeProfileCSVFileLoader().loadVolumeProfile("0700_HK", "9988_HK.csv")
+                .getCumulativeVolumeProfile(volumeProfile.getStartTime(10), volumeProfile.getEndTime(20));
+        Path file = Files.createTempDirectory("shared").resolve("profiles");
+        try (SharedVolumeProfileStore writer = SharedVolumeProfileStore.openForWriting(file, CAPACITY);
+             SharedVolumeProfileStore reader = SharedVolumeProfileStore.attach(file)) {
+            writer.publish(List.of(volumeProfile, otherVolumeProfile));
+            assertEquals(List.of("0700_HK", "9988_HK"), reader.symbols());
+            assertFalse(reader.isWritable());
+            assertThrows(IllegalStateException.class, () -> reader.publish(List.of(volumeProfile)));
+
+            SharedVolumeProfileView view = reader.view("9988_HK");
+            assertTrue(view.isPresent());
+            assertEquals(volumeProfile.size(), view.size());
+            assertEquals(volumeProfile.getTotalPercentOfDayVolume(), view.getTotalPercentOfDayVolume(), 0.0);
+            assertEquals(volumeProfile.getStartTime(5), view.getStartTime(5));
+            assertEquals(volumeProfile.getEndTime(5), view.getEndTime(5));
+            assertEquals(volumeProfile.getPercentOfDayVolume(5), view.getPercentOfDayVolume(5), 0.0);
+            assertEquals(volumeProfile.getBucketType(0), view.getBucketType(0));
+            assertThrows(IndexOutOfBoundsException.class, () -> view.getStartTime(volumeProfile.size()));
+
+            long dayStart = volumeProfile.getStartTime(0) - MINUTE;
+            long dayEnd = volumeProfile.getEndTime(volumeProfile.size() - 1) + MINUTE;
+            for (long start = dayStart; start < dayEnd; start += 7 * MINUTE + 13_000) {
+                for (long end = start; end < dayEnd; end += 11 * MINUTE + 17_000) {
+                    assertEquals(volumeProfile.getTargetPercentForTimePeriod(start, end), view.getTargetPercentForTimePeriod(start, end), 0.0);
+                }
+                assertEquals(volumeProfile.getCumulativePercentUpTo(start), view.getCumulativePercentUpTo(start), 0.0);
+            }
+            assertEquals(volumeProfile.toMultiLineString(), view.toVolumeProfile().toMultiLineString());
+
+            // windows are same through shared query interface
+            for (VolumeProfileView profile : List.<VolumeProfileView>of(volumeProfile, view)) {
+                long start = volumeProfile.getStartTime(3) + 20_000;
+                long end = volumeProfile.getEndTime(30) - 10_000;
+                assertEquals(volumeProfile.getCumulativeVolumeProfile(start, end).toMultiLineString(),
+                        profile.getCumulativeVolumeProfile(start, end).toMultiLineString());
+                assertEquals(volumeProfile.getCumulativePercent(10), profile.getCumulativePercent(10), 0.0);
+                double[] visited = new double[1];
+                assertEquals(28, profile.forEachBucket(start, end, (bucketStart, bucketEnd, percent, type) -> visited[0] += percent));
+                assertEquals(volumeProfile.getTargetPercentForTimePeriod(start, end), visited[0], 0.0000001);
+                VolumeProfileBuffer buffer = profile.getCumulativeVolumeProfile(start, end, new VolumeProfileBuffer());
+                assertEquals(28, buffer.size());
+                assertEquals("9988_HK", buffer.getSymbol());
+            }
+            assertEquals(otherVolumeProfile.toMultiLineString(), reader.view("0700_HK").toVolumeProfile().toMultiLineString());
+
+            SharedVolumeProfileView missing = reader.view("0005_HK");
+            assertFalse(missing.isPresent());
+            assertEquals(0, missing.size());
+            assertEquals(0.0, missing.getTargetPercentForTimePeriod(dayStart, dayEnd), 0.0);
+        }
+    }
+
+    @Test
+    public void testViewFollowsPublish() throws IOException {
+        Path file = Files.createTempDirectory("shared").resolve("profiles");
+        try (SharedVolumeProfileStore writer = SharedVolumeProfileStore.openForWriting(file, CAPACITY);
+             SharedVolumeProfileStore reader = SharedVolumeProfileStore.attach(file)) {
+            SharedVolumeProfileView view = reader.view("9988_HK");
+            assertFalse(view.isPresent());
+
+            long sequence = writer.publish(List.of(volumeProfile));
+            assertEquals(sequence, reader.getSequence());
+            assertEquals(volumeProfile.size(), view.size());
+
+            VolumeProfile shorter = volumeProfile.getCumulativeVolumeProfile(volumeProfile.getStartTime(0), volumeProfile.getEndTime(3));
+            writer.publish(List.of(shorter));
+            assertEquals(4, view.size());
+            assertEquals(shorter.getTotalPercentOfDayVolume(), view.getTotalPercentOfDayVolume(), 0.0);
+        }
+
+        // existing store is reused by new writer and keeps its data
+        try (SharedVolumeProfileStore writer = SharedVolumeProfileStore.openForWriting(file, CAPACITY)) {
+            assertEquals(4, writer.view("9988_HK").size());
+        }
+    }
+
+    @Test
+    public void testErrors() throws IOException {
+        Path file = Files.createTempDirectory("shared").resolve("profiles");
+        try (SharedVolumeProfileStore writer = SharedVolumeProfileStore.openForWriting(file, 256)) {
+            Exception tooSmall = assertThrows(VolumeProfileLoadingException.class, () -> writer.publish(List.of(volumeProfile)));
+            assertTrue(tooSmall.getMessage().startsWith("Shared store too small, needs "));
+            assertTrue(tooSmall.getMessage().endsWith(" bytes, " + file));
+            assertThrows(IllegalArgumentException.class, () -> writer.publish(List.of(volumeProfile, volumeProfile)));
+        }
+
+        Exception fileNotFound = assertThrows(VolumeProfileLoadingException.class,
+                () -> SharedVolumeProfileStore.attach(Path.of("NoFile.bin"))
+        );
+        assertEquals("Cannot read, NoFile.bin", fileNotFound.getMessage());
+
+        Exception invalid = assertThrows(VolumeProfileLoadingException.class,
+                () -> SharedVolumeProfileStore.attach(Path.of("9988_HK.csv"))
+        );
+        assertEquals("Invalid shared store file, 9988_HK.csv", invalid.getMessage());
+    }
+
+    @Test
+    public void testReadersNeverSeePartialPublish() throws Exception {
+        VolumeProfile morning = volumeProfile.getCumulativeVolumeProfile(volumeProfile.getStartTime(0), volumeProfile.getEndTime(40));
+        Path file = Files.createTempDirectory("shared").resolve("profiles");
+        try (SharedVolumeProfileStore writer = SharedVolumeProfileStore.openForWriting(file, CAPACITY);
+             SharedVolumeProfileStore reader = SharedVolumeProfileStore.attach(file)) {
+            writer.publish(List.of(volumeProfile));
+            AtomicBoolean running = new AtomicBoolean(true);
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            Thread readerThread = new Thread(() -> {
+                SharedVolumeProfileView view = reader.view("9988_HK");
+                try {
+                    while (running.get()) {
+                        double total = view.getTotalPercentOfDayVolume();
+                        if (total != volumeProfile.getTotalPercentOfDayVolume() && total != morning.getTotalPercentOfDayVolume())
+                            throw new AssertionError("Partial publish read, " + total);
+                        VolumeProfile copy = view.toVolumeProfile();
+                        if (copy.size() != volumeProfile.size() && copy.size() != morning.size())
+                            throw new AssertionError("Partial publish copied, " + copy.size());
+                    }
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+            readerThread.start();
+            for (int i = 0; i < 2000; i++) {
+                writer.publish(List.of(i % 2 == 0 ? morning : volumeProfile));
+            }
+            running.set(false);
+            readerThread.join();
+            assertNull(failure.get());
+        }
+    }
+
+    @Test
+    public void testTornPublishIsNeverRead() throws IOException {
+        Path file = Files.createTempDirectory("shared").resolve("profiles");
+        long sequence;
+        try (SharedVolumeProfileStore writer = SharedVolumeProfileStore.openForWriting(file, CAPACITY)) {
+            sequence = writer.publish(List.of(volumeProfile));
+        }
+
+        // writer dies in the middle of next publish, sequence is left odd with junk in index and columns
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, CAPACITY);
+            buffer.putLong(16, sequence + 1);
+            buffer.putInt(24, 1000);
+            for (int position = SharedVolumeProfileStore.HEADER_SIZE; position < 4096; position += Long.BYTES) {
+                buffer.putLong(position, 0x7F7F7F7F7F7F7F7FL);
+            }
+            buffer.force();
+        }
+
+        try (SharedVolumeProfileStore reader = SharedVolumeProfileStore.attach(file, 50)) {
+            Exception timeout = assertThrows(VolumeProfileLoadingException.class, reader::symbols);
+            assertEquals("Publish did not finish, writer may have died, " + file, timeout.getMessage());
+            assertThrows(VolumeProfileLoadingException.class, () -> reader.view("9988_HK").size());
+
+            try (SharedVolumeProfileStore writer = SharedVolumeProfileStore.openForWriting(file, CAPACITY)) {
+                assertEquals(List.of(), reader.symbols());
+                assertFalse(reader.view("9988_HK").isPresent());
+                assertEquals(0.0, reader.view("9988_HK").getTargetPercentForTimePeriod(volumeProfile.getStartTime(0),
+                        volumeProfile.getEndTime(volumeProfile.size() - 1)), 0.0);
+
+                writer.publish(List.of(volumeProfile));
+                assertEquals(volumeProfile.size(), reader.view("9988_HK").size());
+            }
+        }
+    }
+
+    @Test
+    public void testReopenKeepsSequenceAndCapacity() throws IOException {
+        Path file = Files.createTempDirectory("shared").resolve("profiles");
+        long sequence;
+        try (SharedVolumeProfileStore writer = SharedVolumeProfileStore.openForWriting(file, CAPACITY)) {
+            writer.publish(List.of(volumeProfile));
+            sequence = writer.publish(List.of(volumeProfile));
+        }
+
+        // store left by an older version is emptied, sequence goes on so readers of old data see it changed
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, CAPACITY);
+            buffer.putInt(4, SharedVolumeProfileStore.VERSION - 1);
+            buffer.force();
+        }
+        try (SharedVolumeProfileStore writer = SharedVolumeProfileStore.openForWriting(file, CAPACITY)) {
+            assertEquals(sequence + 2, writer.getSequence());
+            assertEquals(List.of(), writer.symbols());
+            assertEquals(sequence + 4, writer.publish(List.of(volumeProfile)));
+        }
+
+        Exception otherCapacity = assertThrows(VolumeProfileLoadingException.class,
+                () -> SharedVolumeProfileStore.openForWriting(file, CAPACITY / 2)
+        );
+        assertEquals("Shared store has capacity " + CAPACITY + ", not " + CAPACITY / 2 + ", " + file, otherCapacity.getMessage());
+        assertEquals(CAPACITY, Files.size(file));
+    }
+
+    @Test
+    public void testStoreIsReadOnNextTradingDay() throws IOException {
+        ZoneId hongKong = ZoneId.of("Asia/Hong_Kong");
+        Path file = Files.createTempDirectory("shared").resolve("profiles");
+        try {
+            ConstantUtils.setSession(LocalDate.of(2025, 8, 22), hongKong);
+            VolumeProfile friday = new VolumeProfileCSVFileLoader().loadVolumeProfile("9988_HK", "9988_HK.csv");
+            try (SharedVolumeProfileStore writer = SharedVolumeProfileStore.openForWriting(file, CAPACITY)) {
+                writer.publish(List.of(friday));
+            }
+
+            // writer is gone, reader on monday reads profile anchored to monday
+            ConstantUtils.setSession(LocalDate.of(2025, 8, 25), hongKong);
+            VolumeProfile monday = new VolumeProfileCSVFileLoader().loadVolumeProfile("9988_HK", "9988_HK.csv");
+            try (SharedVolumeProfileStore reader = SharedVolumeProfileStore.attach(file)) {
+                SharedVolumeProfileView view = reader.view("9988_HK");
+                assertEquals(monday.getStartTime(0), view.getStartTime(0));
+                long start = ConstantUtils.extractTimeMillis("10:00:00");
+                long end = ConstantUtils.extractTimeMillis("11:00:00");
+                assertTrue(view.getTargetPercentForTimePeriod(start, end) > 0);
+                assertEquals(monday.getTargetPercentForTimePeriod(start, end), view.getTargetPercentForTimePeriod(start, end), 0.0);
+                assertEquals(monday.toMultiLineString(), view.toVolumeProfile().toMultiLineString());
+            }
+        } finally {
+            ConstantUtils.resetSession();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.citi.volume;
+
+import com.citi.volume.data.VolumeProfile;
+import com.citi.volume.util.ConstantUtils;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class VolumeForecasterTest {
+    private static final VolumeProfile VOLUME_PROFILE = new VolumeProfileCSVFileLoader().loadVolumeProfile("9988_HK", "9988_HK.csv");
+
+    @Test
+    public void testPredictions() {
+        VolumeForecaster forecaster = new VolumeForecaster();
+        long now = ConstantUtils.extractTimeMillis("09:35:00");
+        // 2.03355251671 + 1.16360116965 + 0.49560281387 + 0.48900394145 + 0.26972891007 + 0.36321293599 expected by 09:35
+        double expectedPercent = 4.81470228774;
+        double tradedVolume = 481470.228774;
+
+        assertEquals(10_000_000, forecaster.predictDayVolume(VOLUME_PROFILE, tradedVolume, now, 1), 1e-3);
+        assertEquals(10_000_000 - tradedVolume, forecaster.predictRemainingVolume(VOLUME_PROFILE, tradedVolume, now, 1), 1e-3);
+        assertEquals(29364.982259, forecaster.predictWindowVolume(VOLUME_PROFILE, tradedVolume, now, now,
+                ConstantUtils.extractTimeMillis("09:36:00"), 1), 1e-3);
+        assertEquals(expectedPercent, VOLUME_PROFILE.getCumulativePercentUpTo(now), ConstantUtils.EPILSON);
+
+        // before enough is expected to trade, fallback volume is used
+        assertEquals(5_000_000, forecaster.predictDayVolume(VOLUME_PROFILE, 0, ConstantUtils.extractTimeMillis("08:59:00"), 5_000_000), 0.0);
+    }
+
+    @Test
+    public void testAuctionNotExpectedBeforeItEnds() {
+        VolumeForecaster forecaster = new VolumeForecaster();
+
+        // opening auction has not uncrossed, nothing is expected yet so fallback is used
+        long openingAuction = ConstantUtils.extractTimeMillis("09:10:00");
+        assertEquals(5_000_000, forecaster.predictDayVolume(VOLUME_PROFILE, 0, openingAuction, 5_000_000), 0.0);
+        assertEquals(5_000_000, forecaster.predictRemainingVolume(VOLUME_PROFILE, 0, openingAuction, 5_000_000), 1e-6);
+
+        // in closing auction all continuous volume is expected, closing auction is still remaining
+        long closingAuction = ConstantUtils.extractTimeMillis("16:07:30");
+        double total = VOLUME_PROFILE.getTotalPercentOfDayVolume();
+        double closingAuctionPercent = 5.78982316397;
+        double tradedVolume = 10_000_000 * (total - closingAuctionPercent) / total;
+        assertEquals(10_000_000, forecaster.predictDayVolume(VOLUME_PROFILE, tradedVolume, closingAuction, 1), 1e-3);
+        assertEquals(10_000_000 * closingAuctionPercent / total,
+                forecaster.predictRemainingVolume(VOLUME_PROFILE, tradedVolume, closingAuction, 1), 1e-3);
+    }
+
+    @Test
+    public void testPredictDayVolumes() {
+        VolumeProfileRegistry registry = new VolumeProfileRegistry();
+        registry.put(VOLUME_PROFILE);
+        double[] predicted = new double[2];
+        new VolumeForecaster().predictDayVolumes(registry, new String[]{"9988_HK", "0700_HK"}, new double[]{481470.228774, 100},
+                ConstantUtils.extractTimeMillis("09:35:00"), new double[]{1, 1}, predicted);
+        assertEquals(10_000_000, predicted[0], 1e-3);
+        assertTrue(Double.isNaN(predicted[1]));
+    }
+}
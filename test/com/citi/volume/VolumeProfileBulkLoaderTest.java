@@ -0,0 +1,89 @@
+package com.citi.volume;
+
+import com.citi.volume.data.exception.VolumeProfileLoadingException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class VolumeProfileBulkLoaderTest {
+
+    @Test
+    public void testLoadDirectory() throws IOException {
+        Path directory = Files.createTempDirectory("volume_profiles");
+        Files.copy(Path.of("9988_HK.csv"), directory.resolve("9988_HK.csv"));
+        Files.copy(Path.of("9988_HK.csv"), directory.resolve("0700_HK.csv"));
+        Files.copy(Path.of("error_buckettype.csv"), directory.resolve("0005_HK.csv"));
+        Files.writeString(directory.resolve("notes.txt"), "not a profile");
+
+        BulkLoadResult result = new VolumeProfileBulkLoader().loadDirectory(directory.toString());
+        assertEquals(2, result.getVolumeProfiles().size());
+        assertEquals(399, result.getVolumeProfiles().get("0700_HK").size());
+        assertEquals("9988_HK", result.getVolumeProfiles().get("9988_HK").getSymbol());
+        assertTrue(result.hasErrors());
+        assertEquals(1, result.getErrors().size());
+        assertEquals("0005_HK", result.getErrors().getFirst().getSymbol());
+        assertEquals("Invalid Bucket Type in line, 09:00:00,09:30:00,10,AUC", result.getErrors().getFirst().getMessage());
+    }
+
+    @Test
+    public void testDefaultExecutorIsNotCommonPool() throws Exception {
+        Thread thread = CompletableFuture.supplyAsync(Thread::currentThread, VolumeProfileBulkLoader.defaultExecutor()).get();
+        assertTrue(thread.getName().startsWith("VolumeProfileBulkLoader-io-"));
+        assertTrue(thread.isDaemon());
+        assertSame(VolumeProfileBulkLoader.defaultExecutor(), VolumeProfileBulkLoader.defaultExecutor());
+        assertFalse(VolumeProfileBulkLoader.defaultExecutor() instanceof ExecutorService);
+    }
+
+    @Test
+    public void testLoadManifestOnVirtualThreads() {
+        Map<String, String> manifest = new LinkedHashMap<>();
+        manifest.put("9988_HK", "9988_HK.csv");
+        manifest.put("MISSING", "NoFile.csv");
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            BulkLoadResult result = new VolumeProfileBulkLoader(new VolumeProfileCSVFileLoader(), executor).loadVolumeProfiles(manifest);
+            assertEquals(1, result.getVolumeProfiles().size());
+            assertEquals("Cannot read, NoFile.csv", result.getErrors().getFirst().getMessage());
+            assertEquals("NoFile.csv", result.getErrors().getFirst().getFilename());
+        }
+    }
+
+    @Test
+    public void testLoadDirectoryErrors() {
+        Exception exception = assertThrows(VolumeProfileLoadingException.class,
+                () -> new VolumeProfileBulkLoader().loadDirectory("NoDirectory")
+        );
+        assertEquals("Cannot read, NoDirectory", exception.getMessage());
+    }
+
+    @Test
+    public void testValidateDirectory() throws IOException {
+        Path directory = Files.createTempDirectory("volume_profiles");
+        Files.copy(Path.of("9988_HK.csv"), directory.resolve("9988_HK.csv"));
+        Files.copy(Path.of("error_buckettype.csv"), directory.resolve("0005_HK.csv"));
+        Files.copy(Path.of("error_file.csv"), directory.resolve("0700_HK.csv"));
+
+        ValidationReport report = new VolumeProfileBulkLoader().validateDirectory(directory.toString());
+        assertEquals(3, report.getFiles().size());
+        assertFalse(report.isValid());
+        assertEquals(2, report.getInvalidFiles().size());
+        // bad row and total of 100 are both reported for each bad file
+        assertEquals(4, report.getProblemCount());
+        for (ValidationReport.FileReport file : report.getInvalidFiles()) {
+            assertEquals(2, file.getProblems().get(0).getLineNumber());
+            assertEquals(ValidationReport.Problem.WHOLE_FILE, file.getProblems().get(1).getLineNumber());
+        }
+        assertTrue(report.toString().contains("0005_HK.csv:2 Invalid Bucket Type in line, 09:00:00,09:30:00,10,AUC"));
+    }
+}
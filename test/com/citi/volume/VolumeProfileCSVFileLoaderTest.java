@@ -9,6 +9,11 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
 @RunWith(JUnit4.class)
 public class VolumeProfileCSVFileLoaderTest {
 
@@ -149,4 +154,43 @@ public class VolumeProfileCSVFileLoaderTest {
         assertEquals(62,subProfile.getBuckets().size());
     }
 
+    @Test
+    public void testValidateVolumeProfileReportsAllProblems() throws IOException {
+        Path file = Files.createTempFile("HK", ".csv");
+        Files.writeString(file, """
+                #StartTime,EndTime,PercentOfDayVolume,BucketType
+                09:00:00,09:30:00,2.03355251671,Auction
+                ,09:31:00,x,AUC
+                09:29:00,09:32:00,10,Continuous
+                09:32:00,09:33:00
+                09:33:00,09:33:00,5,Continuous
+                """);
+        VolumeProfileCSVFileLoader volumeProfileCSVFileLoader = new VolumeProfileCSVFileLoader();
+        ValidationReport.FileReport report = volumeProfileCSVFileLoader.validateVolumeProfile("HK", file.toString());
+        assertFalse(report.isValid());
+        assertEquals(5, report.getRowCount());
+        List<ValidationReport.Problem> problems = report.getProblems();
+        assertEquals(7, problems.size());
+        assertEquals("3: Invalid start time in line, ,09:31:00,x,AUC", problems.get(0).toString());
+        assertEquals("3: Invalid percentOfDayVolume in line, ,09:31:00,x,AUC", problems.get(1).toString());
+        assertEquals("3: Invalid Bucket Type in line, ,09:31:00,x,AUC", problems.get(2).toString());
+        assertEquals(4, problems.get(3).getLineNumber());
+        assertTrue(problems.get(3).getMessage().startsWith("Overlapping buckets found in Volume Profile,"));
+        assertEquals("5: Invalid record found,09:32:00,09:33:00", problems.get(4).toString());
+        assertEquals("6: Start time is before or same as end time in line, 09:33:00,09:33:00,5,Continuous", problems.get(5).toString());
+        assertEquals(ValidationReport.Problem.WHOLE_FILE, problems.get(6).getLineNumber());
+        assertEquals("Total percentages in all buckets do not total to 100.0," + (2.03355251671 + 10 + 5), problems.get(6).getMessage());
+
+        // strict loader still stops at first problem
+        Exception exception = assertThrows(VolumeProfileLoadingException.class,
+                () -> volumeProfileCSVFileLoader.loadVolumeProfile("HK", file.toString()));
+        assertEquals("Invalid start time in line, ,09:31:00,x,AUC", exception.getMessage());
+
+        ValidationReport.FileReport valid = volumeProfileCSVFileLoader.validateVolumeProfile("9988_HK", "9988_HK.csv");
+        assertTrue(valid.isValid());
+        assertEquals(399, valid.getRowCount());
+
+        ValidationReport.FileReport fileNotFound = volumeProfileCSVFileLoader.validateVolumeProfile("HK", "NoFile.csv");
+        assertEquals("0: Cannot read, NoFile.csv", fileNotFound.getProblems().getFirst().toString());
+    }
 }
@@ -0,0 +1,75 @@
+package com.citi.volume;
+
+import com.citi.volume.data.VolumeProfile;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class VolumeProfileRegistryTest {
+    private static final VolumeProfile VOLUME_PROFILE = new VolumeProfileCSVFileLoader().loadVolumeProfile("9988_HK", "9988_HK.csv");
+
+    @Test
+    public void testPutAndReplace() {
+        VolumeProfileRegistry registry = new VolumeProfileRegistry();
+        assertNull(registry.get("9988_HK"));
+        assertEquals(VolumeProfileRegistry.NO_VERSION, registry.getVersion("9988_HK"));
+        assertEquals(0, registry.getEpoch());
+
+        assertEquals(1, registry.put(VOLUME_PROFILE));
+        assertSame(VOLUME_PROFILE, registry.get("9988_HK"));
+        assertEquals(1, registry.getVersion("9988_HK"));
+
+        VolumeProfile other = VOLUME_PROFILE.getCumulativeVolumeProfile(VOLUME_PROFILE.getStartTime(0), VOLUME_PROFILE.getEndTime(1));
+        VolumeProfile replacement = VOLUME_PROFILE.getCumulativeVolumeProfile(VOLUME_PROFILE.getStartTime(0), VOLUME_PROFILE.getEndTime(2));
+        assertEquals(2, registry.putAll(List.of(replacement)));
+        assertSame(replacement, registry.getEntry("9988_HK").getVolumeProfile());
+        assertEquals(2, registry.getEntry("9988_HK").getVersion());
+
+        assertEquals(3, registry.replaceAll(Map.of("0700_HK", other)));
+        assertNull(registry.get("9988_HK"));
+        assertSame(other, registry.get("0700_HK"));
+        assertEquals(1, registry.size());
+        assertEquals(Set.of("0700_HK"), registry.symbols());
+
+        assertSame(other, registry.remove("0700_HK"));
+        assertNull(registry.remove("0700_HK"));
+        assertEquals(4, registry.getEpoch());
+    }
+
+    @Test
+    public void testReadersNeverSeePartialUniverse() throws InterruptedException {
+        VolumeProfileRegistry registry = new VolumeProfileRegistry();
+        VolumeProfile first = VOLUME_PROFILE.getCumulativeVolumeProfile(VOLUME_PROFILE.getStartTime(0), VOLUME_PROFILE.getEndTime(1));
+        VolumeProfile second = VOLUME_PROFILE.getCumulativeVolumeProfile(VOLUME_PROFILE.getStartTime(0), VOLUME_PROFILE.getEndTime(2));
+        registry.replaceAll(Map.of("A", first, "B", first));
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                // both symbols are always swapped together
+                Map<String, VolumeProfileRegistry.Entry> entries = registry.getEntries();
+                if (entries.get("A").getVersion() != entries.get("B").getVersion()
+                        || entries.get("A").getVolumeProfile() != entries.get("B").getVolumeProfile())
+                    failure.set("partial universe seen");
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 1000; i++) {
+            registry.replaceAll(Map.of("A", i % 2 == 0 ? second : first, "B", i % 2 == 0 ? second : first));
+        }
+        running.set(false);
+        reader.join();
+        assertNull(failure.get());
+        assertEquals(1001, registry.getEpoch());
+    }
+}
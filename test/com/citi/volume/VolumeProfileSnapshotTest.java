@@ -0,0 +1,122 @@
+package com.citi.volume;
+
+import com.citi.volume.data.VolumeProfile;
+import com.citi.volume.data.exception.VolumeProfileLoadingException;
+import com.citi.volume.util.ConstantUtils;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class VolumeProfileSnapshotTest {
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        VolumeProfileCSVFileLoader loader = new VolumeProfileCSVFileLoader();
+        VolumeProfile volumeProfile = loader.loadVolumeProfile("9988_HK", "9988_HK.csv");
+        VolumeProfile otherVolumeProfile = loader.loadVolumeProfile("0700_HK", "9988_HK.csv")
+                .getCumulativeVolumeProfile(volumeProfile.getStartTime(10), volumeProfile.getEndTime(20));
+        Path file = Files.createTempDirectory("snapshot").resolve("profiles.bin");
+
+        VolumeProfileSnapshot.write(file, List.of(volumeProfile, otherVolumeProfile));
+        Map<String, VolumeProfile> volumeProfiles = VolumeProfileSnapshot.read(file);
+        assertEquals(2, volumeProfiles.size());
+        assertEquals(volumeProfile.toMultiLineString(), volumeProfiles.get("9988_HK").toMultiLineString());
+        assertEquals(otherVolumeProfile.toMultiLineString(), volumeProfiles.get("0700_HK").toMultiLineString());
+        assertEquals(volumeProfile.getStartTime(0), volumeProfiles.get("9988_HK").getStartTime(0));
+
+        assertEquals(otherVolumeProfile.toMultiLineString(), VolumeProfileSnapshot.read(file, "0700_HK").toMultiLineString());
+        assertNull(VolumeProfileSnapshot.read(file, "0005_HK"));
+    }
+
+    @Test
+    public void testReadOnNextTradingDay() throws IOException {
+        ZoneId hongKong = ZoneId.of("Asia/Hong_Kong");
+        Path file = Files.createTempDirectory("snapshot").resolve("profiles.bin");
+        try {
+            ConstantUtils.setSession(LocalDate.of(2025, 8, 22), hongKong);
+            VolumeProfile friday = new VolumeProfileCSVFileLoader().loadVolumeProfile("9988_HK", "9988_HK.csv");
+            VolumeProfileSnapshot.write(file, List.of(friday));
+
+            // restart on monday reads profile anchored to monday
+            ConstantUtils.setSession(LocalDate.of(2025, 8, 25), hongKong);
+            VolumeProfile monday = new VolumeProfileCSVFileLoader().loadVolumeProfile("9988_HK", "9988_HK.csv");
+            VolumeProfile snapshot = VolumeProfileSnapshot.read(file, "9988_HK");
+            assertEquals(monday.getStartTime(0), snapshot.getStartTime(0));
+            assertEquals(monday.getEndTime(monday.size() - 1), snapshot.getEndTime(snapshot.size() - 1));
+            long start = ConstantUtils.extractTimeMillis("10:00:00");
+            long end = ConstantUtils.extractTimeMillis("11:00:00");
+            assertTrue(snapshot.getTargetPercentForTimePeriod(start, end) > 0);
+            assertEquals(monday.getTargetPercentForTimePeriod(start, end), snapshot.getTargetPercentForTimePeriod(start, end), 0.0);
+        } finally {
+            ConstantUtils.resetSession();
+        }
+    }
+
+    @Test
+    public void testReadErrors() throws IOException {
+        Exception fileNotFound = assertThrows(VolumeProfileLoadingException.class,
+                () -> VolumeProfileSnapshot.read(Path.of("NoFile.bin"))
+        );
+        assertEquals("Cannot read, NoFile.bin", fileNotFound.getMessage());
+
+        Exception invalid = assertThrows(VolumeProfileLoadingException.class,
+                () -> VolumeProfileSnapshot.read(Path.of("9988_HK.csv"))
+        );
+        assertEquals("Invalid snapshot file, 9988_HK.csv", invalid.getMessage());
+
+        Path file = Files.createTempDirectory("snapshot").resolve("profiles.bin");
+        VolumeProfileSnapshot.write(file, List.of(new VolumeProfileCSVFileLoader().loadVolumeProfile("9988_HK", "9988_HK.csv")));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3}), channel.size() - 3);
+        }
+        Exception corrupted = assertThrows(VolumeProfileLoadingException.class,
+                () -> VolumeProfileSnapshot.read(file)
+        );
+        assertEquals("Snapshot checksum does not match, " + file, corrupted.getMessage());
+    }
+
+    @Test
+    public void testWriteErrors() throws IOException {
+        VolumeProfileCSVFileLoader loader = new VolumeProfileCSVFileLoader();
+        Path directory = Files.createTempDirectory("snapshot");
+        Path file = directory.resolve("profiles.bin");
+
+        String longSymbol = "A".repeat(Short.MAX_VALUE + 1);
+        Exception tooLong = assertThrows(VolumeProfileLoadingException.class,
+                () -> VolumeProfileSnapshot.write(file, List.of(loader.loadVolumeProfile(longSymbol, "9988_HK.csv")))
+        );
+        assertEquals("Symbol longer than 32767 bytes, " + file, tooLong.getMessage());
+
+        // temporary file of another writer is left alone
+        Path otherTemporaryFile = Files.writeString(directory.resolve("profiles.bin.tmp"), "other");
+        VolumeProfileSnapshot.write(file, List.of(loader.loadVolumeProfile("9988_HK", "9988_HK.csv")));
+        assertEquals("other", Files.readString(otherTemporaryFile));
+        Files.delete(otherTemporaryFile);
+        Files.delete(file);
+
+        // file cannot be replaced as it is a directory which is not empty
+        Files.createDirectory(file);
+        Files.createFile(file.resolve("other"));
+        Exception notReplaced = assertThrows(VolumeProfileLoadingException.class,
+                () -> VolumeProfileSnapshot.write(file, List.of(loader.loadVolumeProfile("9988_HK", "9988_HK.csv")))
+        );
+        assertEquals("Problem while writing, " + file, notReplaced.getMessage());
+        try (var files = Files.list(directory)) {
+            assertEquals(List.of(file), files.toList());
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.citi.volume;
+
+import com.citi.volume.data.VolumeProfile;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class VolumeProfileWatcherTest {
+
+    private static Path createDirectory() throws IOException {
+        Path directory = Files.createTempDirectory("volume_profiles");
+        Files.copy(Path.of("9988_HK.csv"), directory.resolve("9988_HK.csv"));
+        Files.copy(Path.of("9988_HK.csv"), directory.resolve("0700_HK.csv"));
+        return directory;
+    }
+
+    private static VolumeProfileWatcher createWatcher(Path directory, VolumeProfileRegistry registry) {
+        return new VolumeProfileWatcher(directory.toString(),
+                new VolumeProfileBulkLoader(new MappedVolumeProfileCSVFileLoader(), ForkJoinPool.commonPool()), registry, 50);
+    }
+
+    @Test
+    public void testOnlyChangedFilesAreReloaded() throws IOException {
+        Path directory = createDirectory();
+        VolumeProfileRegistry registry = new VolumeProfileRegistry();
+        VolumeProfileWatcher watcher = createWatcher(directory, registry);
+
+        // burst of events for same files causes one reload of each file
+        watcher.fileChanged(Path.of("9988_HK.csv"));
+        watcher.fileChanged(Path.of("0700_HK.csv"));
+        watcher.fileChanged(Path.of("9988_HK.csv"));
+        watcher.fileChanged(Path.of("notes.txt"));
+        assertEquals(2, watcher.pendingCount());
+        BulkLoadResult result = watcher.reload();
+        assertFalse(result.hasErrors());
+        assertEquals(2, result.getVolumeProfiles().size());
+        assertEquals(0, watcher.pendingCount());
+        assertEquals(1, registry.getEpoch());
+        assertEquals(1, registry.getVersion("9988_HK"));
+        assertEquals(1, registry.getVersion("0700_HK"));
+
+        // file touched without changing content is not parsed again
+        Files.setLastModifiedTime(directory.resolve("9988_HK.csv"), Files.getLastModifiedTime(directory.resolve("9988_HK.csv")));
+        watcher.fileChanged(Path.of("9988_HK.csv"));
+        assertTrue(watcher.reload().getVolumeProfiles().isEmpty());
+        assertEquals(1, registry.getEpoch());
+
+        VolumeProfile before = registry.get("0700_HK");
+        Files.writeString(directory.resolve("0700_HK.csv"), "#corrected\n" + Files.readString(Path.of("9988_HK.csv")));
+        watcher.fileChanged(directory.resolve("0700_HK.csv"));
+        watcher.fileChanged(Path.of("9988_HK.csv"));
+        result = watcher.reload();
+        assertEquals(1, result.getVolumeProfiles().size());
+        assertNotSame(before, registry.get("0700_HK"));
+        assertEquals(2, registry.getVersion("0700_HK"));
+        assertEquals(1, registry.getVersion("9988_HK"));
+        assertSame(result, watcher.getLastResult());
+    }
+
+    @Test
+    public void testFileRewrittenWhileParsedIsReloadedAgain() throws IOException {
+        Path directory = createDirectory();
+        VolumeProfileRegistry registry = new VolumeProfileRegistry();
+        AtomicBoolean rewritten = new AtomicBoolean();
+        MappedVolumeProfileCSVFileLoader loader = new MappedVolumeProfileCSVFileLoader() {
+            @Override
+            protected VolumeProfile readVolumeProfile(String symbol, String filename) {
+                VolumeProfile volumeProfile = super.readVolumeProfile(symbol, filename);
+                try {
+                    // publisher writes new version of file after it was parsed
+                    if (symbol.equals("0700_HK") && !rewritten.getAndSet(true))
+                        Files.writeString(Path.of(filename), "#corrected\n" + Files.readString(Path.of("9988_HK.csv")));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return volumeProfile;
+            }
+        };
+        VolumeProfileWatcher watcher = new VolumeProfileWatcher(directory.toString(),
+                new VolumeProfileBulkLoader(loader, ForkJoinPool.commonPool()), registry, 50);
+
+        watcher.fileChanged(Path.of("9988_HK.csv"));
+        watcher.fileChanged(Path.of("0700_HK.csv"));
+        BulkLoadResult result = watcher.reload();
+        assertFalse(result.hasErrors());
+        assertEquals(1, result.getVolumeProfiles().size());
+        assertNull(registry.get("0700_HK"));
+        assertEquals(1, watcher.pendingCount());
+
+        result = watcher.reload();
+        assertEquals(1, result.getVolumeProfiles().size());
+        assertNotNull(registry.get("0700_HK"));
+        assertEquals(0, watcher.pendingCount());
+    }
+
+    @Test
+    public void testFailedFileIsReportedAndOthersArePublished() throws IOException {
+        Path directory = createDirectory();
+        VolumeProfileRegistry registry = new VolumeProfileRegistry();
+        VolumeProfileWatcher watcher = createWatcher(directory, registry);
+
+        Files.copy(Path.of("error_buckettype.csv"), directory.resolve("0005_HK.csv"));
+        watcher.fileChanged(Path.of("0005_HK.csv"));
+        watcher.fileChanged(Path.of("9988_HK.csv"));
+        watcher.fileChanged(Path.of("1299_HK.csv")); // removed before reload
+        BulkLoadResult result = watcher.reload();
+        assertEquals(1, result.getErrors().size());
+        assertEquals("0005_HK", result.getErrors().getFirst().getSymbol());
+        assertEquals(1, registry.size());
+        assertNotNull(registry.get("9988_HK"));
+
+        // fixed file is loaded on its next event
+        Files.copy(Path.of("9988_HK.csv"), directory.resolve("0005_HK.csv"), StandardCopyOption.REPLACE_EXISTING);
+        watcher.fileChanged(Path.of("0005_HK.csv"));
+        assertFalse(watcher.reload().hasErrors());
+        assertNotNull(registry.get("0005_HK"));
+    }
+
+    @Test
+    public void testWatchServicePicksUpNewFile() throws IOException, InterruptedException {
+        Path directory = createDirectory();
+        VolumeProfileRegistry registry = new VolumeProfileRegistry();
+        try (VolumeProfileWatcher watcher = createWatcher(directory, registry)) {
+            watcher.start();
+            Files.copy(Path.of("9988_HK.csv"), directory.resolve("0005_HK.csv"));
+            long deadline = System.currentTimeMillis() + 30_000;
+            while (registry.get("0005_HK") == null && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertNotNull(registry.get("0005_HK"));
+            assertNull(registry.get("0700_HK"));
+        }
+    }
+
+    @Test
+    public void testAllFilesChangedWithRelativeDirectory() throws IOException {
+        Path directory = Files.createTempDirectory(Path.of("."), "volume_profiles");
+        try {
+            Files.copy(Path.of("9988_HK.csv"), directory.resolve("9988_HK.csv"));
+            Files.copy(Path.of("9988_HK.csv"), directory.resolve("0700_HK.csv"));
+            VolumeProfileRegistry registry = new VolumeProfileRegistry();
+            VolumeProfileWatcher watcher = createWatcher(directory.getFileName(), registry);
+
+            // events were lost, every file is checked
+            watcher.allFilesChanged();
+            assertEquals(2, watcher.pendingCount());
+            BulkLoadResult result = watcher.reload();
+            assertFalse(result.hasErrors());
+            assertEquals(2, result.getVolumeProfiles().size());
+
+            // unchanged files are not parsed again
+            watcher.allFilesChanged();
+            assertTrue(watcher.reload().getVolumeProfiles().isEmpty());
+            assertEquals(1, registry.getEpoch());
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void testWatchingGoesOnAfterFailedReload() throws IOException, InterruptedException {
+        Path directory = createDirectory();
+        VolumeProfileRegistry registry = new VolumeProfileRegistry();
+        AtomicInteger rejected = new AtomicInteger();
+        // rejects first load as a shut down executor would, runs later loads on calling thread
+        ExecutorService executor = new AbstractExecutorService() {
+            @Override
+            public void execute(Runnable command) {
+                if (rejected.getAndIncrement() == 0)
+                    throw new RejectedExecutionException("rejected");
+                command.run();
+            }
+
+            @Override
+            public void shutdown() {
+            }
+
+            @Override
+            public List<Runnable> shutdownNow() {
+                return List.of();
+            }
+
+            @Override
+            public boolean isShutdown() {
+                return false;
+            }
+
+            @Override
+            public boolean isTerminated() {
+                return false;
+            }
+
+            @Override
+            public boolean awaitTermination(long timeout, TimeUnit unit) {
+                return false;
+            }
+        };
+        try (VolumeProfileWatcher watcher = new VolumeProfileWatcher(directory.toString(),
+                new VolumeProfileBulkLoader(new MappedVolumeProfileCSVFileLoader(), executor), registry, 50)) {
+            watcher.start();
+            Files.copy(Path.of("9988_HK.csv"), directory.resolve("0005_HK.csv"));
+            long deadline = System.currentTimeMillis() + 30_000;
+            while (registry.get("0005_HK") == null && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            // file is loaded by a later reload after first one failed
+            assertNotNull(registry.get("0005_HK"));
+            assertTrue(rejected.get() > 1);
+        }
+    }
+}
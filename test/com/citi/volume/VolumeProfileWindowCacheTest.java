@@ -0,0 +1,94 @@
+package com.citi.volume;
+
+import com.citi.volume.data.BucketType;
+import com.citi.volume.data.VolumeProfile;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class VolumeProfileWindowCacheTest {
+    private static final VolumeProfile VOLUME_PROFILE = new VolumeProfileCSVFileLoader().loadVolumeProfile("9988_HK", "9988_HK.csv");
+
+    @Test
+    public void testHitsMissesAndEvictions() {
+        VolumeProfileRegistry registry = new VolumeProfileRegistry();
+        registry.put(VOLUME_PROFILE);
+        AtomicLong clock = new AtomicLong();
+        VolumeProfileWindowCache cache = new VolumeProfileWindowCache(registry, 2, 1000, clock::get);
+        long start = VOLUME_PROFILE.getStartTime(0);
+
+        double expected = VOLUME_PROFILE.getTargetPercentForTimePeriod(start, VOLUME_PROFILE.getEndTime(5));
+        assertEquals(expected, cache.getTargetPercentForTimePeriod("9988_HK", start, VOLUME_PROFILE.getEndTime(5)), 0.0);
+        assertEquals(expected, cache.getTargetPercentForTimePeriod("9988_HK", start, VOLUME_PROFILE.getEndTime(5)), 0.0);
+        assertEquals(1, cache.size()); // target percent does not build volume profile
+        VolumeProfile window = cache.getCumulativeVolumeProfile("9988_HK", start, VOLUME_PROFILE.getEndTime(5));
+        assertEquals(6, window.size());
+        assertSame(window, cache.getCumulativeVolumeProfile("9988_HK", start, VOLUME_PROFILE.getEndTime(5)));
+        assertEquals(2, cache.getMisses());
+        assertEquals(2, cache.getHits());
+        assertEquals(2, cache.size());
+
+        // least recently used window is evicted when cache is full
+        cache.getTargetPercentForTimePeriod("9988_HK", start, VOLUME_PROFILE.getEndTime(6));
+        cache.getTargetPercentForTimePeriod("9988_HK", start, VOLUME_PROFILE.getEndTime(7));
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.getEvictions());
+        cache.getTargetPercentForTimePeriod("9988_HK", start, VOLUME_PROFILE.getEndTime(5));
+        assertEquals(5, cache.getMisses());
+
+        // expired window is computed again
+        clock.set(1000);
+        cache.getTargetPercentForTimePeriod("9988_HK", start, VOLUME_PROFILE.getEndTime(5));
+        assertEquals(6, cache.getMisses());
+        assertEquals(3, cache.getEvictions());
+
+        assertEquals(0.0, cache.getTargetPercentForTimePeriod("0700_HK", start, VOLUME_PROFILE.getEndTime(5)), 0.0);
+        assertNull(cache.getCumulativeVolumeProfile("0700_HK", start, VOLUME_PROFILE.getEndTime(5)));
+    }
+
+    @Test
+    public void testInvalidatedWhenVolumeProfileReplaced() {
+        VolumeProfileRegistry registry = new VolumeProfileRegistry();
+        registry.put(VOLUME_PROFILE);
+        VolumeProfileWindowCache cache = new VolumeProfileWindowCache(registry, 10, Long.MAX_VALUE);
+        long start = VOLUME_PROFILE.getStartTime(0);
+        long end = VOLUME_PROFILE.getEndTime(5);
+        cache.getTargetPercentForTimePeriod("9988_HK", start, end);
+        cache.getTargetPercentForTimePeriod("9988_HK", start, VOLUME_PROFILE.getEndTime(2));
+
+        VolumeProfile replacement = new VolumeProfile("9988_HK", new long[]{start}, new long[]{end}, new double[]{100},
+                new BucketType[]{BucketType.Auction}, 1);
+        registry.put(replacement);
+        assertEquals(100.0, cache.getTargetPercentForTimePeriod("9988_HK", start, end), 0.0);
+        assertEquals(1, cache.getInvalidations());
+        assertEquals(1, cache.invalidateStale());
+        assertEquals(2, cache.getInvalidations());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testStripedCache() {
+        VolumeProfileRegistry registry = new VolumeProfileRegistry();
+        registry.put(VOLUME_PROFILE);
+        VolumeProfileWindowCache cache = new VolumeProfileWindowCache(registry, 1000, Long.MAX_VALUE);
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < VOLUME_PROFILE.size(); i++) {
+                long start = VOLUME_PROFILE.getStartTime(i);
+                long end = VOLUME_PROFILE.getEndTime(VOLUME_PROFILE.size() - 1);
+                assertEquals(VOLUME_PROFILE.getTargetPercentForTimePeriod(start, end),
+                        cache.getTargetPercentForTimePeriod("9988_HK", start, end), 0.0);
+            }
+        }
+        assertEquals(VOLUME_PROFILE.size(), cache.getMisses());
+        assertEquals(VOLUME_PROFILE.size(), cache.getHits());
+        assertEquals(VOLUME_PROFILE.size(), cache.size());
+        assertEquals(0, cache.getEvictions());
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+}
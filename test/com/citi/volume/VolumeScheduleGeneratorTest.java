@@ -0,0 +1,79 @@
+package com.citi.volume;
+
+import com.citi.volume.data.Bucket;
+import com.citi.volume.data.BucketType;
+import com.citi.volume.data.VolumeProfile;
+import com.citi.volume.util.ConstantUtils;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class VolumeScheduleGeneratorTest {
+
+    private static long time(String s){
+        return ConstantUtils.extractDateTime(s).getTime();
+    }
+
+    private static final VolumeProfile VOLUME_PROFILE = new VolumeProfile("TEST_SYMBOL", Arrays.stream(new Bucket[]{
+            new Bucket(time("24/08/2025 09:00:00"), time("24/08/2025 09:01:00"), 25, BucketType.Auction),
+            new Bucket(time("24/08/2025 09:01:00"), time("24/08/2025 09:02:00"), 25, BucketType.Continuous),
+            new Bucket(time("24/08/2025 09:02:00"), time("24/08/2025 09:03:00"), 20, BucketType.Continuous),
+            new Bucket(time("24/08/2025 09:03:00"), time("24/08/2025 09:04:00"), 30, BucketType.Auction),
+    }).toList()
+    );
+
+    @Test
+    public void testScheduleFollowsVolumeProfile() {
+        VolumeScheduleGenerator generator = new VolumeScheduleGenerator(45_000, 0, Double.POSITIVE_INFINITY);
+        ScheduleBuffer schedule = new ScheduleBuffer(1);
+        double unscheduled = generator.generate(VOLUME_PROFILE, 1000, time("24/08/2025 09:00:30"), time("24/08/2025 09:03:30"), 0, schedule);
+        assertEquals(0.0, unscheduled, 0.0);
+
+        // auction, 09:01:00-09:01:15, 09:01:15-09:02:00, 09:02:00-09:02:45, 09:02:45-09:03:00, auction
+        assertEquals(6, schedule.size());
+        assertTrue(schedule.isAuction(0));
+        assertEquals(time("24/08/2025 09:00:00"), schedule.getStartTime(0));
+        assertEquals(250.0, schedule.getQuantity(0), ConstantUtils.EPILSON);
+        assertEquals(time("24/08/2025 09:01:15"), schedule.getEndTime(1));
+        assertEquals(62.5, schedule.getQuantity(1), ConstantUtils.EPILSON);
+        assertEquals(187.5, schedule.getQuantity(2), ConstantUtils.EPILSON);
+        assertEquals(150.0, schedule.getQuantity(3), ConstantUtils.EPILSON);
+        assertEquals(50.0, schedule.getQuantity(4), ConstantUtils.EPILSON);
+        assertTrue(schedule.isAuction(5));
+        assertEquals(300.0, schedule.getQuantity(5), ConstantUtils.EPILSON);
+        assertEquals(1000.0, schedule.getTotalQuantity(), ConstantUtils.EPILSON);
+    }
+
+    @Test
+    public void testParticipationLimits() {
+        // at most 10% of expected volume, day volume 10000 expects 2500 in each of first two buckets
+        VolumeScheduleGenerator generator = new VolumeScheduleGenerator(60_000, 0.01, 0.1);
+        ScheduleBuffer schedule = new ScheduleBuffer();
+        double unscheduled = generator.generate(VOLUME_PROFILE, 1000, time("24/08/2025 09:00:00"), time("24/08/2025 09:02:00"), 10_000, schedule);
+        assertEquals(2, schedule.size());
+        assertEquals(250.0, schedule.getQuantity(0), ConstantUtils.EPILSON);
+        assertEquals(250.0, schedule.getQuantity(1), ConstantUtils.EPILSON);
+        assertEquals(500.0, unscheduled, ConstantUtils.EPILSON);
+
+        // minimum participation front loads the order
+        generator = new VolumeScheduleGenerator(60_000, 0.08, 1);
+        unscheduled = generator.generate(VOLUME_PROFILE, 300, time("24/08/2025 09:00:00"), time("24/08/2025 09:02:00"), 10_000, schedule);
+        assertEquals(200.0, schedule.getQuantity(0), ConstantUtils.EPILSON);
+        assertEquals(100.0, schedule.getQuantity(1), ConstantUtils.EPILSON);
+        assertEquals(0.0, unscheduled, 0.0);
+    }
+
+    @Test
+    public void testNothingExpectedInWindow() {
+        ScheduleBuffer schedule = new ScheduleBuffer();
+        double unscheduled = new VolumeScheduleGenerator(60_000, 0, 1)
+                .generate(VOLUME_PROFILE, 1000, time("24/08/2025 08:00:00"), time("24/08/2025 08:30:00"), 0, schedule);
+        assertEquals(0, schedule.size());
+        assertEquals(1000.0, unscheduled, 0.0);
+    }
+}
@@ -0,0 +1,90 @@
+package com.citi.volume.data;
+
+import com.citi.volume.VolumeProfileCSVFileLoader;
+import com.citi.volume.data.exception.VolumeProfileValidationException;
+import com.citi.volume.util.ConstantUtils;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class RealizedVolumeProfileBuilderTest {
+
+    private static long time(String s){
+        return ConstantUtils.extractDateTime(s).getTime();
+    }
+
+    private static final VolumeProfile GRID = new VolumeProfile("TEST_SYMBOL", Arrays.stream(new Bucket[]{
+            new Bucket(time("24/08/2025 09:00:00"), time("24/08/2025 09:01:00"), 25, BucketType.Auction),
+            new Bucket(time("24/08/2025 09:01:00"), time("24/08/2025 09:02:00"), 25, BucketType.Continuous),
+            new Bucket(time("24/08/2025 09:02:00"), time("24/08/2025 09:03:00"), 20, BucketType.Continuous),
+            new Bucket(time("24/08/2025 09:04:00"), time("24/08/2025 09:05:00"), 30, BucketType.Continuous),
+    }).toList()
+    );
+
+    @Test
+    public void testBuildFromTrades() {
+        RealizedVolumeProfileBuilder builder = new RealizedVolumeProfileBuilder(GRID);
+        assertTrue(builder.onTrade(time("24/08/2025 09:01:00") + 100, 100, true)); // auction print after auction ended
+        assertTrue(builder.onTrade(time("24/08/2025 09:01:10"), 150, false));
+        assertTrue(builder.onTrade(time("24/08/2025 09:01:50"), 50, false));
+        assertTrue(builder.onTrade(time("24/08/2025 09:04:30"), 100, false));
+        assertFalse(builder.onTrade(time("24/08/2025 09:03:30"), 100, false)); // no bucket between 09:03 and 09:04
+        assertTrue(builder.onTrade(time("24/08/2025 09:02:30"), 100, false)); // out of order trade
+
+        assertEquals(500, builder.getTotalVolume(), 0.0);
+        assertEquals(200, builder.getVolume(1), 0.0);
+        assertEquals(1, builder.getUnmatchedTrades());
+
+        VolumeProfile realized = builder.build();
+        assertEquals("""
+                VolumeProfile:TEST_SYMBOL
+                [Bucket{startTime=09:00:00, endTime=09:01:00, percentOfDayVolume=20.0, bucketType=Auction}]
+                [Bucket{startTime=09:01:00, endTime=09:02:00, percentOfDayVolume=40.0, bucketType=Continuous}]
+                [Bucket{startTime=09:02:00, endTime=09:03:00, percentOfDayVolume=20.0, bucketType=Continuous}]
+                [Bucket{startTime=09:04:00, endTime=09:05:00, percentOfDayVolume=20.0, bucketType=Continuous}]
+                """, realized.toMultiLineString());
+
+        builder.reset();
+        assertEquals(0, builder.getTotalVolume(), 0.0);
+        Exception exception = assertThrows(VolumeProfileValidationException.class, builder::build);
+        assertEquals("No volume traded, cannot build Volume Profile for TEST_SYMBOL", exception.getMessage());
+    }
+
+    @Test
+    public void testReplayOfExpectedProfileReproducesIt() {
+        // one trade per second with quantity following expected profile
+        RealizedVolumeProfileBuilder builder = new RealizedVolumeProfileBuilder(GRID);
+        for (int i = 0; i < GRID.size(); i++) {
+            for (long t = GRID.getStartTime(i); t < GRID.getEndTime(i); t += 1000) {
+                builder.onTrade(t, GRID.getPercentOfDayVolume(i), GRID.getBucketType(i) == BucketType.Auction);
+            }
+        }
+        VolumeProfile realized = builder.build();
+        for (int i = 0; i < GRID.size(); i++) {
+            assertEquals(GRID.getPercentOfDayVolume(i), realized.getPercentOfDayVolume(i), ConstantUtils.EPILSON);
+        }
+    }
+
+    @Test
+    public void testLateAuctionAndOutOfOrderTrades() {
+        VolumeProfile grid = new VolumeProfileCSVFileLoader().loadVolumeProfile("9988_HK", "9988_HK.csv");
+        int closingAuction = grid.size() - 1;
+        RealizedVolumeProfileBuilder builder = new RealizedVolumeProfileBuilder(grid);
+        assertTrue(builder.onTrade(ConstantUtils.extractTimeMillis("16:10:00"), 100, true)); // after closing auction
+        assertTrue(builder.onTrade(ConstantUtils.extractTimeMillis("10:00:30"), 10, false)); // out of order
+        assertTrue(builder.onTrade(ConstantUtils.extractTimeMillis("10:00:40"), 20, true)); // late opening auction print
+        assertFalse(builder.onTrade(ConstantUtils.extractTimeMillis("08:59:00"), 30, true)); // before first auction
+        assertTrue(builder.onTrade(ConstantUtils.extractTimeMillis("16:07:30"), 40, false)); // continuous trade in auction bucket
+
+        assertEquals(140, builder.getVolume(closingAuction), 0.0);
+        assertEquals(20, builder.getVolume(0), 0.0);
+        assertEquals(10, builder.getVolume(VolumeProfileQueries.bucketIndexOf(grid, ConstantUtils.extractTimeMillis("10:00:30"), true)), 0.0);
+        assertEquals(1, builder.getUnmatchedTrades());
+        assertEquals(170, builder.getTotalVolume(), 0.0);
+    }
+}
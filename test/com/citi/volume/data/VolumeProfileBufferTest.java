@@ -0,0 +1,110 @@
+package com.citi.volume.data;
+
+import com.citi.volume.util.ConstantUtils;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+@RunWith(JUnit4.class)
+public class VolumeProfileBufferTest {
+
+    private static long time(String s) {
+        return ConstantUtils.extractDateTime(s).getTime();
+    }
+
+    private static final VolumeProfile TEST_VOLUME_PROFILE = new VolumeProfile("TEST_SYMBOL", Arrays.stream(new Bucket[]{
+            new Bucket(time("24/08/2025 09:00:00"), time("24/08/2025 09:01:00"), 25, BucketType.Auction),
+            new Bucket(time("24/08/2025 09:01:00"), time("24/08/2025 09:02:00"), 25, BucketType.Continuous),
+            new Bucket(time("24/08/2025 09:02:00"), time("24/08/2025 09:03:00"), 20, BucketType.Continuous),
+            new Bucket(time("24/08/2025 09:03:00"), time("24/08/2025 09:04:00"), 30, BucketType.Auction),
+            new Bucket(time("24/08/2025 09:04:00"), time("24/08/2025 09:05:00"), 30, BucketType.Continuous),
+            new Bucket(time("24/08/2025 09:05:00"), time("24/08/2025 09:06:00"), 30, BucketType.Continuous),
+    }).toList()
+    );
+
+    @Test
+    public void testBufferMatchesCumulativeVolumeProfile() {
+        VolumeProfileBuffer buffer = new VolumeProfileBuffer();
+        String[][] periods = {
+                {"24/08/2025 09:00:30", "24/08/2025 09:05:30"},
+                {"24/08/2025 09:01:15", "24/08/2025 09:01:45"},
+                {"24/08/2025 09:03:15", "24/08/2025 09:03:45"},
+                {"24/08/2025 08:00:00", "24/08/2025 09:02:00"},
+                {"24/08/2025 09:05:00", "24/08/2025 09:01:00"},
+        };
+        for (String[] period : periods) {
+            VolumeProfile expected = TEST_VOLUME_PROFILE.getCumulativeVolumeProfile(time(period[0]), time(period[1]));
+            assertSame(buffer, TEST_VOLUME_PROFILE.getCumulativeVolumeProfile(time(period[0]), time(period[1]), buffer));
+            assertEquals("TEST_SYMBOL", buffer.getSymbol());
+            assertEquals(expected.size(), buffer.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.getStartTime(i), buffer.getStartTime(i));
+                assertEquals(expected.getEndTime(i), buffer.getEndTime(i));
+                assertEquals(expected.getPercentOfDayVolume(i), buffer.getPercentOfDayVolume(i), 0);
+                assertEquals(expected.getBucketType(i), buffer.getBucketType(i));
+            }
+            assertEquals(expected.toMultiLineString(), buffer.toVolumeProfile().toMultiLineString());
+        }
+    }
+
+    @Test
+    public void testBufferGrowsAndKeepsCapacity() {
+        VolumeProfileBuffer buffer = new VolumeProfileBuffer(2);
+        TEST_VOLUME_PROFILE.getCumulativeVolumeProfile(time("24/08/2025 09:00:00"), time("24/08/2025 09:06:00"), buffer);
+        assertEquals(6, buffer.size());
+        assertEquals(160, buffer.getTotalPercentOfDayVolume(), 0.0000001);
+        int capacity = buffer.capacity();
+
+        TEST_VOLUME_PROFILE.getCumulativeVolumeProfile(time("24/08/2025 09:01:00"), time("24/08/2025 09:02:00"), buffer);
+        assertEquals(1, buffer.size());
+        assertEquals(capacity, buffer.capacity());
+        assertThrows(IndexOutOfBoundsException.class, () -> buffer.getStartTime(1));
+    }
+
+    @Test
+    public void testThreadBufferIsReused() throws InterruptedException {
+        VolumeProfileBuffer buffer = VolumeProfileBuffer.forCurrentThread();
+        TEST_VOLUME_PROFILE.getCumulativeVolumeProfile(time("24/08/2025 09:00:00"), time("24/08/2025 09:06:00"), buffer);
+        assertSame(buffer, VolumeProfileBuffer.forCurrentThread());
+        assertTrue(buffer.isEmpty());
+
+        VolumeProfileBuffer[] otherThreadBuffer = new VolumeProfileBuffer[1];
+        Thread thread = new Thread(() -> otherThreadBuffer[0] = VolumeProfileBuffer.forCurrentThread());
+        thread.start();
+        thread.join();
+        assertNotSame(buffer, otherThreadBuffer[0]);
+    }
+
+    @Test
+    public void testSteadyStateWindowExtractionDoesNotAllocate() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        long startTime = time("24/08/2025 09:00:30");
+        long endTime = time("24/08/2025 09:05:30");
+        VolumeProfileBuffer buffer = VolumeProfileBuffer.forCurrentThread();
+        long threadId = Thread.currentThread().threadId();
+        double total = 0;
+        for (int i = 0; i < 20_000; i++) { // warm up, lets buffer grow and code get compiled
+            total += TEST_VOLUME_PROFILE.getCumulativeVolumeProfile(startTime, endTime, buffer).getTotalPercentOfDayVolume();
+        }
+
+        long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 10_000; i++) {
+            total += TEST_VOLUME_PROFILE.getCumulativeVolumeProfile(startTime, endTime, buffer).getTotalPercentOfDayVolume();
+        }
+        long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        assertTrue(total > 0);
+        // a single call to getCumulativeVolumeProfile(startTime, endTime) allocates more than this
+        assertTrue("Allocated " + allocated + " bytes", allocated < 1024);
+    }
+}
@@ -0,0 +1,108 @@
+package com.citi.volume.data;
+
+import com.citi.volume.MappedVolumeProfileCSVFileLoader;
+import com.citi.volume.VolumeProfileCSVFileLoader;
+import com.citi.volume.util.ConstantUtils;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class VolumeProfileCompactorTest {
+    private static final long SECOND = 1000;
+
+    private static long time(String s){
+        return ConstantUtils.extractDateTime(s).getTime();
+    }
+
+    private static final VolumeProfile ILLIQUID_VOLUME_PROFILE = new VolumeProfile("TEST_SYMBOL", Arrays.stream(new Bucket[]{
+            new Bucket(time("24/08/2025 09:00:00"), time("24/08/2025 09:01:00"), 0, BucketType.Auction),
+            new Bucket(time("24/08/2025 09:01:00"), time("24/08/2025 09:02:00"), 0, BucketType.Continuous),
+            new Bucket(time("24/08/2025 09:02:00"), time("24/08/2025 09:03:00"), 0, BucketType.Continuous),
+            new Bucket(time("24/08/2025 09:03:00"), time("24/08/2025 09:04:00"), 0, BucketType.Continuous),
+            new Bucket(time("24/08/2025 09:04:00"), time("24/08/2025 09:05:00"), 40, BucketType.Continuous),
+            new Bucket(time("24/08/2025 09:05:00"), time("24/08/2025 09:06:00"), 0, BucketType.Continuous),
+            new Bucket(time("24/08/2025 09:07:00"), time("24/08/2025 09:08:00"), 0, BucketType.Continuous),
+            new Bucket(time("24/08/2025 09:08:00"), time("24/08/2025 09:09:00"), 20, BucketType.Continuous),
+            new Bucket(time("24/08/2025 09:09:00"), time("24/08/2025 09:10:00"), 21, BucketType.Continuous),
+            new Bucket(time("24/08/2025 09:10:00"), time("24/08/2025 09:11:00"), 0, BucketType.Auction),
+            new Bucket(time("24/08/2025 09:11:00"), time("24/08/2025 09:12:00"), 19, BucketType.Auction),
+    }).toList()
+    );
+
+    @Test
+    public void testZeroVolumeBucketsMerged() {
+        VolumeProfileCompactor.Result result = VolumeProfileCompactor.compact(ILLIQUID_VOLUME_PROFILE);
+        VolumeProfile compacted = result.getVolumeProfile();
+        assertEquals(2, result.getRemovedBuckets());
+        assertEquals(ILLIQUID_VOLUME_PROFILE.size() - 2, compacted.size());
+        assertEquals(time("24/08/2025 09:01:00"), compacted.getStartTime(1));
+        assertEquals(time("24/08/2025 09:04:00"), compacted.getEndTime(1));
+        // auction and bucket after gap are kept
+        assertEquals(BucketType.Auction, compacted.getBucketType(0));
+        assertEquals(time("24/08/2025 09:07:00"), compacted.getStartTime(4));
+
+        long start = time("24/08/2025 08:59:00");
+        long end = time("24/08/2025 09:13:00");
+        for (long startTime = start; startTime < end; startTime += 7 * SECOND) {
+            for (long endTime = startTime; endTime < end; endTime += 11 * SECOND) {
+                assertEquals(ILLIQUID_VOLUME_PROFILE.getTargetPercentForTimePeriod(startTime, endTime),
+                        compacted.getTargetPercentForTimePeriod(startTime, endTime), 0.0);
+            }
+            assertEquals(ILLIQUID_VOLUME_PROFILE.getCumulativePercentUpTo(startTime), compacted.getCumulativePercentUpTo(startTime), 0.0);
+        }
+    }
+
+    @Test
+    public void testNearlySameRateMerged() {
+        VolumeProfileCompactor.Result result = VolumeProfileCompactor.compact(ILLIQUID_VOLUME_PROFILE, 0.06);
+        assertEquals(3, result.getRemovedBuckets());
+        VolumeProfile compacted = result.getVolumeProfile();
+        assertEquals(41.0, compacted.getPercentOfDayVolume(5), ConstantUtils.EPILSON);
+        assertEquals(time("24/08/2025 09:08:00"), compacted.getStartTime(5));
+        assertEquals(time("24/08/2025 09:10:00"), compacted.getEndTime(5));
+
+        assertEquals(2, VolumeProfileCompactor.compact(ILLIQUID_VOLUME_PROFILE, 0.01).getRemovedBuckets());
+    }
+
+    @Test
+    public void testLunchBreakCompacted() {
+        VolumeProfile volumeProfile = new VolumeProfileCSVFileLoader().loadVolumeProfile("9988_HK", "9988_HK.csv");
+        VolumeProfileCompactor.Result result = VolumeProfileCompactor.compact(volumeProfile);
+        VolumeProfile compacted = result.getVolumeProfile();
+        // 11:59 to 12:59 and 15:59 to 16:07 have no volume
+        assertEquals(59 + 7, result.getRemovedBuckets());
+        for (long startTime = volumeProfile.getStartTime(0); startTime < volumeProfile.getEndTime(volumeProfile.size() - 1); startTime += 97 * SECOND) {
+            for (long endTime = startTime; endTime <= volumeProfile.getEndTime(volumeProfile.size() - 1); endTime += 13 * 60 * SECOND + 1) {
+                assertEquals(volumeProfile.getTargetPercentForTimePeriod(startTime, endTime),
+                        compacted.getTargetPercentForTimePeriod(startTime, endTime), 0.0);
+            }
+        }
+        compacted.validate(true);
+
+        VolumeProfileCompactor.Result nothingToCompact = VolumeProfileCompactor.compact(compacted);
+        assertSame(compacted, nothingToCompact.getVolumeProfile());
+        assertEquals(0, nothingToCompact.getRemovedBuckets());
+    }
+
+    @Test
+    public void testCompactOnLoad() throws IOException {
+        Path file = Files.createTempFile("illiquid", ".csv");
+        Files.writeString(file, """
+                09:00:00,09:30:00,20,Auction
+                09:30:00,09:31:00,0,Continuous
+                09:31:00,09:32:00,0,Continuous
+                09:32:00,09:33:00,80,Continuous
+                """);
+        assertEquals(4, new MappedVolumeProfileCSVFileLoader().loadVolumeProfile("TEST", file.toString()).size());
+        assertEquals(3, new MappedVolumeProfileCSVFileLoader(true).loadVolumeProfile("TEST", file.toString()).size());
+        assertEquals(3, new VolumeProfileCSVFileLoader(true).loadVolumeProfile("TEST", file.toString()).size());
+    }
+}
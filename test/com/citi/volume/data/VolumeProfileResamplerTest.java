@@ -0,0 +1,89 @@
+package com.citi.volume.data;
+
+import com.citi.volume.VolumeProfileCSVFileLoader;
+import com.citi.volume.util.ConstantUtils;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class VolumeProfileResamplerTest {
+    private static final long SECOND = 1000;
+    private static final long MINUTE = 60 * SECOND;
+
+    private static long time(String s){
+        return ConstantUtils.extractDateTime(s).getTime();
+    }
+
+    private static final VolumeProfile TEST_VOLUME_PROFILE = new VolumeProfile("TEST_SYMBOL", Arrays.stream(new Bucket[]{
+            new Bucket(time("24/08/2025 09:00:00"), time("24/08/2025 09:01:00"), 25, BucketType.Auction),
+            new Bucket(time("24/08/2025 09:01:00"), time("24/08/2025 09:03:00"), 20, BucketType.Continuous),
+            new Bucket(time("24/08/2025 09:03:00"), time("24/08/2025 09:04:00"), 10, BucketType.Continuous),
+            new Bucket(time("24/08/2025 09:04:30"), time("24/08/2025 09:05:00"), 15, BucketType.Auction),
+            new Bucket(time("24/08/2025 09:06:00"), time("24/08/2025 09:08:00"), 30, BucketType.Continuous),
+    }).toList()
+    );
+
+    @Test
+    public void testResampleToIntervalKeepsAuctionsAndGaps() {
+        VolumeProfile resampled = VolumeProfileResampler.resample(TEST_VOLUME_PROFILE, 90 * SECOND);
+        resampled.validate(true);
+        assertEquals("""
+                VolumeProfile:TEST_SYMBOL
+                [Bucket{startTime=09:00:00, endTime=09:01:00, percentOfDayVolume=25.0, bucketType=Auction}]
+                [Bucket{startTime=09:01:00, endTime=09:01:30, percentOfDayVolume=5.0, bucketType=Continuous}]
+                [Bucket{startTime=09:01:30, endTime=09:03:00, percentOfDayVolume=15.0, bucketType=Continuous}]
+                [Bucket{startTime=09:03:00, endTime=09:04:00, percentOfDayVolume=10.0, bucketType=Continuous}]
+                [Bucket{startTime=09:04:30, endTime=09:05:00, percentOfDayVolume=15.0, bucketType=Auction}]
+                [Bucket{startTime=09:06:00, endTime=09:07:30, percentOfDayVolume=22.5, bucketType=Continuous}]
+                [Bucket{startTime=09:07:30, endTime=09:08:00, percentOfDayVolume=7.5, bucketType=Continuous}]
+                """, resampled.toMultiLineString());
+    }
+
+    @Test
+    public void testResampleToBoundaries() {
+        long[] boundaries = {time("24/08/2025 09:02:00"), time("24/08/2025 09:04:45"), time("24/08/2025 09:07:00")};
+        VolumeProfile resampled = VolumeProfileResampler.resample(TEST_VOLUME_PROFILE, boundaries);
+        assertEquals(6, resampled.size());
+        assertEquals(BucketType.Auction, resampled.getBucketType(0));
+        assertEquals(10.0, resampled.getPercentOfDayVolume(1), ConstantUtils.EPILSON);
+        assertEquals(20.0, resampled.getPercentOfDayVolume(2), ConstantUtils.EPILSON);
+        assertEquals(time("24/08/2025 09:04:00"), resampled.getEndTime(2));
+        assertEquals(BucketType.Auction, resampled.getBucketType(3));
+        assertEquals(time("24/08/2025 09:04:30"), resampled.getStartTime(3));
+        assertEquals(time("24/08/2025 09:05:00"), resampled.getEndTime(3));
+        assertEquals(15.0, resampled.getPercentOfDayVolume(4), ConstantUtils.EPILSON);
+        assertEquals(15.0, resampled.getPercentOfDayVolume(5), ConstantUtils.EPILSON);
+
+        assertThrows(IllegalArgumentException.class, () -> VolumeProfileResampler.resample(TEST_VOLUME_PROFILE, new long[]{2, 1}));
+        assertThrows(IllegalArgumentException.class, () -> VolumeProfileResampler.resample(TEST_VOLUME_PROFILE, 0));
+    }
+
+    @Test
+    public void testResampledQueriesMatchOnGrid() {
+        VolumeProfile volumeProfile = new VolumeProfileCSVFileLoader().loadVolumeProfile("9988_HK", "9988_HK.csv");
+        for (long interval : new long[]{5 * SECOND, 5 * MINUTE}) {
+            VolumeProfile resampled = VolumeProfileResampler.resample(volumeProfile, interval);
+            resampled.validate(true);
+            long dayStart = volumeProfile.getStartTime(0);
+            long dayEnd = volumeProfile.getEndTime(volumeProfile.size() - 1);
+            for (long start = dayStart; start < dayEnd; start += 15 * MINUTE) {
+                for (long end = start + 5 * MINUTE; end <= dayEnd; end += 25 * MINUTE) {
+                    assertEquals(volumeProfile.getTargetPercentForTimePeriod(start, end),
+                            resampled.getTargetPercentForTimePeriod(start, end), ConstantUtils.EPILSON);
+                }
+            }
+        }
+        assertTrue(VolumeProfileResampler.resample(volumeProfile, 5 * MINUTE).size() < volumeProfile.size() / 4);
+
+        Map<String, VolumeProfile> resampled = VolumeProfileResampler.resampleAll(List.of(volumeProfile, TEST_VOLUME_PROFILE), MINUTE);
+        assertEquals(2, resampled.size());
+        assertEquals(volumeProfile.size(), resampled.get("9988_HK").size());
+    }
+}
@@ -78,6 +78,36 @@ public class VolumeProfileTest {
 
     }
 
+    @Test
+    public void testColumnarAccess() {
+        assertEquals(6, TEST_VOLUME_PROFILE.size());
+        assertEquals(time("24/08/2025 09:03:00"), TEST_VOLUME_PROFILE.getStartTime(3));
+        assertEquals(time("24/08/2025 09:04:00"), TEST_VOLUME_PROFILE.getEndTime(3));
+        assertEquals(30.0, TEST_VOLUME_PROFILE.getPercentOfDayVolume(3), ConstantUtils.EPILSON);
+        assertEquals(BucketType.Auction, TEST_VOLUME_PROFILE.getBucketType(3));
+        assertEquals(160.0, TEST_VOLUME_PROFILE.getTotalPercentOfDayVolume(), ConstantUtils.EPILSON);
+        assertEquals(TEST_VOLUME_PROFILE.getBuckets().get(3).toString(), new Bucket(time("24/08/2025 09:03:00"), time("24/08/2025 09:04:00"), 30, BucketType.Auction).toString());
+        assertThrows(UnsupportedOperationException.class, () -> TEST_VOLUME_PROFILE.getBuckets().clear());
+    }
+
+    @Test
+    public void testWrapColumns() {
+        long[] startTimes = {time("24/08/2025 09:00:00"), time("24/08/2025 09:01:00")};
+        long[] endTimes = {time("24/08/2025 09:01:00"), time("24/08/2025 09:02:00")};
+        double[] percentOfDayVolumes = {40, 60};
+        byte[] bucketTypes = {(byte) BucketType.Auction.ordinal(), (byte) BucketType.Continuous.ordinal()};
+        VolumeProfile volumeProfile = VolumeProfile.wrap("TEST_SYMBOL", startTimes, endTimes, percentOfDayVolumes, bucketTypes);
+        assertEquals(2, volumeProfile.size());
+        assertEquals(BucketType.Continuous, volumeProfile.getBucketType(1));
+        assertEquals(40.0, volumeProfile.getCumulativePercentUpTo(endTimes[0]), ConstantUtils.EPILSON);
+
+        endTimes[1] = startTimes[1];
+        assertThrows(VolumeProfileValidationException.class,
+                () -> VolumeProfile.wrap("TEST_SYMBOL", startTimes, endTimes, percentOfDayVolumes, bucketTypes));
+        assertThrows(IllegalArgumentException.class,
+                () -> VolumeProfile.wrap("TEST_SYMBOL", startTimes, new long[1], percentOfDayVolumes, bucketTypes));
+    }
+
     @Test
     public void whenStartTimeEndTimeCoverEntireVolumeProfile(){
         VolumeProfile cumulativeVolumeProfile = cumulativeVolumeProfile("24/08/2025 09:00:00", "24/08/2025 09:06:00");
@@ -220,4 +250,82 @@ public class VolumeProfileTest {
         assertEquals(4.166666, targetPercentForTimePeriod("24/08/2025 09:01:30",  "24/08/2025 09:01:40"), ConstantUtils.EPILSON);
     }
 
+    @Test
+    public void whenStartTimeOrEndTimeIsInGapBetweenBuckets(){
+        VolumeProfile volumeProfile = new VolumeProfile("TEST_SYMBOL", Arrays.stream(new Bucket[]{
+                new Bucket(time("24/08/2025 09:00:00"), time("24/08/2025 09:01:00"), 40, BucketType.Continuous),
+                new Bucket(time("24/08/2025 09:02:00"), time("24/08/2025 09:03:00"), 60, BucketType.Continuous),
+        }).toList()
+        );
+        assertEquals(0.0, volumeProfile.getTargetPercentForTimePeriod(time("24/08/2025 09:01:30"), time("24/08/2025 09:02:30")), ConstantUtils.EPILSON);
+        assertEquals(0.0, volumeProfile.getTargetPercentForTimePeriod(time("24/08/2025 09:00:30"), time("24/08/2025 09:01:30")), ConstantUtils.EPILSON);
+        assertEquals(50.0, volumeProfile.getTargetPercentForTimePeriod(time("24/08/2025 09:00:30"), time("24/08/2025 09:02:30")), ConstantUtils.EPILSON);
+        assertEquals(100.0, volumeProfile.getTargetPercentForTimePeriod(time("24/08/2025 09:00:00"), time("24/08/2025 09:03:00")), ConstantUtils.EPILSON);
+        assertEquals(0.0, volumeProfile.getTargetPercentForTimePeriod(time("24/08/2025 09:03:00"), time("24/08/2025 09:04:00")), ConstantUtils.EPILSON);
+    }
+
+    @Test
+    public void targetPercentMatchesCumulativeVolumeProfile(){
+        long start = time("24/08/2025 08:59:00");
+        for (long startTime = start; startTime < time("24/08/2025 09:07:00"); startTime += 15000) {
+            for (long endTime = startTime; endTime < time("24/08/2025 09:07:00"); endTime += 15000) {
+                double expected = 0.0;
+                for (Bucket bucket : TEST_VOLUME_PROFILE.getCumulativeVolumeProfile(startTime, endTime).getBuckets())
+                    expected += bucket.getPercentOfDayVolume();
+                assertEquals(expected, TEST_VOLUME_PROFILE.getTargetPercentForTimePeriod(startTime, endTime), ConstantUtils.EPILSON);
+            }
+        }
+    }
+
+    @Test
+    public void forEachBucketVisitsSameBucketsAsCumulativeVolumeProfile(){
+        StringBuilder visited = new StringBuilder("VolumeProfile:TEST_SYMBOL\n");
+        int count = TEST_VOLUME_PROFILE.forEachBucket(time("24/08/2025 09:01:30"), time("24/08/2025 09:04:30"),
+                (startTime, endTime, percentOfDayVolume, bucketType) ->
+                        visited.append("[").append(new Bucket(startTime, endTime, percentOfDayVolume, bucketType)).append("]\n"));
+        assertEquals(4, count);
+        assertEquals(cumulativeVolumeProfile("24/08/2025 09:01:30", "24/08/2025 09:04:30").toMultiLineString(), visited.toString());
+
+        assertEquals(0, TEST_VOLUME_PROFILE.forEachBucket(time("24/08/2025 09:01:00"), time("24/08/2025 09:01:00"),
+                (startTime, endTime, percentOfDayVolume, bucketType) -> fail()));
+        assertEquals(0, TEST_VOLUME_PROFILE.forEachBucket(time("24/08/2025 08:59:00"), time("24/08/2025 09:00:00"),
+                (startTime, endTime, percentOfDayVolume, bucketType) -> fail()));
+    }
+
+    @Test
+    public void cumulativePercentUpTo(){
+        assertEquals(0.0, TEST_VOLUME_PROFILE.getCumulativePercentUpTo(time("24/08/2025 09:00:00")), ConstantUtils.EPILSON);
+        assertEquals(25.0, TEST_VOLUME_PROFILE.getCumulativePercentUpTo(time("24/08/2025 09:00:30")), ConstantUtils.EPILSON);
+        assertEquals(37.5, TEST_VOLUME_PROFILE.getCumulativePercentUpTo(time("24/08/2025 09:01:30")), ConstantUtils.EPILSON);
+        assertEquals(100.0, TEST_VOLUME_PROFILE.getCumulativePercentUpTo(time("24/08/2025 09:03:30")), ConstantUtils.EPILSON);
+        assertEquals(160.0, TEST_VOLUME_PROFILE.getCumulativePercentUpTo(time("24/08/2025 10:00:00")), ConstantUtils.EPILSON);
+        assertEquals(targetPercentForTimePeriod("24/08/2025 09:00:00", "24/08/2025 09:04:45"),
+                TEST_VOLUME_PROFILE.getCumulativePercentUpTo(time("24/08/2025 09:04:45")), ConstantUtils.EPILSON);
+    }
+
+    @Test
+    public void batchTargetPercentMatchesSingleQueries(){
+        int count = 5000;
+        long[] startTimes = new long[count];
+        long[] endTimes = new long[count];
+        long start = time("24/08/2025 08:59:00");
+        for (int i = 0; i < count; i++) {
+            startTimes[i] = start + i * 100L;
+            endTimes[i] = startTimes[i] + (i % 7) * 20000L;
+        }
+        // unsorted entry
+        startTimes[10] = time("24/08/2025 09:04:30");
+        endTimes[10] = time("24/08/2025 09:05:30");
+
+        double[] results = new double[count];
+        double[] parallelResults = new double[count];
+        TEST_VOLUME_PROFILE.getTargetPercentForTimePeriods(startTimes, endTimes, results);
+        TEST_VOLUME_PROFILE.getTargetPercentForTimePeriodsParallel(startTimes, endTimes, parallelResults);
+        for (int i = 0; i < count; i++) {
+            double expected = TEST_VOLUME_PROFILE.getTargetPercentForTimePeriod(startTimes[i], endTimes[i]);
+            assertEquals(expected, results[i], 0.0);
+            assertEquals(expected, parallelResults[i], 0.0);
+        }
+    }
+
 }
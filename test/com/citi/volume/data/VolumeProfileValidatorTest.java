@@ -0,0 +1,94 @@
+package com.citi.volume.data;
+
+import com.citi.volume.data.exception.Violation;
+import com.citi.volume.data.exception.ViolationType;
+import com.citi.volume.data.exception.VolumeProfileValidationException;
+import com.citi.volume.util.ConstantUtils;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class VolumeProfileValidatorTest {
+
+    private static long time(String s){
+        return ConstantUtils.extractDateTime(s).getTime();
+    }
+
+    private static final long[] START_TIMES = {time("24/08/2025 09:00:00"), time("24/08/2025 09:01:00"),
+            time("24/08/2025 09:01:30"), time("24/08/2025 09:04:00")};
+    private static final long[] END_TIMES = {time("24/08/2025 09:01:00"), time("24/08/2025 09:02:00"),
+            time("24/08/2025 09:01:30"), time("24/08/2025 09:05:00")};
+
+    @Test
+    public void testAllViolationsCollected() {
+        double[] percents = {10, -1, 20, 30};
+        byte[] bucketTypes = {0, 1, VolumeProfileValidator.NO_BUCKET_TYPE, 1};
+        assertFalse(VolumeProfileValidator.isValid(START_TIMES, END_TIMES, percents, bucketTypes, 4));
+
+        List<Violation> violations = VolumeProfileValidator.validate(START_TIMES, END_TIMES, percents, bucketTypes, 4, true);
+        assertEquals(5, violations.size());
+        assertEquals(ViolationType.NEGATIVE_PERCENT, violations.get(0).getType());
+        assertEquals(1, violations.get(0).getIndex());
+        assertEquals(ViolationType.INVALID_TIME_RANGE, violations.get(1).getType());
+        assertEquals(ViolationType.MISSING_BUCKET_TYPE, violations.get(2).getType());
+        assertEquals(ViolationType.OVERLAPPING_BUCKETS, violations.get(3).getType());
+        assertEquals(2, violations.get(3).getIndex());
+        assertEquals(ViolationType.TOTAL_NOT_100, violations.get(4).getType());
+        assertEquals(-1, violations.get(4).getIndex());
+        assertEquals("Total percentages in all buckets do not total to 100.0,59.0", violations.get(4).getMessage());
+        assertEquals("Bucket type cannot be null, Bucket{startTime=09:01:30, endTime=09:01:30, percentOfDayVolume=20.0, bucketType=null}",
+                violations.get(2).getMessage());
+    }
+
+    @Test
+    public void testValidData() {
+        long[] startTimes = {START_TIMES[0], START_TIMES[1], START_TIMES[3]};
+        long[] endTimes = {END_TIMES[0], END_TIMES[1], END_TIMES[3]};
+        double[] percents = {10, 60, 30};
+        byte[] bucketTypes = {0, 1, 0};
+        assertTrue(VolumeProfileValidator.isValid(startTimes, endTimes, percents, bucketTypes, 3));
+        assertTrue(VolumeProfileValidator.validate(startTimes, endTimes, percents, bucketTypes, 3, true).isEmpty());
+        assertEquals(1, VolumeProfileValidator.validate(startTimes, endTimes, percents, bucketTypes, 2, true).size());
+        assertTrue(VolumeProfileValidator.validate(startTimes, endTimes, percents, bucketTypes, 2, false).isEmpty());
+    }
+
+    @Test
+    public void testConstructorReportsAllViolations() {
+        VolumeProfileValidationException exception = assertThrows(VolumeProfileValidationException.class,
+                () -> new VolumeProfile("TEST_SYMBOL", START_TIMES, END_TIMES, new double[]{10, -1, 20, 30},
+                        new BucketType[]{BucketType.Auction, BucketType.Continuous, null, BucketType.Continuous}, 4)
+        );
+        assertEquals("Percent of day volume cannot be less than 0, Bucket{startTime=09:01:00, endTime=09:02:00, percentOfDayVolume=-1.0, bucketType=Continuous}",
+                exception.getMessage());
+        assertEquals(4, exception.getViolations().size());
+        assertTrue(new VolumeProfileValidationException("message").getViolations().isEmpty());
+    }
+
+    @Test
+    public void testExceptionIsSerializedWithViolations() throws IOException, ClassNotFoundException {
+        VolumeProfileValidationException exception = new VolumeProfileValidationException(
+                VolumeProfileValidator.validate(START_TIMES, END_TIMES, new double[]{10, -1, 20, 30},
+                        new byte[]{0, 1, 1, 1}, 4, false));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(exception);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            VolumeProfileValidationException read = (VolumeProfileValidationException) in.readObject();
+            assertEquals(exception.getMessage(), read.getMessage());
+            assertEquals(exception.getViolations().size(), read.getViolations().size());
+            assertEquals(ViolationType.NEGATIVE_PERCENT, read.getViolations().getFirst().getType());
+            assertEquals(1, read.getViolations().getFirst().getIndex());
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.citi.volume.metrics;
+
+import com.citi.volume.MappedVolumeProfileCSVFileLoader;
+import com.citi.volume.VolumeProfileCSVFileLoader;
+import com.citi.volume.data.VolumeProfile;
+import com.citi.volume.data.exception.ViolationType;
+import com.citi.volume.data.exception.VolumeProfileLoadingException;
+import com.citi.volume.data.exception.VolumeProfileValidationException;
+import com.citi.volume.util.ConstantUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class HistogramVolumeProfileMetricsTest {
+    private final HistogramVolumeProfileMetrics metrics = new HistogramVolumeProfileMetrics();
+
+    @Before
+    public void setUp() {
+        Metrics.install(metrics);
+    }
+
+    @After
+    public void tearDown() {
+        Metrics.uninstall();
+    }
+
+    @Test
+    public void testLoaderMetrics() {
+        VolumeProfile volumeProfile = new MappedVolumeProfileCSVFileLoader().loadVolumeProfile("9988_HK", "9988_HK.csv");
+        new VolumeProfileCSVFileLoader().loadVolumeProfile("9988_HK", "9988_HK.csv");
+        assertThrows(VolumeProfileLoadingException.class, () -> new VolumeProfileCSVFileLoader().loadVolumeProfile("HK", "error_file.csv"));
+
+        assertEquals(2, metrics.getFileLoadLatency().getCount());
+        assertEquals(2L * volumeProfile.size(), metrics.getBucketsLoaded());
+        assertEquals(0, metrics.getBucketsCompacted());
+        assertEquals(1, metrics.getLoadFailures(HistogramVolumeProfileMetrics.INVALID_RECORD));
+        assertEquals(0, metrics.getLoadFailures(HistogramVolumeProfileMetrics.CANNOT_READ));
+        assertTrue(metrics.getFileLoadLatency().getMax() > 0);
+        assertEquals(1, metrics.getFailedLoadLatency().getCount());
+    }
+
+    @Test
+    public void testCompactionMetrics() throws IOException {
+        Path file = Files.createTempFile("illiquid", ".csv");
+        try {
+            Files.writeString(file, "09:00:00,09:01:00,0,Auction\n09:01:00,09:02:00,0,Continuous\n"
+                    + "09:02:00,09:03:00,0,Continuous\n09:03:00,09:04:00,100,Continuous\n");
+            VolumeProfile volumeProfile = new VolumeProfileCSVFileLoader(true).loadVolumeProfile("HK", file.toString());
+            assertEquals(3, volumeProfile.size());
+        } finally {
+            Files.delete(file);
+        }
+
+        assertEquals(3, metrics.getBucketsLoaded());
+        assertEquals(1, metrics.getBucketsCompacted());
+        assertEquals(Long.valueOf(1), metrics.getSnapshot().get("bucketsCompacted"));
+    }
+
+    @Test
+    public void testLoadFailuresByCheck() throws IOException {
+        Path file = Files.createTempFile("total_not_100", ".csv");
+        try {
+            Files.writeString(file, "09:00:00,09:30:00,50,Auction\n09:30:00,09:31:00,40,Continuous\n");
+            VolumeProfileCSVFileLoader loader = new VolumeProfileCSVFileLoader();
+            assertThrows(VolumeProfileValidationException.class, () -> loader.loadVolumeProfile("HK", file.toString()));
+            assertThrows(VolumeProfileLoadingException.class, () -> loader.loadVolumeProfile("HK", "NoFile.csv"));
+        } finally {
+            Files.delete(file);
+        }
+
+        assertEquals(1, metrics.getLoadFailures(ViolationType.TOTAL_NOT_100));
+        assertEquals(0, metrics.getLoadFailures(ViolationType.OVERLAPPING_BUCKETS));
+        assertEquals(1, metrics.getLoadFailures(HistogramVolumeProfileMetrics.CANNOT_READ));
+        assertEquals(2, metrics.getFailedLoadLatency().getCount());
+        assertEquals(0, metrics.getFileLoadLatency().getCount());
+
+        Map<String, Long> snapshot = metrics.getSnapshot();
+        assertEquals(Long.valueOf(1), snapshot.get("loadFailure.TOTAL_NOT_100"));
+        assertEquals(Long.valueOf(2), snapshot.get("failedFileLoad.count"));
+    }
+
+    @Test
+    public void testQueryAndFallbackMetrics() {
+        VolumeProfile volumeProfile = new VolumeProfileCSVFileLoader().loadVolumeProfile("9988_HK", "9988_HK.csv");
+        long start = volumeProfile.getStartTime(0);
+        long end = volumeProfile.getEndTime(volumeProfile.size() - 1);
+        volumeProfile.getTargetPercentForTimePeriod(start, end);
+        volumeProfile.getTargetPercentForTimePeriod(start, end);
+        volumeProfile.getCumulativeVolumeProfile(start, end);
+        volumeProfile.getCumulativePercentUpTo(end);
+        volumeProfile.getTargetPercentForTimePeriods(new long[]{start + 1000, start}, new long[]{end, end}, new double[2]);
+
+        assertEquals(2, metrics.getQueryLatency(VolumeProfileMetrics.Query.TARGET_PERCENT).getCount());
+        assertEquals(1, metrics.getQueryLatency(VolumeProfileMetrics.Query.CUMULATIVE_VOLUME_PROFILE).getCount());
+        assertEquals(1, metrics.getQueryLatency(VolumeProfileMetrics.Query.CUMULATIVE_PERCENT).getCount());
+        assertEquals(1, metrics.getQueryLatency(VolumeProfileMetrics.Query.TARGET_PERCENT_BATCH).getCount());
+        assertEquals(1, metrics.getFallbacks(VolumeProfileMetrics.Fallback.UNSORTED_BATCH));
+
+        ByteBuffer bytes = ByteBuffer.wrap("1.23e2".getBytes(StandardCharsets.US_ASCII));
+        assertEquals(123.0, ConstantUtils.extractDouble(bytes, 0, bytes.limit()), 0.0);
+        assertEquals(1, metrics.getFallbacks(VolumeProfileMetrics.Fallback.DOUBLE_PARSING));
+
+        Map<String, Long> snapshot = metrics.getSnapshot();
+        assertEquals(Long.valueOf(2), snapshot.get("query.TARGET_PERCENT.count"));
+        assertEquals(Long.valueOf(1), snapshot.get("fallback.DOUBLE_PARSING"));
+
+        metrics.reset();
+        assertEquals(0, metrics.getQueryLatency(VolumeProfileMetrics.Query.TARGET_PERCENT).getCount());
+        assertEquals(Long.valueOf(0), metrics.getSnapshot().get("fallback.DOUBLE_PARSING"));
+    }
+
+    @Test
+    public void testNothingRecordedAfterUninstall() {
+        Metrics.uninstall();
+        new VolumeProfileCSVFileLoader().loadVolumeProfile("9988_HK", "9988_HK.csv").getTargetPercentForTimePeriod(0, Long.MAX_VALUE);
+        assertSame(NoOpVolumeProfileMetrics.INSTANCE, Metrics.get());
+        assertEquals(0, metrics.getFileLoadLatency().getCount());
+        assertEquals(0, metrics.getQueryLatency(VolumeProfileMetrics.Query.TARGET_PERCENT).getCount());
+    }
+
+    @Test
+    public void testJmxExport() throws Exception {
+        String objectName = HistogramVolumeProfileMetrics.DEFAULT_OBJECT_NAME + ",name=test";
+        metrics.registerMBean(objectName);
+        try {
+            metrics.fallback(VolumeProfileMetrics.Fallback.UNSORTED_BATCH);
+            assertNotNull(ManagementFactory.getPlatformMBeanServer().getAttribute(new ObjectName(objectName), "Snapshot"));
+            assertThrows(IllegalStateException.class, () -> metrics.registerMBean(objectName));
+        } finally {
+            metrics.unregisterMBean(objectName);
+        }
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(new ObjectName(objectName)));
+    }
+
+    @Test
+    public void testLatencyHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMax());
+        assertEquals(500_500.0, histogram.getMean(), 0.0);
+        assertEquals(500_000, histogram.getValueAtPercentile(50), 500_000 * 0.04);
+        assertEquals(990_000, histogram.getValueAtPercentile(99), 990_000 * 0.04);
+        assertEquals(1_000_000, histogram.getValueAtPercentile(100));
+
+        for (long value : new long[]{0, 63, 64, 127, 128, 1_000_003, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(value <= LatencyHistogram.highestValueOf(index));
+            assertTrue(index == 0 || value > LatencyHistogram.highestValueOf(index - 1));
+        }
+    }
+}
@@ -2,6 +2,15 @@ package com.citi.volume.util;
 
 import com.citi.volume.data.BucketType;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.junit.Assert.*;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -49,4 +58,74 @@ public class ConstantUtilsTest {
         assertFalse(ConstantUtils.equalDouble(100.00001, 100.000001));
     }
 
+    @Test
+    public void testExtractFromBytes() {
+        ByteBuffer buffer = ByteBuffer.wrap("09:30:15,2.03355251671, Auction ,09:30,12:00:00.5,1e2,xyz,24:00:00".getBytes(StandardCharsets.US_ASCII));
+        assertEquals(((9 * 60 + 30) * 60 + 15) * 1000L, ConstantUtils.extractTimeOfDay(buffer, 0, 8));
+        assertEquals(2.03355251671, ConstantUtils.extractDouble(buffer, 9, 22), 0.0);
+        assertEquals(BucketType.Auction, ConstantUtils.extractBucketType(buffer, 23, 32));
+        assertEquals((9 * 60 + 30) * 60 * 1000L, ConstantUtils.extractTimeOfDay(buffer, 33, 38));
+        assertEquals(12 * 60 * 60 * 1000L + 500, ConstantUtils.extractTimeOfDay(buffer, 39, 49));
+        assertEquals(100.0, ConstantUtils.extractDouble(buffer, 50, 53), 0.0);
+        assertEquals(-1, ConstantUtils.extractDouble(buffer, 54, 57), 0.0);
+        assertNull(ConstantUtils.extractBucketType(buffer, 54, 57));
+        assertEquals(ConstantUtils.INVALID_TIME, ConstantUtils.extractTimeOfDay(buffer, 54, 57));
+        assertEquals(ConstantUtils.INVALID_TIME, ConstantUtils.extractTimeOfDay(buffer, 58, 66));
+        assertEquals(ConstantUtils.INVALID_TIME, ConstantUtils.extractTimeOfDay(buffer, 8, 8));
+    }
+
+    @Test
+    public void testExtractTimeOfDay() {
+        assertEquals(((9 * 60 + 30) * 60 + 15) * 1000L, ConstantUtils.extractTimeOfDay("09:30:15"));
+        assertEquals((23 * 60 + 59) * 60 * 1000L, ConstantUtils.extractTimeOfDay("23:59"));
+        assertEquals(ConstantUtils.INVALID_TIME, ConstantUtils.extractTimeOfDay("9:30:15"));
+        assertEquals(ConstantUtils.INVALID_TIME, ConstantUtils.extractTimeOfDay("09:60:00"));
+        assertEquals(ConstantUtils.INVALID_TIME, ConstantUtils.extractTimeOfDay(""));
+        assertEquals(ConstantUtils.INVALID_TIME, ConstantUtils.extractTimeOfDay(null));
+        assertNull(ConstantUtils.extractTime("xyz"));
+        assertNull(ConstantUtils.extractTime(null));
+    }
+
+    @Test
+    public void testExtractTimeUsesSession() {
+        try {
+            ConstantUtils.setSession(LocalDate.of(2025, 8, 22), ZoneId.of("Asia/Hong_Kong"));
+            long expected = ZonedDateTime.of(2025, 8, 22, 9, 30, 0, 0, ZoneId.of("Asia/Hong_Kong")).toInstant().toEpochMilli();
+            assertEquals(expected, ConstantUtils.extractTimeMillis("09:30:00"));
+            assertEquals(expected, ConstantUtils.extractTime("09:30:00").getTime());
+            assertEquals("09:30:00", ConstantUtils.printTime(expected));
+
+            // time of day on a date when daylight saving starts
+            ConstantUtils.setSession(LocalDate.of(2025, 3, 9), ZoneId.of("America/New_York"));
+            expected = ZonedDateTime.of(2025, 3, 9, 9, 30, 0, 0, ZoneId.of("America/New_York")).toInstant().toEpochMilli();
+            assertEquals(expected, ConstantUtils.extractTimeMillis("09:30:00"));
+            assertEquals("09:30:00", ConstantUtils.printTime(expected));
+        } finally {
+            ConstantUtils.resetSession();
+        }
+        assertEquals(LocalDate.now(), ConstantUtils.getSessionDate());
+    }
+
+    @Test
+    public void testExtractTimeFromMultipleThreads() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] futures = new Future<?>[4];
+            for (int t = 0; t < futures.length; t++) {
+                futures[t] = executor.submit(() -> {
+                    for (int i = 0; i < 10000; i++) {
+                        long time = ConstantUtils.extractTimeMillis("10:15:30");
+                        assertEquals("10:15:30", ConstantUtils.printTime(time));
+                        assertNotNull(ConstantUtils.extractDateTime("22/08/2025 09:00:00"));
+                    }
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
 }
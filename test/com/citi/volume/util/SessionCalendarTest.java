@@ -0,0 +1,106 @@
+package com.citi.volume.util;
+
+import com.citi.volume.MappedVolumeProfileCSVFileLoader;
+import com.citi.volume.VolumeProfileCSVFileLoader;
+import com.citi.volume.data.VolumeProfile;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class SessionCalendarTest {
+    private static final int MINUTE = 60_000;
+    private static final int HOUR = 60 * MINUTE;
+
+    @Test
+    public void testHongKongSessions() {
+        SessionCalendar calendar = SessionCalendar.hongKong(LocalDate.of(2025, 8, 22));
+        long open = ZonedDateTime.of(2025, 8, 22, 9, 0, 0, 0, ZoneId.of("Asia/Hong_Kong")).toInstant().toEpochMilli();
+        assertEquals(open, calendar.getOpenEpochMillis());
+        assertEquals(2, calendar.getSessionCount());
+        assertEquals(0, calendar.getSessionOpen(0));
+        assertEquals(3 * HOUR, calendar.getSessionClose(0));
+        assertEquals(4 * HOUR, calendar.getSessionOpen(1));
+        assertEquals(7 * HOUR + 10 * MINUTE, calendar.getSessionClose(1));
+
+        assertEquals(90 * MINUTE, calendar.toOffset(open + 90 * MINUTE));
+        assertEquals(open + 90 * MINUTE, calendar.toEpochMillis(90 * MINUTE));
+        assertEquals(-HOUR, calendar.toOffset(open - HOUR));
+        assertEquals(0, calendar.sessionOf(90 * MINUTE));
+        assertEquals(-1, calendar.sessionOf(3 * HOUR + 30 * MINUTE));
+        assertFalse(calendar.isOpen(-1));
+        assertTrue(calendar.isOpen(5 * HOUR));
+        assertEquals(-1, calendar.sessionOf(8 * HOUR));
+        // lunch break is not counted
+        assertEquals(2 * HOUR, calendar.getTradingMillis(2 * HOUR, 5 * HOUR));
+        assertEquals("SessionCalendar{2025-08-22 Asia/Hong_Kong, 09:00-12:00, 13:00-16:10}", calendar.toString());
+    }
+
+    @Test
+    public void testOvernightSession() {
+        // Chicago zone so result does not depend on zone of host running the test
+        SessionCalendar calendar = new SessionCalendar(LocalDate.of(2025, 8, 22), ZoneId.of("America/Chicago"),
+                LocalTime.of(17, 0), LocalTime.of(23, 0), LocalTime.of(23, 30), LocalTime.of(4, 0));
+        assertEquals(ZonedDateTime.of(2025, 8, 22, 17, 0, 0, 0, ZoneId.of("America/Chicago")).toInstant().toEpochMilli(),
+                calendar.getOpenEpochMillis());
+        assertEquals(11 * HOUR, calendar.getSessionClose(1));
+        assertEquals(8 * HOUR, calendar.timeOfDayToOffset(HOUR));
+        assertEquals(6 * HOUR + 30 * MINUTE, calendar.timeOfDayToOffset(23 * HOUR + 30 * MINUTE));
+        assertEquals(1, calendar.sessionOf(calendar.timeOfDayToOffset(HOUR)));
+
+        assertThrows(IllegalArgumentException.class, () -> new SessionCalendar(LocalDate.of(2025, 8, 22), ZoneId.of("Asia/Hong_Kong"),
+                LocalTime.of(9, 0), LocalTime.of(12, 0), LocalTime.of(11, 0), LocalTime.of(16, 0)));
+        assertThrows(IllegalArgumentException.class, () -> new SessionCalendar(LocalDate.of(2025, 8, 22), ZoneId.of("Asia/Hong_Kong"),
+                LocalTime.of(9, 0)));
+    }
+
+    @Test
+    public void testDaylightSavingChangeDuringTradingDay() {
+        // clocks go back at 02:00 on 2025-11-02, session from 18:00 to 04:00 has one more hour
+        SessionCalendar calendar = new SessionCalendar(LocalDate.of(2025, 11, 1), ZoneId.of("America/New_York"),
+                LocalTime.of(18, 0), LocalTime.of(4, 0));
+        assertEquals(11 * HOUR, calendar.getSessionClose(0));
+        assertEquals(11 * HOUR, calendar.timeOfDayToOffset(4 * HOUR));
+        assertEquals(HOUR, calendar.timeOfDayToOffset(19 * HOUR));
+    }
+
+    @Test
+    public void testOvernightProfileLoadedInOrder() throws IOException {
+        Path file = Files.createTempFile("overnight", ".csv");
+        Files.writeString(file, """
+                23:30:00,23:59:00,40,Continuous
+                23:59:00,00:00:00,10,Continuous
+                00:00:00,01:00:00,40,Continuous
+                03:50:00,04:00:00,10,Auction
+                """);
+        SessionCalendar calendar = new SessionCalendar(LocalDate.of(2025, 8, 22), ZoneId.of("Asia/Hong_Kong"),
+                LocalTime.of(23, 30), LocalTime.of(4, 0));
+        try {
+            ConstantUtils.setSession(calendar);
+            assertSame(calendar, ConstantUtils.getSessionCalendar());
+            for (VolumeProfile volumeProfile : new VolumeProfile[]{
+                    new VolumeProfileCSVFileLoader().loadVolumeProfile("HSI", file.toString()),
+                    new MappedVolumeProfileCSVFileLoader().loadVolumeProfile("HSI", file.toString())}) {
+                assertEquals(4, volumeProfile.size());
+                assertEquals(calendar.getOpenEpochMillis(), volumeProfile.getStartTime(0));
+                assertEquals(calendar.toEpochMillis(30 * MINUTE), volumeProfile.getStartTime(2));
+                assertEquals(calendar.toEpochMillis(4 * HOUR + 30 * MINUTE), volumeProfile.getEndTime(3));
+                assertEquals(20.0, volumeProfile.getTargetPercentForTimePeriod(calendar.toEpochMillis(29 * MINUTE),
+                        calendar.toEpochMillis(30 * MINUTE + 15 * MINUTE)), 1e-9);
+            }
+        } finally {
+            ConstantUtils.resetSession();
+        }
+        assertNull(ConstantUtils.getSessionCalendar());
+    }
+}